@@ -21,28 +21,47 @@ import com.github.tomakehurst.wiremock.common.Notifier;
 import com.github.tomakehurst.wiremock.common.ProxySettings;
 import com.github.tomakehurst.wiremock.core.Container;
 import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.RecordingStats;
+import com.github.tomakehurst.wiremock.core.ThreadPoolStats;
 import com.github.tomakehurst.wiremock.core.WireMockApp;
 import com.github.tomakehurst.wiremock.global.RequestDelayControl;
 import com.github.tomakehurst.wiremock.global.ThreadSafeRequestDelayControl;
 import com.github.tomakehurst.wiremock.http.*;
+import com.github.tomakehurst.wiremock.jetty.DelayableSelectChannelConnector;
 import com.github.tomakehurst.wiremock.jetty.DelayableSocketConnector;
+import com.github.tomakehurst.wiremock.jetty.DelayableSslSelectChannelConnector;
 import com.github.tomakehurst.wiremock.jetty.DelayableSslSocketConnector;
+import com.github.tomakehurst.wiremock.jetty.IsolatedSocketConnector;
+import com.github.tomakehurst.wiremock.jetty.LoadSheddingThreadPool;
 import com.github.tomakehurst.wiremock.servlet.ContentTypeSettingFilter;
 import com.github.tomakehurst.wiremock.servlet.HandlerDispatchingServlet;
 import com.github.tomakehurst.wiremock.servlet.TrailingSlashFilter;
 import com.github.tomakehurst.wiremock.standalone.JsonFileMappingsLoader;
 import com.github.tomakehurst.wiremock.standalone.JsonFileMappingsSaver;
+import com.github.tomakehurst.wiremock.standalone.MappingsDirectoryWatcher;
 import com.github.tomakehurst.wiremock.standalone.MappingsLoader;
+import com.github.tomakehurst.wiremock.standalone.MappingsSnapshot;
+import com.github.tomakehurst.wiremock.standalone.SnapshotMappingsLoader;
+import com.github.tomakehurst.wiremock.stubbing.BackgroundRecordingWriter;
+import com.github.tomakehurst.wiremock.stubbing.ContentAddressedBodyStore;
 import com.github.tomakehurst.wiremock.stubbing.StubMappingJsonRecorder;
 import com.github.tomakehurst.wiremock.stubbing.StubMappings;
+import com.google.common.base.Optional;
+import org.mortbay.jetty.AbstractConnector;
+import org.mortbay.jetty.Connector;
 import org.mortbay.jetty.Handler;
 import org.mortbay.jetty.MimeTypes;
 import org.mortbay.jetty.Server;
+import org.mortbay.jetty.nio.SelectChannelConnector;
 import org.mortbay.jetty.servlet.Context;
 import org.mortbay.jetty.servlet.DefaultServlet;
 import org.mortbay.jetty.servlet.ServletHolder;
+import org.mortbay.thread.QueuedThreadPool;
 
+import java.io.File;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.github.tomakehurst.wiremock.core.WireMockApp.ADMIN_CONTEXT_ROOT;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
@@ -54,7 +73,12 @@ public class WireMockServer implements Container {
 
 	public static final String FILES_ROOT = "__files";
     public static final String MAPPINGS_ROOT = "mappings";
+    public static final String PROXY_CACHE_ROOT = "proxy-cache";
 	private static final String FILES_URL_MATCH = String.format("/%s/*", FILES_ROOT);
+    private static final String HTTP_CONNECTOR_NAME = "http";
+    private static final String HTTPS_CONNECTOR_NAME = "https";
+    private static final String ADMIN_CONNECTOR_NAME = "admin";
+    private static final int ADMIN_MAX_THREADS = 10;
 	
 	private final WireMockApp wireMockApp;
     private final AdminRequestHandler adminRequestHandler;
@@ -69,8 +93,14 @@ public class WireMockServer implements Container {
 	private final String bindAddress;
 
     private final Options options;
-    private DelayableSocketConnector httpConnector;
-    private DelayableSslSocketConnector httpsConnector;
+    private Connector httpConnector;
+    private Connector httpsConnector;
+    private Optional<Connector> adminConnector = Optional.absent();
+    private LoadSheddingThreadPool threadPool;
+    private final ProxyResponseRenderer proxyResponseRenderer;
+    private final Optional<ContentAddressedBodyStore> bodyStore;
+    private final List<StubMappingJsonRecorder> recorders = new CopyOnWriteArrayList<StubMappingJsonRecorder>();
+    private Optional<MappingsDirectoryWatcher> mappingsWatcher = Optional.absent();
 
     public WireMockServer(Options options) {
         this.options = options;
@@ -82,33 +112,85 @@ public class WireMockServer implements Container {
         requestDelayControl = new ThreadSafeRequestDelayControl();
 
         MappingsLoader defaultMappingsLoader = makeDefaultMappingsLoader();
-        JsonFileMappingsSaver mappingsSaver = new JsonFileMappingsSaver(fileSource.child(MAPPINGS_ROOT));
+        bodyStore = makeBodyStore(fileSource.child(MAPPINGS_ROOT), fileSource.child(FILES_ROOT));
+        JsonFileMappingsSaver mappingsSaver = new JsonFileMappingsSaver(fileSource.child(MAPPINGS_ROOT), bodyStore);
         wireMockApp = new WireMockApp(
                 requestDelayControl,
                 options.browserProxyingEnabled(),
                 defaultMappingsLoader,
                 mappingsSaver,
+                options.mappingsSnapshotEnabled() ? Optional.of(mappingsSnapshot()) : Optional.<MappingsSnapshot>absent(),
                 options.requestJournalDisabled(),
+                options.maxRequestJournalEntries(),
+                options.maxRequestJournalBytes(),
+                options.bodyFileCacheMaxBytes(),
                 this
         );
 
+        proxyResponseRenderer = makeProxyResponseRenderer();
         adminRequestHandler = new AdminRequestHandler(wireMockApp, new BasicResponseRenderer());
         stubRequestHandler = new StubRequestHandler(wireMockApp,
                 new StubResponseRenderer(fileSource.child(FILES_ROOT),
                         wireMockApp.getGlobalSettingsHolder(),
-                        new ProxyResponseRenderer(options.proxyVia(),
+                        wireMockApp.getBodyFileCache(),
+                        proxyResponseRenderer));
+
+    }
+
+    private Optional<ContentAddressedBodyStore> makeBodyStore(FileSource mappingsFileSource, FileSource filesFileSource) {
+        if (!options.contentAddressedBodiesEnabled()) {
+            return Optional.absent();
+        }
+
+        ContentAddressedBodyStore store = new ContentAddressedBodyStore(filesFileSource);
+        store.countReferencesFrom(mappingsFileSource);
+        return Optional.of(store);
+    }
+
+    private ProxyResponseRenderer makeProxyResponseRenderer() {
+        Optional<ProxyRequestCoalescer> coalescer = Optional.absent();
+        if (options.proxyRequestCoalescingHeaders().isPresent()) {
+            coalescer = Optional.of(new ProxyRequestCoalescer(options.proxyRequestCoalescingHeaders().get()));
+        }
+
+        Optional<ProxyResponseCache> cache = Optional.absent();
+        if (options.proxyResponseCacheMaxBytes().isPresent()) {
+            Optional<FileSource> diskStore = options.proxyResponseCacheOnDisk() ?
+                    Optional.of(fileSource.child(PROXY_CACHE_ROOT)) : Optional.<FileSource>absent();
+            cache = Optional.of(new ProxyResponseCache(options.proxyResponseCacheMaxBytes().get(), diskStore));
+        }
+
+        if (options.asynchronousProxyingEnabled()) {
+            return new AsyncProxyResponseRenderer(options.proxyVia(),
                                                   options.shouldPreserveHostHeader(),
-                                                  options.proxyHostHeader())));
+                                                  options.proxyHostHeader(),
+                                                  coalescer,
+                                                  cache);
+        }
+
+        return new ProxyResponseRenderer(options.proxyVia(),
+                                         options.shouldPreserveHostHeader(),
+                                         options.proxyHostHeader(),
+                                         coalescer,
+                                         cache);
+    }
 
+    private MappingsSnapshot mappingsSnapshot() {
+        return new MappingsSnapshot(fileSource, fileSource.child(MAPPINGS_ROOT));
     }
 
     private MappingsLoader makeDefaultMappingsLoader() {
         FileSource mappingsFileSource = fileSource.child("mappings");
-        if (mappingsFileSource.exists()) {
-            return new JsonFileMappingsLoader(mappingsFileSource);
-        } else {
+        if (!mappingsFileSource.exists()) {
             return new NoOpMappingsLoader();
         }
+
+        MappingsLoader filesLoader = new JsonFileMappingsLoader(mappingsFileSource, options.parallelMappingLoadingEnabled());
+        if (options.mappingsSnapshotEnabled()) {
+            return new SnapshotMappingsLoader(mappingsSnapshot(), filesLoader);
+        }
+
+        return filesLoader;
     }
 
     public WireMockServer(int port, Integer httpsPort, FileSource fileSource, boolean enableBrowserProxying, ProxySettings proxySettings, Notifier notifier) {
@@ -157,17 +239,47 @@ public class WireMockServer implements Container {
 	}
 	
 	public void enableRecordMappings(FileSource mappingsFileSource, FileSource filesFileSource) {
-	    addMockServiceRequestListener(
-                new StubMappingJsonRecorder(mappingsFileSource, filesFileSource, wireMockApp, options.matchingHeaders()));
+        Optional<ContentAddressedBodyStore> recordingBodyStore =
+                filesFileSource.getPath().equals(fileSource.child(FILES_ROOT).getPath()) ?
+                        bodyStore : makeBodyStore(mappingsFileSource, filesFileSource);
+        BackgroundRecordingWriter writer = new BackgroundRecordingWriter(mappingsFileSource, filesFileSource, notifier, recordingBodyStore);
+        StubMappingJsonRecorder recorder = new StubMappingJsonRecorder(
+                mappingsFileSource, filesFileSource, options.matchingHeaders(), Optional.of(writer), recordingBodyStore);
+        recorders.add(recorder);
+	    addMockServiceRequestListener(recorder);
+        wireMockApp.addResetListener(recorder);
 	    notifier.info("Recording mappings to " + mappingsFileSource.getPath());
 	}
 	
+    /**
+     * Blocks until every mapping recorded so far has been written out.
+     */
+    public void flushRecordings() {
+        for (StubMappingJsonRecorder recorder: recorders) {
+            recorder.flush();
+        }
+    }
+
+    private void stopRecorders() {
+        for (StubMappingJsonRecorder recorder: recorders) {
+            recorder.stop();
+        }
+        recorders.clear();
+    }
+
 	public void stop() {
 		try {
             httpConnector = null;
             httpsConnector = null;
+            adminConnector = Optional.absent();
 			jettyServer.stop();
             jettyServer.join();
+            proxyResponseRenderer.stop();
+            stopRecorders();
+            if (mappingsWatcher.isPresent()) {
+                mappingsWatcher.get().stop();
+                mappingsWatcher = Optional.absent();
+            }
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
@@ -176,6 +288,8 @@ public class WireMockServer implements Container {
 	public void start() {
 		try {
             jettyServer = new Server();
+            threadPool = createThreadPool();
+            jettyServer.setThreadPool(threadPool);
             httpConnector = createHttpConnector();
             jettyServer.addConnector(httpConnector);
 
@@ -184,9 +298,15 @@ public class WireMockServer implements Container {
                 jettyServer.addConnector(httpsConnector);
             }
 
+            if (options.adminPortNumber().isPresent()) {
+                adminConnector = Optional.of(createAdminConnector(options.adminPortNumber().get()));
+                jettyServer.addConnector(adminConnector.get());
+            }
+
             addAdminContext();
             addMockServiceContext();
 			jettyServer.start();
+            startMappingsWatcherIfEnabled();
 		} catch (Exception e) {
             throw new FatalStartupException(e);
 		}
@@ -217,6 +337,18 @@ public class WireMockServer implements Container {
         shutdownThread.start();
     }
 
+    private void startMappingsWatcherIfEnabled() {
+        FileSource mappingsFileSource = fileSource.child(MAPPINGS_ROOT);
+        File mappingsDirectory = new File(mappingsFileSource.getPath());
+        if (!options.mappingsWatchingEnabled() || !mappingsDirectory.isDirectory()) {
+            return;
+        }
+
+        MappingsDirectoryWatcher watcher = new MappingsDirectoryWatcher(mappingsDirectory, wireMockApp.getStubMappings(), bodyStore, notifier);
+        watcher.start();
+        mappingsWatcher = Optional.of(watcher);
+    }
+
     public int port() {
         checkState(httpConnector != null, "Not listening on HTTP port. The WireMock server is most likely stopped");
         return httpConnector.getLocalPort();
@@ -227,16 +359,69 @@ public class WireMockServer implements Container {
         return httpsConnector.getLocalPort();
     }
 
-    private DelayableSocketConnector createHttpConnector() {
-        DelayableSocketConnector connector = new DelayableSocketConnector(requestDelayControl);
+    /**
+     * The port serving the admin API, which is the HTTP port unless a separate admin port was configured.
+     */
+    public int adminPort() {
+        if (adminConnector.isPresent()) {
+            return adminConnector.get().getLocalPort();
+        }
+
+        return port();
+    }
+
+    private LoadSheddingThreadPool createThreadPool() {
+        return new LoadSheddingThreadPool(
+                options.minRequestThreads(),
+                options.maxRequestThreads(),
+                options.requestThreadIdleTimeoutMilliseconds(),
+                options.requestQueueCapacity(),
+                options.loadSheddingResponseBody());
+    }
+
+    /**
+     * Totals the stats of every recording writer enabled since the server was last stopped.
+     */
+    @Override
+    public RecordingStats getRecordingStats() {
+        RecordingStats stats = RecordingStats.NONE;
+        for (StubMappingJsonRecorder recorder: recorders) {
+            stats = stats.plus(recorder.getStats());
+        }
+
+        return stats;
+    }
+
+    @Override
+    public ThreadPoolStats getThreadPoolStats() {
+        checkState(threadPool != null, "The WireMock server has not been started");
+        return threadPool.getStats();
+    }
+
+    private Connector createHttpConnector() {
+        AbstractConnector connector = options.nonBlockingConnectorsEnabled() ?
+                new DelayableSelectChannelConnector(requestDelayControl) :
+                new DelayableSocketConnector(requestDelayControl);
+        connector.setName(HTTP_CONNECTOR_NAME);
         connector.setHost(bindAddress);
         connector.setPort(port);
         connector.setHeaderBufferSize(8192);
         return connector;
     }
 
-    private DelayableSslSocketConnector createHttpsConnector() {
+    private Connector createHttpsConnector() {
+        if (options.nonBlockingConnectorsEnabled()) {
+            DelayableSslSelectChannelConnector connector = new DelayableSslSelectChannelConnector(requestDelayControl);
+            connector.setName(HTTPS_CONNECTOR_NAME);
+            connector.setPort(options.httpsSettings().port());
+            connector.setHeaderBufferSize(8192);
+            connector.setKeystore(options.httpsSettings().keyStorePath());
+            connector.setKeyPassword("password");
+            return connector;
+        }
+
         DelayableSslSocketConnector connector = new DelayableSslSocketConnector(requestDelayControl);
+        connector.setName(HTTPS_CONNECTOR_NAME);
         connector.setPort(options.httpsSettings().port());
         connector.setHeaderBufferSize(8192);
         connector.setKeystore(options.httpsSettings().keyStorePath());
@@ -244,6 +429,29 @@ public class WireMockServer implements Container {
         return connector;
     }
 
+    /**
+     * The admin connector has its own small thread pool, and neither delays nor sheds connections,
+     * so that the admin API stays responsive however busy the stubs keep the main pool.
+     */
+    private Connector createAdminConnector(int adminPort) {
+        QueuedThreadPool adminThreadPool = new QueuedThreadPool(ADMIN_MAX_THREADS);
+        adminThreadPool.setName("wiremock-admin");
+
+        AbstractConnector connector;
+        if (options.nonBlockingConnectorsEnabled()) {
+            connector = new SelectChannelConnector();
+            connector.setThreadPool(adminThreadPool);
+        } else {
+            connector = new IsolatedSocketConnector(adminThreadPool);
+        }
+
+        connector.setName(ADMIN_CONNECTOR_NAME);
+        connector.setHost(bindAddress);
+        connector.setPort(adminPort);
+        connector.setHeaderBufferSize(8192);
+        return connector;
+    }
+
     public boolean isRunning() {
         return jettyServer != null && jettyServer.isRunning();
     }
@@ -251,6 +459,9 @@ public class WireMockServer implements Container {
     @SuppressWarnings({"rawtypes", "unchecked" })
     private void addMockServiceContext() {
         Context mockServiceContext = new Context(jettyServer, "/");
+        if (adminConnector.isPresent()) {
+            mockServiceContext.setConnectorNames(new String[] { HTTP_CONNECTOR_NAME, HTTPS_CONNECTOR_NAME });
+        }
         
         Map initParams = newHashMap();
         initParams.put("org.mortbay.jetty.servlet.Default.maxCacheSize", "0");
@@ -283,6 +494,9 @@ public class WireMockServer implements Container {
 
     private void addAdminContext() {
         Context adminContext = new Context(jettyServer, ADMIN_CONTEXT_ROOT);
+        if (adminConnector.isPresent()) {
+            adminContext.setConnectorNames(new String[] { ADMIN_CONNECTOR_NAME });
+        }
 		ServletHolder servletHolder = adminContext.addServlet(HandlerDispatchingServlet.class, "/");
 		servletHolder.setInitParameter(RequestHandler.HANDLER_CLASS_KEY, AdminRequestHandler.class.getName());
 		adminContext.setAttribute(AdminRequestHandler.class.getName(), adminRequestHandler);
@@ -34,9 +34,13 @@ public class AdminTasks {
                 .put(requestSpec(POST, "/mappings/new"), NewStubMappingTask.class)
                 .put(requestSpec(POST, "/scenarios/reset"), ResetScenariosTask.class)
                 .put(requestSpec(POST, "/mappings/save"), SaveMappingsTask.class)
+                .put(requestSpec(POST, "/mappings/snapshot"), SnapshotMappingsTask.class)
                 .put(requestSpec(POST, "/mappings/reset"), ResetToDefaultMappingsTask.class)
                 .put(requestSpec(POST, "/requests/count"), GetRequestCountTask.class)
                 .put(requestSpec(POST, "/requests/find"), FindRequestsTask.class)
+                .put(requestSpec(GET, "/requests/journal"), GetRequestJournalStatsTask.class)
+                .put(requestSpec(GET, "/threads"), GetThreadPoolStatsTask.class)
+                .put(requestSpec(GET, "/recordings"), GetRecordingStatsTask.class)
                 .put(requestSpec(POST, "/socket-delay"), SocketDelayTask.class)
                 .put(requestSpec(POST, "/settings"), GlobalSettingsUpdateTask.class)
                 .put(requestSpec(POST, "/shutdown"), ShutdownServerTask.class)
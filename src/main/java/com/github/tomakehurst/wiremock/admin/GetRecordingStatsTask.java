@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.admin;
+
+import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.core.RecordingStats;
+import com.github.tomakehurst.wiremock.http.HttpHeaders;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+
+import static com.github.tomakehurst.wiremock.common.Json.write;
+import static com.github.tomakehurst.wiremock.http.HttpHeader.httpHeader;
+import static java.net.HttpURLConnection.HTTP_OK;
+
+public class GetRecordingStatsTask implements AdminTask {
+
+    @Override
+    public ResponseDefinition execute(Admin admin, Request request) {
+        RecordingStats stats = admin.getRecordingStats();
+        ResponseDefinition response = new ResponseDefinition(HTTP_OK, write(stats));
+        response.setHeaders(new HttpHeaders(httpHeader("Content-Type", "application/json")));
+        return response;
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.tomakehurst.wiremock.capture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A string parsed once into the positions of its candidate placeholders, so that substituting
+ * variables is a single left-to-right pass writing into a pre-sized buffer.
+ */
+public class PlaceholderTemplate {
+	private static final int EXPECTED_VALUE_LENGTH = 16;
+
+	private final String source;
+	private final int[] starts;
+	private final int[] ends;
+	private final String[] names;
+
+	private PlaceholderTemplate(String source, List<Integer> starts, List<Integer> ends, List<String> names) {
+		this.source = source;
+		this.starts = toArray(starts);
+		this.ends = toArray(ends);
+		this.names = names.toArray(new String[names.size()]);
+	}
+
+	/**
+	 * Records a candidate placeholder for every opening delimiter that has a closing delimiter after it.
+	 * Candidates may overlap; which of them are substituted depends on the variables given to render.
+	 */
+	public static PlaceholderTemplate parse(String input, String delimiter1, String delimiter2) {
+		List<Integer> starts = new ArrayList<Integer>();
+		List<Integer> ends = new ArrayList<Integer>();
+		List<String> names = new ArrayList<String>();
+
+		int start = input.indexOf(delimiter1);
+		while (start >= 0) {
+			int nameStart = start + delimiter1.length();
+			int end = input.indexOf(delimiter2, nameStart);
+			if (end < 0) {
+				break;
+			}
+
+			starts.add(start);
+			ends.add(end + delimiter2.length());
+			names.add(input.substring(nameStart, end));
+			start = input.indexOf(delimiter1, start + 1);
+		}
+
+		return new PlaceholderTemplate(input, starts, ends, names);
+	}
+
+	/**
+	 * Pairs delimiters left to right, substituting the first candidate naming a known variable and carrying
+	 * on after it. Placeholders naming a variable that is absent or null are left as they are.
+	 */
+	public String render(Map<String, String> variables) {
+		if (!hasPlaceholders()) {
+			return source;
+		}
+
+		StringBuilder result = null;
+		int position = 0;
+		for (int i = 0; i < names.length; i++) {
+			if (starts[i] < position) {
+				continue;
+			}
+
+			String value = variables.get(names[i]);
+			if (value != null) {
+				if (result == null) {
+					result = new StringBuilder(source.length() + names.length * EXPECTED_VALUE_LENGTH);
+				}
+				result.append(source, position, starts[i]).append(value);
+				position = ends[i];
+			}
+		}
+
+		if (result == null) {
+			return source;
+		}
+
+		return result.append(source, position, source.length()).toString();
+	}
+
+	public boolean hasPlaceholders() {
+		return names.length > 0;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+}
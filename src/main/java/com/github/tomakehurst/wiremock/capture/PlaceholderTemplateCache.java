@@ -0,0 +1,41 @@
+package com.github.tomakehurst.wiremock.capture;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the parsed templates for the response body and header values of one stub mapping,
+ * so each is parsed the first time it is rendered rather than on every request.
+ */
+public class PlaceholderTemplateCache {
+	private final String delimiter1;
+	private final String delimiter2;
+	private final ConcurrentHashMap<String, PlaceholderTemplate> templates = new ConcurrentHashMap<String, PlaceholderTemplate>();
+
+	public PlaceholderTemplateCache(List<String> delimiters) {
+		this(Replacer.delimiterOrDefault(delimiters, 0), Replacer.delimiterOrDefault(delimiters, 1));
+	}
+
+	public PlaceholderTemplateCache(String delimiter1, String delimiter2) {
+		this.delimiter1 = delimiter1;
+		this.delimiter2 = delimiter2;
+	}
+
+	public PlaceholderTemplate templateFor(String input) {
+		PlaceholderTemplate template = templates.get(input);
+		if (template == null) {
+			template = PlaceholderTemplate.parse(input, delimiter1, delimiter2);
+			templates.putIfAbsent(input, template);
+		}
+
+		return template;
+	}
+
+	public String getDelimiter1() {
+		return delimiter1;
+	}
+
+	public String getDelimiter2() {
+		return delimiter2;
+	}
+}
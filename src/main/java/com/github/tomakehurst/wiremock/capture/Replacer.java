@@ -13,53 +13,53 @@ public class Replacer {
 	private final String delimiter1;
 	private final String delimiter2;
 	private final ImmutableMap<String, String> variables;
+	private final PlaceholderTemplateCache templates;
 	
 	public Replacer(Map<String, String> variables) {
 		this(variables, DEFAULT_DELIMITER_1, DEFAULT_DELIMITER_2);
 	}
 	
 	public Replacer(Map<String, String> variables, List<String> delimiters) {
-		String delimiter1 = DEFAULT_DELIMITER_1;
-		String delimiter2 = DEFAULT_DELIMITER_2;
-		
-		if (delimiters != null) {
-			if (delimiters.size() == 2) {
-				delimiter1 = delimiters.get(0);
-				delimiter2 = delimiters.get(1);
-			} else {
-				throw new RuntimeException("delimiters must have exactly 2 entries");
-			}
-		}
-		ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
-		this.variables = builder.putAll(variables).build();
-		this.delimiter1 = delimiter1;
-		this.delimiter2 = delimiter2;
+		this(variables, delimiterOrDefault(delimiters, 0), delimiterOrDefault(delimiters, 1));
 	}
 	
 	public Replacer(Map<String, String> variables, String delimiter1, String delimiter2) {
+		this(variables, delimiter1, delimiter2, null);
+	}
+
+	/**
+	 * Renders through the given cache, which should be shared by every request to the same stub mapping.
+	 */
+	public Replacer(Map<String, String> variables, PlaceholderTemplateCache templates) {
+		this(variables, templates.getDelimiter1(), templates.getDelimiter2(), templates);
+	}
+
+	private Replacer(Map<String, String> variables, String delimiter1, String delimiter2, PlaceholderTemplateCache templates) {
 		ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
 		this.variables = builder.putAll(variables).build();
 		this.delimiter1 = delimiter1;
 		this.delimiter2 = delimiter2;
+		this.templates = templates;
+	}
+
+	static String delimiterOrDefault(List<String> delimiters, int index) {
+		if (delimiters == null) {
+			return index == 0 ? DEFAULT_DELIMITER_1 : DEFAULT_DELIMITER_2;
+		}
+		if (delimiters.size() != 2) {
+			throw new RuntimeException("delimiters must have exactly 2 entries");
+		}
+		return delimiters.get(index);
 	}
 	
 	public String replacePlaceholders(final String input) {
 		if (input == null) return null;
 		if (!hasVariables()) return input;
 		
-		StringBuilder result = new StringBuilder(input);
-		for (String key : variables.keySet()) {
-			String placeholder = delimiter1 + key + delimiter2;
-			String value = variables.get(key);
-			if (value != null) {
-    			int index = result.indexOf(placeholder);
-    			while (index >= 0) {
-    				result.replace(index, index+placeholder.length(), value);
-    				index = result.indexOf(placeholder);
-    			}
-			}
-		}
-		return result.toString();
+		PlaceholderTemplate template = templates != null ?
+				templates.templateFor(input) :
+				PlaceholderTemplate.parse(input, delimiter1, delimiter2);
+		return template.render(variables);
 	}
 	
 	public List<String> replacePlaceholders(final List<String> inputList) {
@@ -15,11 +15,13 @@
  */
 package com.github.tomakehurst.wiremock.client;
 
-import java.util.List;
+import java.io.IOException;
 
 import com.github.tomakehurst.wiremock.admin.*;
 import com.github.tomakehurst.wiremock.common.Json;
 import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.core.RecordingStats;
+import com.github.tomakehurst.wiremock.core.ThreadPoolStats;
 import com.github.tomakehurst.wiremock.global.GlobalSettings;
 import com.github.tomakehurst.wiremock.global.RequestDelaySpec;
 import com.github.tomakehurst.wiremock.http.HttpClientFactory;
@@ -27,18 +29,19 @@ import com.github.tomakehurst.wiremock.matching.RequestPattern;
 import com.github.tomakehurst.wiremock.stubbing.ListStubMappingsResult;
 import com.github.tomakehurst.wiremock.stubbing.StubMapping;
 import com.github.tomakehurst.wiremock.verification.FindRequestsResult;
+import com.github.tomakehurst.wiremock.verification.RequestJournalStats;
 import com.github.tomakehurst.wiremock.verification.VerificationResult;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
 
 import static com.github.tomakehurst.wiremock.common.Exceptions.throwUnchecked;
 import static com.github.tomakehurst.wiremock.common.HttpClientUtils.getEntityAsStringAndCloseStream;
-import static com.github.tomakehurst.wiremock.http.MimeType.JSON;
 import static java.net.HttpURLConnection.HTTP_CREATED;
 import static java.net.HttpURLConnection.HTTP_OK;
 import static org.apache.http.entity.ContentType.APPLICATION_JSON;
@@ -75,10 +78,10 @@ public class HttpAdminClient implements Admin {
 
     @Override
     public ListStubMappingsResult listAllStubMappings() {
-        String body = getJsonAssertOkAndReturnBody(
+        return getJsonAssertOkAndReadBody(
                 urlFor(RootTask.class),
-                HTTP_OK);
-        return Json.read(body, ListStubMappingsResult.class);
+                HTTP_OK,
+                ListStubMappingsResult.class);
     }
 
     @Override
@@ -86,6 +89,11 @@ public class HttpAdminClient implements Admin {
         postJsonAssertOkAndReturnBody(urlFor(SaveMappingsTask.class), null, HTTP_OK);
     }
 
+    @Override
+    public void snapshotMappings() {
+        postJsonAssertOkAndReturnBody(urlFor(SnapshotMappingsTask.class), null, HTTP_OK);
+    }
+
     @Override
 	public void resetMappings() {
 		postJsonAssertOkAndReturnBody(urlFor(ResetTask.class), null, HTTP_OK);
@@ -112,11 +120,35 @@ public class HttpAdminClient implements Admin {
 
     @Override
     public FindRequestsResult findRequestsMatching(RequestPattern requestPattern) {
-        String body = postJsonAssertOkAndReturnBody(
+        return postJsonAssertOkAndReadBody(
                 urlFor(FindRequestsTask.class),
                 Json.write(requestPattern),
-                HTTP_OK);
-        return Json.read(body, FindRequestsResult.class);
+                HTTP_OK,
+                FindRequestsResult.class);
+    }
+
+    @Override
+    public RequestJournalStats getRequestJournalStats() {
+        return getJsonAssertOkAndReadBody(
+                urlFor(GetRequestJournalStatsTask.class),
+                HTTP_OK,
+                RequestJournalStats.class);
+    }
+
+    @Override
+    public ThreadPoolStats getThreadPoolStats() {
+        return getJsonAssertOkAndReadBody(
+                urlFor(GetThreadPoolStatsTask.class),
+                HTTP_OK,
+                ThreadPoolStats.class);
+    }
+
+    @Override
+    public RecordingStats getRecordingStats() {
+        return getJsonAssertOkAndReadBody(
+                urlFor(GetRecordingStatsTask.class),
+                HTTP_OK,
+                RecordingStats.class);
     }
 
     @Override
@@ -141,40 +173,54 @@ public class HttpAdminClient implements Admin {
     }
 
     private String postJsonAssertOkAndReturnBody(String url, String json, int expectedStatus) {
-		HttpPost post = new HttpPost(url);
-		try {
-			if (json != null) {
-				post.setEntity(new StringEntity(json, APPLICATION_JSON));
-			}
-			HttpResponse response = httpClient.execute(post);
-            int statusCode = response.getStatusLine().getStatusCode();
-			if (statusCode != expectedStatus) {
-				throw new VerificationException(
-                        "Expected status " + expectedStatus + " for " + url + " but was " + statusCode);
-			}
-
-            return getEntityAsStringAndCloseStream(response);
+        try {
+            return getEntityAsStringAndCloseStream(executeAssertingStatus(postWithJson(url, json), expectedStatus));
         } catch (Exception e) {
             return throwUnchecked(e, String.class);
         }
     }
 
-    private String getJsonAssertOkAndReturnBody(String url, int expectedStatus) {
-        HttpGet get = new HttpGet(url);
+    private <T> T postJsonAssertOkAndReadBody(String url, String json, int expectedStatus, Class<T> bodyType) {
         try {
-            HttpResponse response = httpClient.execute(get);
-            int statusCode = response.getStatusLine().getStatusCode();
-            if (statusCode != expectedStatus) {
-                throw new VerificationException(
-                        "Expected status " + expectedStatus + " for " + url + " but was " + statusCode);
-            }
-
-            return getEntityAsStringAndCloseStream(response);
+            return readEntity(executeAssertingStatus(postWithJson(url, json), expectedStatus), bodyType);
         } catch (Exception e) {
-            return throwUnchecked(e, String.class);
+            return throwUnchecked(e, bodyType);
         }
     }
 
+    private <T> T getJsonAssertOkAndReadBody(String url, int expectedStatus, Class<T> bodyType) {
+        try {
+            return readEntity(executeAssertingStatus(new HttpGet(url), expectedStatus), bodyType);
+        } catch (Exception e) {
+            return throwUnchecked(e, bodyType);
+        }
+    }
+
+    private static HttpPost postWithJson(String url, String json) {
+        HttpPost post = new HttpPost(url);
+        if (json != null) {
+            post.setEntity(new StringEntity(json, APPLICATION_JSON));
+        }
+
+        return post;
+    }
+
+    private HttpResponse executeAssertingStatus(HttpUriRequest request, int expectedStatus) throws IOException {
+        HttpResponse response = httpClient.execute(request);
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode != expectedStatus) {
+            EntityUtils.consume(response.getEntity());
+            throw new VerificationException(
+                    "Expected status " + expectedStatus + " for " + request.getURI() + " but was " + statusCode);
+        }
+
+        return response;
+    }
+
+    private static <T> T readEntity(HttpResponse response, Class<T> bodyType) throws IOException {
+        return Json.read(response.getEntity().getContent(), bodyType);
+    }
+
     private String urlFor(Class<? extends AdminTask> taskClass) {
         RequestSpec requestSpec = AdminTasks.requestSpecForTask(taskClass);
         return String.format(ADMIN_URL_PREFIX + requestSpec.path(), host, port, urlPathPrefix);
@@ -19,6 +19,8 @@ import com.github.tomakehurst.wiremock.capture.BodyCapture;
 import com.github.tomakehurst.wiremock.capture.HeaderCapture;
 import com.github.tomakehurst.wiremock.capture.UrlCapture;
 import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.core.RecordingStats;
+import com.github.tomakehurst.wiremock.core.ThreadPoolStats;
 import com.github.tomakehurst.wiremock.global.GlobalSettings;
 import com.github.tomakehurst.wiremock.global.RequestDelaySpec;
 import com.github.tomakehurst.wiremock.http.RequestMethod;
@@ -27,6 +29,7 @@ import com.github.tomakehurst.wiremock.stubbing.ListStubMappingsResult;
 import com.github.tomakehurst.wiremock.stubbing.StubMapping;
 import com.github.tomakehurst.wiremock.verification.FindRequestsResult;
 import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.github.tomakehurst.wiremock.verification.RequestJournalStats;
 import com.github.tomakehurst.wiremock.verification.VerificationResult;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 
@@ -91,6 +94,14 @@ public class WireMock {
     public static void saveAllMappings() {
         defaultInstance.saveMappings();
     }
+
+    public void snapshotMappings() {
+        admin.snapshotMappings();
+    }
+
+    public static void snapshotAllMappings() {
+        defaultInstance.snapshotMappings();
+    }
 	
 	public void resetMappings() {
 		admin.resetMappings();
@@ -316,6 +327,30 @@ public class WireMock {
 		return new RequestPatternBuilder(RequestMethod.TRACE, urlMatchingStrategy);
 	}
 	
+    public RequestJournalStats requestJournalStats() {
+        return admin.getRequestJournalStats();
+    }
+
+    public static RequestJournalStats getRequestJournalStats() {
+        return defaultInstance.requestJournalStats();
+    }
+
+    public ThreadPoolStats threadPoolStats() {
+        return admin.getThreadPoolStats();
+    }
+
+    public static ThreadPoolStats getThreadPoolStats() {
+        return defaultInstance.threadPoolStats();
+    }
+
+    public RecordingStats recordingStats() {
+        return admin.getRecordingStats();
+    }
+
+    public static RecordingStats getRecordingStats() {
+        return defaultInstance.recordingStats();
+    }
+
 	public static void setGlobalFixedDelay(int milliseconds) {
 		defaultInstance.setGlobalFixedDelayVariable(milliseconds);
 	}
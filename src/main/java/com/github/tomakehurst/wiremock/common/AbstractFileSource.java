@@ -95,6 +95,14 @@ public abstract class AbstractFileSource implements FileSource {
         writeBinaryFileAndTranslateExceptions(contents, writableFileFor(name));
     }
 
+    @Override
+    public void deleteFile(String name) {
+        File file = writableFileFor(name);
+        if (file.exists() && !file.delete()) {
+            throw new RuntimeException("Unable to delete " + file);
+        }
+    }
+
     @Override
     public boolean exists() {
         return rootDirectory.exists();
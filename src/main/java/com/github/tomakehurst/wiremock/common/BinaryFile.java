@@ -15,7 +15,9 @@
  */
 package com.github.tomakehurst.wiremock.common;
 
+import com.google.common.base.Optional;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
 import com.google.common.io.Files;
 import com.google.common.primitives.Bytes;
 
@@ -33,12 +35,43 @@ public class BinaryFile {
     }
 	
 	public byte[] readContents() {
+        InputStream stream = openStream();
 		try {
-            return ByteStreams.toByteArray(uri.toURL().openStream());
+            return ByteStreams.toByteArray(stream);
         } catch (final IOException ioe) {
 			throw new RuntimeException(ioe);
-		}
+		} finally {
+            Closeables.closeQuietly(stream);
+        }
 	}
+
+    public InputStream openStream() {
+        try {
+            return uri.toURL().openStream();
+        } catch (final IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+    }
+	
+    public long lastModified() {
+        if (isLocalFile()) {
+            return new File(uri).lastModified();
+        }
+
+        return 0L;
+    }
+
+    public Optional<File> localFile() {
+        if (isLocalFile()) {
+            return Optional.of(new File(uri));
+        }
+
+        return Optional.absent();
+    }
+
+    private boolean isLocalFile() {
+        return "file".equals(uri.getScheme());
+    }
 	
 	public String name() {
 		return uri.toString();
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.common;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * Holds the contents of recently served body files in memory, up to a total byte budget.
+ * An entry is re-read when its file's modification time changes.
+ */
+public class BinaryFileCache {
+
+    public static final long DEFAULT_MAX_BYTES = 10 * 1024 * 1024;
+
+    private final long maxBytes;
+    private final Cache<String, CachedContents> cache;
+
+    public BinaryFileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(1) // one segment, so a single large file can use the whole budget
+                .maximumWeight(Math.max(maxBytes, 0))
+                .weigher(new Weigher<String, CachedContents>() {
+                    public int weigh(String name, CachedContents contents) {
+                        return contents.bytes.length;
+                    }
+                })
+                .build();
+    }
+
+    public static BinaryFileCache disabled() {
+        return new BinaryFileCache(0);
+    }
+
+    public byte[] contentsOf(BinaryFile file) {
+        if (maxBytes <= 0) {
+            return file.readContents();
+        }
+
+        long lastModified = file.lastModified();
+        CachedContents cached = cache.getIfPresent(file.name());
+        if (cached != null && cached.lastModified == lastModified) {
+            return cached.bytes;
+        }
+
+        byte[] bytes = file.readContents();
+        if (canHold(bytes.length)) {
+            cache.put(file.name(), new CachedContents(bytes, lastModified));
+        } else {
+            cache.invalidate(file.name());
+        }
+
+        return bytes;
+    }
+
+    public boolean canHold(long length) {
+        return length <= maxBytes;
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static class CachedContents {
+        final byte[] bytes;
+        final long lastModified;
+
+        CachedContents(byte[] bytes, long lastModified) {
+            this.bytes = bytes;
+            this.lastModified = lastModified;
+        }
+    }
+}
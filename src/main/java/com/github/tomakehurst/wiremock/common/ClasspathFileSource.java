@@ -149,6 +149,11 @@ public class ClasspathFileSource implements FileSource {
         throw new UnsupportedOperationException("Classpath file sources are read-only");
     }
 
+    @Override
+    public void deleteFile(String name) {
+        throw new UnsupportedOperationException("Classpath file sources are read-only");
+    }
+
     @Override
     public boolean exists() {
         // It'll only be non-file system if finding the classpath resource succeeded in the constructor
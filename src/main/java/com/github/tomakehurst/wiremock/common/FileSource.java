@@ -27,5 +27,6 @@ public interface FileSource {
 	List<TextFile> listFilesRecursively();
 	void writeTextFile(String name, String contents);
     void writeBinaryFile(String name, byte[] contents);
+    void deleteFile(String name);
     boolean exists();
 }
@@ -15,31 +15,91 @@
  */
 package com.github.tomakehurst.wiremock.common;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class Json {
+
+    private static final ObjectMapper MAPPER = createObjectMapper();
+    private static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+    private static final ObjectWriter CANONICAL_WRITER = MAPPER.writer(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    private static final ConcurrentHashMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<Class<?>, ObjectReader>();
 	
 	private Json() {}
 
+    private static ObjectMapper createObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(JsonParser.Feature.ALLOW_COMMENTS, true);
+        mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        return mapper;
+    }
+
+    private static ObjectReader readerFor(Class<?> clazz) {
+        ObjectReader reader = READERS.get(clazz);
+        if (reader == null) {
+            reader = MAPPER.reader(clazz);
+            READERS.putIfAbsent(clazz, reader);
+        }
+
+        return reader;
+    }
+
     public static <T> T read(String json, Class<T> clazz) {
 		try {
-			ObjectMapper mapper = new ObjectMapper();
-			mapper.configure(JsonParser.Feature.ALLOW_COMMENTS, true);
-			return mapper.readValue(json, clazz);
+			return readerFor(clazz).readValue(json);
 		} catch (IOException ioe) {
 			throw new RuntimeException("Unable to bind JSON to object. Reason: " + ioe.getMessage() + "  JSON:" + json, ioe);
 		}
 	}
+
+    /**
+     * Binds JSON read directly from the stream, which is closed afterwards.
+     */
+    public static <T> T read(InputStream stream, Class<T> clazz) {
+        try {
+            return readerFor(clazz).readValue(stream);
+        } catch (IOException ioe) {
+            throw new RuntimeException("Unable to bind JSON to object. Reason: " + ioe.getMessage(), ioe);
+        }
+    }
 	
 	public static <T> String write(T object) {
 		try {
-			ObjectMapper mapper = new ObjectMapper();
-			return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(object);
+			return PRETTY_WRITER.writeValueAsString(object);
 		} catch (IOException ioe) {
 			throw new RuntimeException("Unable to generate JSON from object. Reason: " + ioe.getMessage(), ioe);
 		}
 	}
+
+    /**
+     * Writes JSON directly to the stream, which is flushed but left open.
+     */
+    public static <T> void write(T object, OutputStream stream) {
+        try {
+            PRETTY_WRITER.writeValue(stream, object);
+        } catch (IOException ioe) {
+            throw new RuntimeException("Unable to generate JSON from object. Reason: " + ioe.getMessage(), ioe);
+        }
+    }
+
+    /**
+     * Rewrites the JSON compactly with object keys sorted, so that documents differing only in
+     * formatting or key order produce the same string.
+     */
+    public static String canonicalise(String json) {
+        try {
+            return CANONICAL_WRITER.writeValueAsString(MAPPER.readValue(json, Object.class));
+        } catch (IOException ioe) {
+            throw new RuntimeException("Unable to canonicalise JSON. Reason: " + ioe.getMessage() + "  JSON:" + json, ioe);
+        }
+    }
 }
@@ -23,6 +23,7 @@ import com.github.tomakehurst.wiremock.matching.RequestPattern;
 import com.github.tomakehurst.wiremock.stubbing.ListStubMappingsResult;
 import com.github.tomakehurst.wiremock.stubbing.StubMapping;
 import com.github.tomakehurst.wiremock.verification.FindRequestsResult;
+import com.github.tomakehurst.wiremock.verification.RequestJournalStats;
 import com.github.tomakehurst.wiremock.verification.VerificationResult;
 
 public interface Admin {
@@ -30,11 +31,15 @@ public interface Admin {
 	void addStubMapping(StubMapping stubMapping);
     ListStubMappingsResult listAllStubMappings();
     void saveMappings();
+    void snapshotMappings();
 	void resetMappings();
 	void resetScenarios();
     void resetToDefaultMappings();
 	VerificationResult countRequestsMatching(RequestPattern requestPattern);
     FindRequestsResult findRequestsMatching(RequestPattern requestPattern);
+    RequestJournalStats getRequestJournalStats();
+    ThreadPoolStats getThreadPoolStats();
+    RecordingStats getRecordingStats();
 	void updateGlobalSettings(GlobalSettings settings);
     void addSocketAcceptDelay(RequestDelaySpec spec);
     void shutdownServer();
@@ -23,4 +23,14 @@ public interface Container {
      * Shuts down the container, stopping execution of WireMock, gracefully if possible.
      */
     void shutdown();
+
+    /**
+     * Reports how busy the threads serving stub requests are.
+     */
+    ThreadPoolStats getThreadPoolStats();
+
+    /**
+     * Reports how many recorded mappings have been queued, written and dropped.
+     */
+    RecordingStats getRecordingStats();
 }
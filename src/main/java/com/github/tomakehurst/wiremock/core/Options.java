@@ -22,6 +22,7 @@ import com.github.tomakehurst.wiremock.common.HttpsSettings;
 import com.github.tomakehurst.wiremock.common.Notifier;
 import com.github.tomakehurst.wiremock.common.ProxySettings;
 import com.github.tomakehurst.wiremock.http.CaseInsensitiveKey;
+import com.google.common.base.Optional;
 
 public interface Options {
 
@@ -29,15 +30,33 @@ public interface Options {
     public static final String DEFAULT_BIND_ADDRESS = "0.0.0.0";
 
     int portNumber();
+    Optional<Integer> adminPortNumber();
     HttpsSettings httpsSettings();
     boolean browserProxyingEnabled();
     ProxySettings proxyVia();
     FileSource filesRoot();
     Notifier notifier();
     boolean requestJournalDisabled();
+    Optional<Integer> maxRequestJournalEntries();
+    Optional<Long> maxRequestJournalBytes();
     public String bindAddress();
     List<CaseInsensitiveKey> matchingHeaders();
     public String proxyUrl();
     public boolean shouldPreserveHostHeader();
     String proxyHostHeader();
+    long bodyFileCacheMaxBytes();
+    boolean asynchronousProxyingEnabled();
+    Optional<List<CaseInsensitiveKey>> proxyRequestCoalescingHeaders();
+    Optional<Long> proxyResponseCacheMaxBytes();
+    boolean proxyResponseCacheOnDisk();
+    boolean contentAddressedBodiesEnabled();
+    boolean parallelMappingLoadingEnabled();
+    boolean mappingsSnapshotEnabled();
+    boolean mappingsWatchingEnabled();
+    boolean nonBlockingConnectorsEnabled();
+    int minRequestThreads();
+    int maxRequestThreads();
+    int requestThreadIdleTimeoutMilliseconds();
+    Optional<Integer> requestQueueCapacity();
+    String loadSheddingResponseBody();
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.core;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class RecordingStats {
+
+    public static final RecordingStats NONE = new RecordingStats(0, 0, 0, 0);
+
+    private final long queued;
+    private final long written;
+    private final long dropped;
+    private final int pending;
+
+    @JsonCreator
+    public RecordingStats(@JsonProperty("queued") long queued,
+                          @JsonProperty("written") long written,
+                          @JsonProperty("dropped") long dropped,
+                          @JsonProperty("pending") int pending) {
+        this.queued = queued;
+        this.written = written;
+        this.dropped = dropped;
+        this.pending = pending;
+    }
+
+    public RecordingStats plus(RecordingStats other) {
+        return new RecordingStats(
+                queued + other.queued,
+                written + other.written,
+                dropped + other.dropped,
+                pending + other.pending);
+    }
+
+    /**
+     * @return How many recordings have been accepted onto the background writer's queue
+     */
+    public long getQueued() {
+        return queued;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * @return How many recordings were turned away because the queue was full
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return How many recordings are waiting in the queue right now
+     */
+    public int getPending() {
+        return pending;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.core;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize.Inclusion;
+
+@JsonSerialize(include=Inclusion.NON_NULL)
+public class ThreadPoolStats {
+
+    private final int threads;
+    private final int idleThreads;
+    private final int minThreads;
+    private final int maxThreads;
+    private final int queueSize;
+    private final Integer queueCapacity;
+    private final long rejectedRequests;
+
+    @JsonCreator
+    public ThreadPoolStats(@JsonProperty("threads") int threads,
+                           @JsonProperty("idleThreads") int idleThreads,
+                           @JsonProperty("minThreads") int minThreads,
+                           @JsonProperty("maxThreads") int maxThreads,
+                           @JsonProperty("queueSize") int queueSize,
+                           @JsonProperty("queueCapacity") Integer queueCapacity,
+                           @JsonProperty("rejectedRequests") long rejectedRequests) {
+        this.threads = threads;
+        this.idleThreads = idleThreads;
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.queueSize = queueSize;
+        this.queueCapacity = queueCapacity;
+        this.rejectedRequests = rejectedRequests;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getIdleThreads() {
+        return idleThreads;
+    }
+
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @return The most requests allowed to wait for a thread, or null if unbounded
+     */
+    public Integer getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests;
+    }
+}
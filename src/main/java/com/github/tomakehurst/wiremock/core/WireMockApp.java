@@ -15,6 +15,7 @@
  */
 package com.github.tomakehurst.wiremock.core;
 
+import com.github.tomakehurst.wiremock.common.BinaryFileCache;
 import com.github.tomakehurst.wiremock.global.GlobalSettings;
 import com.github.tomakehurst.wiremock.global.GlobalSettingsHolder;
 import com.github.tomakehurst.wiremock.global.RequestDelayControl;
@@ -23,13 +24,16 @@ import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
 import com.github.tomakehurst.wiremock.matching.RequestPattern;
 import com.github.tomakehurst.wiremock.standalone.MappingsLoader;
+import com.github.tomakehurst.wiremock.standalone.MappingsSnapshot;
 import com.github.tomakehurst.wiremock.stubbing.InMemoryStubMappings;
 import com.github.tomakehurst.wiremock.stubbing.ListStubMappingsResult;
 import com.github.tomakehurst.wiremock.stubbing.StubMapping;
 import com.github.tomakehurst.wiremock.stubbing.StubMappings;
 import com.github.tomakehurst.wiremock.verification.*;
+import com.google.common.base.Optional;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class WireMockApp implements StubServer, Admin {
     
@@ -44,33 +48,54 @@ public class WireMockApp implements StubServer, Admin {
     private final MappingsLoader defaultMappingsLoader;
     private final Container container;
     private final MappingsSaver mappingsSaver;
+    private final Optional<MappingsSnapshot> mappingsSnapshot;
+    private final BinaryFileCache bodyFileCache;
+    private final List<ResetListener> resetListeners = new CopyOnWriteArrayList<ResetListener>();
 
     public WireMockApp(
             RequestDelayControl requestDelayControl,
             boolean browserProxyingEnabled,
             MappingsLoader defaultMappingsLoader,
             MappingsSaver mappingsSaver,
+            Optional<MappingsSnapshot> mappingsSnapshot,
             boolean requestJournalDisabled,
+            Optional<Integer> maxRequestJournalEntries,
+            Optional<Long> maxRequestJournalBytes,
+            long bodyFileCacheMaxBytes,
             Container container) {
         this.requestDelayControl = requestDelayControl;
         this.browserProxyingEnabled = browserProxyingEnabled;
         this.defaultMappingsLoader = defaultMappingsLoader;
         this.mappingsSaver = mappingsSaver;
+        this.mappingsSnapshot = mappingsSnapshot;
         globalSettingsHolder = new GlobalSettingsHolder();
         stubMappings = new InMemoryStubMappings();
-        requestJournal = requestJournalDisabled ? new DisabledRequestJournal() : new InMemoryRequestJournal();
+        requestJournal = requestJournalDisabled ? new DisabledRequestJournal() : new InMemoryRequestJournal(maxRequestJournalEntries, maxRequestJournalBytes);
+        bodyFileCache = new BinaryFileCache(bodyFileCacheMaxBytes);
         this.container = container;
         loadDefaultMappings();
     }
 
+    public StubMappings getStubMappings() {
+        return stubMappings;
+    }
+
     public GlobalSettingsHolder getGlobalSettingsHolder() {
         return globalSettingsHolder;
     }
 
+    public BinaryFileCache getBodyFileCache() {
+        return bodyFileCache;
+    }
+
     private void loadDefaultMappings() {
         loadMappingsUsing(defaultMappingsLoader);
     }
 
+    public void addResetListener(ResetListener resetListener) {
+        resetListeners.add(resetListener);
+    }
+
     public void loadMappingsUsing(final MappingsLoader mappingsLoader) {
         mappingsLoader.loadMappingsInto(stubMappings);
     }
@@ -101,11 +126,24 @@ public class WireMockApp implements StubServer, Admin {
         mappingsSaver.saveMappings(stubMappings);
     }
 
+    @Override
+    public void snapshotMappings() {
+        if (!mappingsSnapshot.isPresent()) {
+            throw new UnsupportedOperationException("Mappings snapshots are not enabled");
+        }
+
+        mappingsSnapshot.get().write();
+    }
+
     @Override
     public void resetMappings() {
         stubMappings.reset();
         requestJournal.reset();
         requestDelayControl.clearDelay();
+        bodyFileCache.clear();
+        for (ResetListener resetListener: resetListeners) {
+            resetListener.reset();
+        }
     }
 
     @Override
@@ -138,6 +176,21 @@ public class WireMockApp implements StubServer, Admin {
         }
     }
 
+    @Override
+    public RequestJournalStats getRequestJournalStats() {
+        return requestJournal.getStats();
+    }
+
+    @Override
+    public ThreadPoolStats getThreadPoolStats() {
+        return container.getThreadPoolStats();
+    }
+
+    @Override
+    public RecordingStats getRecordingStats() {
+        return container.getRecordingStats();
+    }
+
     @Override
     public void updateGlobalSettings(GlobalSettings newSettings) {
         globalSettingsHolder.replaceWith(newSettings);
@@ -17,6 +17,8 @@ package com.github.tomakehurst.wiremock.core;
 
 import com.github.tomakehurst.wiremock.common.*;
 import com.github.tomakehurst.wiremock.http.CaseInsensitiveKey;
+import com.github.tomakehurst.wiremock.jetty.LoadSheddingThreadPool;
+import com.google.common.base.Optional;
 
 import java.util.List;
 
@@ -27,16 +29,34 @@ public class WireMockConfiguration implements Options {
     private int portNumber = DEFAULT_PORT;
     private String bindAddress = DEFAULT_BIND_ADDRESS;
     private Integer httpsPort = null;
+    private Optional<Integer> adminPortNumber = Optional.absent();
     private String keyStorePath = null;
     private boolean browserProxyingEnabled = false;
     private ProxySettings proxySettings;
     private FileSource filesRoot = new SingleRootFileSource("src/test/resources");
     private Notifier notifier = new Log4jNotifier();
     private boolean requestJournalDisabled = false;
+    private Optional<Integer> maxRequestJournalEntries = Optional.absent();
+    private Optional<Long> maxRequestJournalBytes = Optional.absent();
     private List<CaseInsensitiveKey> matchingHeaders;
     private String proxyUrl;
     private boolean preserveHostHeader;
     private String proxyHostHeader;
+    private long bodyFileCacheMaxBytes = BinaryFileCache.DEFAULT_MAX_BYTES;
+    private boolean asynchronousProxyingEnabled;
+    private Optional<List<CaseInsensitiveKey>> proxyRequestCoalescingHeaders = Optional.absent();
+    private Optional<Long> proxyResponseCacheMaxBytes = Optional.absent();
+    private boolean proxyResponseCacheOnDisk;
+    private boolean contentAddressedBodiesEnabled;
+    private boolean parallelMappingLoadingEnabled;
+    private boolean mappingsSnapshotEnabled;
+    private boolean mappingsWatchingEnabled;
+    private boolean nonBlockingConnectorsEnabled;
+    private int minRequestThreads = LoadSheddingThreadPool.DEFAULT_MIN_THREADS;
+    private int maxRequestThreads = LoadSheddingThreadPool.DEFAULT_MAX_THREADS;
+    private int requestThreadIdleTimeoutMilliseconds = LoadSheddingThreadPool.DEFAULT_IDLE_TIMEOUT_MILLISECONDS;
+    private Optional<Integer> requestQueueCapacity = Optional.absent();
+    private String loadSheddingResponseBody = LoadSheddingThreadPool.DEFAULT_RESPONSE_BODY;
 
     public static WireMockConfiguration wireMockConfig() {
         return new WireMockConfiguration();
@@ -52,6 +72,14 @@ public class WireMockConfiguration implements Options {
         return this;
     }
 
+    /**
+     * Serves the admin API on its own port and threads, so it stays responsive however busy the stubs are.
+     */
+    public WireMockConfiguration adminPort(int adminPortNumber) {
+        this.adminPortNumber = Optional.of(adminPortNumber);
+        return this;
+    }
+
     public WireMockConfiguration keystorePath(String path) {
         this.keyStorePath = path;
         return this;
@@ -106,6 +134,16 @@ public class WireMockConfiguration implements Options {
         return this;
     }
 
+    public WireMockConfiguration maxRequestJournalEntries(int maxEntries) {
+        this.maxRequestJournalEntries = Optional.of(maxEntries);
+        return this;
+    }
+
+    public WireMockConfiguration maxRequestJournalBytes(long maxBytes) {
+        this.maxRequestJournalBytes = Optional.of(maxBytes);
+        return this;
+    }
+
     public WireMockConfiguration recordRequestHeadersForMatching(List<String> headers) {
     	this.matchingHeaders = transform(headers, CaseInsensitiveKey.TO_CASE_INSENSITIVE_KEYS);
     	return this;
@@ -125,12 +163,95 @@ public class WireMockConfiguration implements Options {
         this.proxyHostHeader = hostHeaderValue;
         return this;
     }
+
+    public WireMockConfiguration bodyFileCacheMaxBytes(long maxBytes) {
+        this.bodyFileCacheMaxBytes = maxBytes;
+        return this;
+    }
+
+    public WireMockConfiguration disableBodyFileCache() {
+        return bodyFileCacheMaxBytes(0);
+    }
+
+    public WireMockConfiguration enableAsynchronousProxying(boolean enabled) {
+        this.asynchronousProxyingEnabled = enabled;
+        return this;
+    }
+
+    public WireMockConfiguration coalesceProxyRequests(List<String> keyHeaders) {
+        this.proxyRequestCoalescingHeaders = Optional.of(transform(keyHeaders, CaseInsensitiveKey.TO_CASE_INSENSITIVE_KEYS));
+        return this;
+    }
+
+    public WireMockConfiguration cacheProxyResponses(long maxBytes) {
+        this.proxyResponseCacheMaxBytes = Optional.of(maxBytes);
+        return this;
+    }
+
+    public WireMockConfiguration cacheProxyResponsesOnDisk(boolean onDisk) {
+        this.proxyResponseCacheOnDisk = onDisk;
+        return this;
+    }
+
+    public WireMockConfiguration enableContentAddressedBodies(boolean enabled) {
+        this.contentAddressedBodiesEnabled = enabled;
+        return this;
+    }
+
+    public WireMockConfiguration loadMappingsInParallel(boolean enabled) {
+        this.parallelMappingLoadingEnabled = enabled;
+        return this;
+    }
+
+    public WireMockConfiguration keepMappingsSnapshot(boolean enabled) {
+        this.mappingsSnapshotEnabled = enabled;
+        return this;
+    }
+
+    public WireMockConfiguration watchMappings(boolean enabled) {
+        this.mappingsWatchingEnabled = enabled;
+        return this;
+    }
+
+    public WireMockConfiguration useNonBlockingConnectors(boolean enabled) {
+        this.nonBlockingConnectorsEnabled = enabled;
+        return this;
+    }
+
+    public WireMockConfiguration requestThreads(int min, int max) {
+        this.minRequestThreads = min;
+        this.maxRequestThreads = max;
+        return this;
+    }
+
+    public WireMockConfiguration requestThreadIdleTimeout(int milliseconds) {
+        this.requestThreadIdleTimeoutMilliseconds = milliseconds;
+        return this;
+    }
+
+    /**
+     * Turns requests away with a 503 once all request threads are busy and this many are already waiting.
+     */
+    public WireMockConfiguration requestQueueCapacity(int capacity) {
+        this.requestQueueCapacity = Optional.of(capacity);
+        return this;
+    }
+
+    public WireMockConfiguration loadSheddingResponseBody(String body) {
+        this.loadSheddingResponseBody = body;
+        return this;
+    }
     
     @Override
     public int portNumber() {
         return portNumber;
     }
 
+    @Override
+    public Optional<Integer> adminPortNumber() {
+        return adminPortNumber;
+    }
+
     @Override
     public HttpsSettings httpsSettings() {
         if (httpsPort == null) {
@@ -168,6 +289,16 @@ public class WireMockConfiguration implements Options {
         return requestJournalDisabled;
     }
 
+    @Override
+    public Optional<Integer> maxRequestJournalEntries() {
+        return maxRequestJournalEntries;
+    }
+
+    @Override
+    public Optional<Long> maxRequestJournalBytes() {
+        return maxRequestJournalBytes;
+    }
+
     @Override
     public String bindAddress() {
         return bindAddress;
@@ -191,4 +322,79 @@ public class WireMockConfiguration implements Options {
     public String proxyHostHeader() {
         return proxyHostHeader;
     }
+
+    @Override
+    public long bodyFileCacheMaxBytes() {
+        return bodyFileCacheMaxBytes;
+    }
+
+    @Override
+    public boolean asynchronousProxyingEnabled() {
+        return asynchronousProxyingEnabled;
+    }
+
+    @Override
+    public Optional<List<CaseInsensitiveKey>> proxyRequestCoalescingHeaders() {
+        return proxyRequestCoalescingHeaders;
+    }
+
+    @Override
+    public Optional<Long> proxyResponseCacheMaxBytes() {
+        return proxyResponseCacheMaxBytes;
+    }
+
+    @Override
+    public boolean proxyResponseCacheOnDisk() {
+        return proxyResponseCacheOnDisk;
+    }
+
+    @Override
+    public boolean contentAddressedBodiesEnabled() {
+        return contentAddressedBodiesEnabled;
+    }
+
+    @Override
+    public boolean parallelMappingLoadingEnabled() {
+        return parallelMappingLoadingEnabled;
+    }
+
+    @Override
+    public boolean mappingsSnapshotEnabled() {
+        return mappingsSnapshotEnabled;
+    }
+
+    @Override
+    public boolean mappingsWatchingEnabled() {
+        return mappingsWatchingEnabled;
+    }
+
+    @Override
+    public boolean nonBlockingConnectorsEnabled() {
+        return nonBlockingConnectorsEnabled;
+    }
+
+    @Override
+    public int minRequestThreads() {
+        return minRequestThreads;
+    }
+
+    @Override
+    public int maxRequestThreads() {
+        return maxRequestThreads;
+    }
+
+    @Override
+    public int requestThreadIdleTimeoutMilliseconds() {
+        return requestThreadIdleTimeoutMilliseconds;
+    }
+
+    @Override
+    public Optional<Integer> requestQueueCapacity() {
+        return requestQueueCapacity;
+    }
+
+    @Override
+    public String loadSheddingResponseBody() {
+        return loadSheddingResponseBody;
+    }
 }
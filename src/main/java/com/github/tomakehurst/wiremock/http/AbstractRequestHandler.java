@@ -15,6 +15,8 @@
  */
 package com.github.tomakehurst.wiremock.http;
 
+import com.google.common.base.Function;
+
 import java.util.List;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -34,15 +36,27 @@ public abstract class AbstractRequestHandler implements RequestHandler, RequestE
 	}
 
 	@Override
-	public Response handle(Request request) {
+	public Response handle(final Request request) {
 		ResponseDefinition responseDefinition = handleRequest(request);
 		responseDefinition.setOriginalRequest(request);
 		Response response = responseRenderer.render(responseDefinition);
+		if (response.isDeferred()) {
+			return response.whenResolved(new Function<Response, Response>() {
+				public Response apply(Response resolved) {
+					notifyListeners(request, resolved);
+					return resolved;
+				}
+			});
+		}
+
+		notifyListeners(request, response);
+		return response;
+	}
+
+	private void notifyListeners(Request request, Response response) {
 		for (RequestListener listener: listeners) {
 			listener.requestReceived(request, response);
 		}
-		
-		return response;
 	}
 	
 	protected abstract ResponseDefinition handleRequest(Request request);
@@ -0,0 +1,406 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.http;
+
+import com.github.tomakehurst.wiremock.common.ProxySettings;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.mortbay.io.Buffer;
+import org.mortbay.io.ByteArrayBuffer;
+import org.mortbay.jetty.client.Address;
+import org.mortbay.jetty.client.HttpClient;
+import org.mortbay.jetty.client.HttpExchange;
+import org.mortbay.thread.QueuedThreadPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
+import static com.github.tomakehurst.wiremock.common.ProxySettings.NO_PROXY;
+import static com.github.tomakehurst.wiremock.http.HttpHeader.httpHeader;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.PATCH;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.POST;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.PUT;
+import static com.github.tomakehurst.wiremock.http.Response.response;
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * Proxies requests through Jetty's non-blocking {@link HttpClient}, returning a deferred response
+ * that the servlet waits on with a continuation rather than a blocked thread. Connections to each
+ * target are pooled and reused. Jetty's client can't tunnel HTTPS through an outbound proxy, so
+ * only those requests fall back to the blocking client.
+ */
+public class AsyncProxyResponseRenderer extends ProxyResponseRenderer {
+
+    private static final String CONNECTION_HEADER = "connection";
+    private static final String TRANSFER_ENCODING = "Transfer-Encoding";
+    private static final int MAX_CONNECTIONS = 1000;
+
+    private final HttpClient client;
+    private final boolean viaOutboundProxy;
+    private volatile boolean started;
+
+    public AsyncProxyResponseRenderer(ProxySettings proxySettings, boolean preserveHostHeader, String hostHeaderValue,
+                                      Optional<ProxyRequestCoalescer> coalescer, Optional<ProxyResponseCache> cache) {
+        super(proxySettings, preserveHostHeader, hostHeaderValue, coalescer, cache);
+        this.viaOutboundProxy = proxySettings != null && proxySettings != NO_PROXY;
+        this.client = createClient(viaOutboundProxy ? proxySettings : NO_PROXY);
+    }
+
+    public AsyncProxyResponseRenderer() {
+        this(NO_PROXY, false, null, Optional.<ProxyRequestCoalescer>absent(), Optional.<ProxyResponseCache>absent());
+    }
+
+    /**
+     * Builds a client with the same limits as the blocking one. Like that client, it trusts any certificate,
+     * as Jetty's client does when no trust store is given. Threads only run callbacks, so none is held while
+     * waiting on a target, though one is held while a streamed body waits for its reader to catch up.
+     */
+    private static HttpClient createClient(ProxySettings proxySettings) {
+        QueuedThreadPool threadPool = new QueuedThreadPool(MAX_CONNECTIONS);
+        threadPool.setName("wiremock-proxy-client");
+        threadPool.setDaemon(true);
+
+        HttpClient client = new HttpClient();
+        client.setConnectorType(HttpClient.CONNECTOR_SELECT_CHANNEL);
+        client.setThreadPool(threadPool);
+        client.setMaxConnectionsPerAddress(MAX_CONNECTIONS);
+        client.setTimeout(5 * MINUTES);
+        client.setIdleTimeout(5 * MINUTES);
+        if (proxySettings != NO_PROXY) {
+            client.setProxy(new Address(proxySettings.host(), proxySettings.port()));
+        }
+
+        return client;
+    }
+
+    @Override
+    public Response render(ResponseDefinition responseDefinition) {
+        if (!canFetchAsynchronously(responseDefinition)) {
+            return super.render(responseDefinition);
+        }
+
+        if (mayShareResponse(responseDefinition)) {
+            return Response.deferred(sharedResponseFor(responseDefinition));
+        }
+
+        return Response.deferred(fetch(responseDefinition, NO_EXTRA_HEADERS, true));
+    }
+
+    @Override
+    protected ListenableFuture<Response> fetchShareable(ResponseDefinition responseDefinition, List<HttpHeader> extraHeaders) {
+        if (!canFetchAsynchronously(responseDefinition)) {
+            return super.fetchShareable(responseDefinition, extraHeaders);
+        }
+
+        return fetch(responseDefinition, extraHeaders, false);
+    }
+
+    private boolean canFetchAsynchronously(ResponseDefinition responseDefinition) {
+        return !viaOutboundProxy || !"https".equalsIgnoreCase(URI.create(responseDefinition.getProxyUrl()).getScheme());
+    }
+
+    private ListenableFuture<Response> fetch(ResponseDefinition responseDefinition, List<HttpHeader> extraHeaders, boolean streamBody) {
+        Request originalRequest = responseDefinition.getOriginalRequest();
+        RequestMethod method = originalRequest.getMethod();
+        String url = responseDefinition.getProxyUrl();
+        notifier().info("Proxying: " + method + " " + url);
+
+        ProxyExchange exchange = new ProxyExchange(streamBody);
+        exchange.setMethod(method.toString());
+        exchange.setURL(url);
+        for (HttpHeader header: withOverrides(requestHeadersFor(responseDefinition), extraHeaders)) {
+            exchange.addRequestHeader(header.key(), header.firstValue());
+        }
+
+        if (method.isOneOf(PUT, POST, PATCH)) {
+            if (isChunked(originalRequest)) {
+                exchange.setRequestContentSource(new ByteArrayInputStream(originalRequest.getBody()));
+            } else {
+                exchange.setRequestContent(new ByteArrayBuffer(originalRequest.getBody()));
+            }
+        }
+
+        try {
+            startedClient().send(exchange);
+        } catch (Exception e) {
+            exchange.fail(e);
+        }
+
+        return exchange.future;
+    }
+
+    private HttpClient startedClient() throws Exception {
+        if (!started) {
+            synchronized (this) {
+                if (!started) {
+                    client.start();
+                    started = true;
+                }
+            }
+        }
+
+        return client;
+    }
+
+    @Override
+    protected List<HttpHeader> requestHeadersFor(ResponseDefinition response) {
+        List<HttpHeader> headers = super.requestHeadersFor(response);
+        Iterator<HttpHeader> iterator = headers.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().key().equalsIgnoreCase(CONNECTION_HEADER)) {
+                iterator.remove();
+            }
+        }
+
+        if (isChunked(response.getOriginalRequest())) {
+            headers.add(httpHeader(TRANSFER_ENCODING, "chunked"));
+        }
+
+        return headers;
+    }
+
+    private static boolean isChunked(Request request) {
+        return request.containsHeader(TRANSFER_ENCODING) &&
+                request.header(TRANSFER_ENCODING).firstValue().equals("chunked");
+    }
+
+    /**
+     * Stops the client, closing its pooled connections. It is started again by the next request.
+     */
+    @Override
+    public synchronized void stop() {
+        try {
+            started = false;
+            if (client.isStarted()) {
+                client.stop();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Collects one upstream response. A streamed response completes once its headers are in, with the body
+     * following through a {@link BodyPipe}; otherwise it completes with the whole body.
+     */
+    private class ProxyExchange extends HttpExchange {
+
+        private final boolean streamBody;
+        private final SettableFuture<Response> future = SettableFuture.create();
+        private final List<HttpHeader> headers = newArrayList();
+        private int status;
+        private ByteArrayOutputStream bufferedBody;
+        private BodyPipe pipe;
+
+        ProxyExchange(boolean streamBody) {
+            this.streamBody = streamBody;
+        }
+
+        @Override
+        protected void onResponseStatus(Buffer version, int status, Buffer reason) {
+            this.status = status;
+        }
+
+        @Override
+        protected void onResponseHeader(Buffer name, Buffer value) {
+            headers.add(httpHeader(name.toString(), value.toString()));
+        }
+
+        @Override
+        protected void onResponseHeaderComplete() {
+            if (streamBody) {
+                pipe = new BodyPipe();
+                complete(response().status(status).headers(new HttpHeaders(headers)).body(pipe).fromProxy(true).build());
+            } else {
+                bufferedBody = new ByteArrayOutputStream();
+            }
+        }
+
+        @Override
+        protected void onResponseContent(Buffer content) throws IOException {
+            if (pipe != null) {
+                pipe.write(content.asArray());
+            } else {
+                content.writeTo(bufferedBody);
+            }
+        }
+
+        @Override
+        protected void onResponseComplete() {
+            if (pipe != null) {
+                pipe.finish();
+            } else {
+                complete(response().status(status).headers(new HttpHeaders(headers)).body(bufferedBody.toByteArray()).fromProxy(true).build());
+            }
+        }
+
+        @Override
+        protected void onRetry() throws IOException {
+            headers.clear();
+            super.onRetry();
+        }
+
+        @Override
+        protected void onConnectionFailed(Throwable cause) {
+            fail(cause);
+        }
+
+        @Override
+        protected void onException(Throwable cause) {
+            fail(cause);
+        }
+
+        @Override
+        protected void onExpire() {
+            fail(new IOException("Timed out waiting for a response from " + getAddress()));
+        }
+
+        void fail(Throwable cause) {
+            if (pipe != null) {
+                pipe.fail(cause);
+            } else {
+                future.setException(cause);
+            }
+        }
+
+        /**
+         * Sets the future on another of the client's threads, since whatever runs on completion may go on to
+         * read a streamed body that this thread has yet to receive.
+         */
+        private void complete(final Response response) {
+            boolean dispatched = client.getThreadPool().dispatch(new Runnable() {
+                public void run() {
+                    future.set(response);
+                }
+            });
+
+            if (!dispatched) {
+                future.set(response);
+            }
+        }
+    }
+
+    /**
+     * Carries a streamed body from the client's thread to whoever reads it. Writes wait while the pipe is full,
+     * so a slow reader holds back the upstream connection instead of the body piling up in memory.
+     */
+    private static class BodyPipe extends InputStream {
+
+        private static final int CAPACITY = 64 * 1024;
+
+        private final LinkedList<byte[]> chunks = new LinkedList<byte[]>();
+        private int chunkPosition;
+        private int available;
+        private boolean finished;
+        private boolean closed;
+        private Throwable failure;
+
+        synchronized void write(byte[] chunk) throws IOException {
+            while (available >= CAPACITY && !closed) {
+                waitInterruptibly();
+            }
+
+            if (closed) {
+                throw new IOException("Response body was closed before it had all been received");
+            }
+
+            chunks.add(chunk);
+            available += chunk.length;
+            notifyAll();
+        }
+
+        synchronized void finish() {
+            finished = true;
+            notifyAll();
+        }
+
+        synchronized void fail(Throwable cause) {
+            failure = cause;
+            notifyAll();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int length) throws IOException {
+            while (available == 0 && !finished && failure == null && !closed) {
+                waitInterruptibly();
+            }
+
+            if (closed) {
+                throw new IOException("Response body has been closed");
+            }
+            if (available == 0) {
+                if (failure != null) {
+                    throw new IOException("Proxied response body failed", failure);
+                }
+                return -1;
+            }
+
+            int read = 0;
+            while (read < length && !chunks.isEmpty()) {
+                byte[] chunk = chunks.getFirst();
+                int count = Math.min(length - read, chunk.length - chunkPosition);
+                System.arraycopy(chunk, chunkPosition, buffer, offset + read, count);
+                read += count;
+                chunkPosition += count;
+                if (chunkPosition == chunk.length) {
+                    chunks.removeFirst();
+                    chunkPosition = 0;
+                }
+            }
+
+            available -= read;
+            notifyAll();
+            return read;
+        }
+
+        private void waitInterruptibly() throws InterruptedIOException {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while passing on a proxied response body");
+            }
+        }
+
+        @Override
+        public synchronized int available() {
+            return available;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            chunks.clear();
+            available = 0;
+            notifyAll();
+        }
+    }
+}
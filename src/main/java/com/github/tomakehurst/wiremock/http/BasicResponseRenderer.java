@@ -21,6 +21,14 @@ public class BasicResponseRenderer implements ResponseRenderer {
 
 	@Override
 	public Response render(ResponseDefinition responseDefinition) {
+        if (responseDefinition.specifiesJsonBody()) {
+            return response()
+                    .status(responseDefinition.getStatus())
+                    .headers(responseDefinition.getHeaders())
+                    .jsonBody(responseDefinition.getJsonBody())
+                    .build();
+        }
+
         return response()
                 .status(responseDefinition.getStatus())
                 .headers(responseDefinition.getHeaders())
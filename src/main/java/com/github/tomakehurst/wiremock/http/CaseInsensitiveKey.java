@@ -17,17 +17,31 @@ package com.github.tomakehurst.wiremock.http;
 
 import com.google.common.base.Function;
 
+/**
+ * A header name compared without regard to case. The lower cased form is worked out once, up front,
+ * rather than on every comparison.
+ */
 public class CaseInsensitiveKey {
 
     private final String key;
+    private final String lowerCaseKey;
+
     public CaseInsensitiveKey(String key) {
         this.key = key;
+        this.lowerCaseKey = key != null ? key.toLowerCase() : null;
     }
 
     public static CaseInsensitiveKey from(String key) {
         return new CaseInsensitiveKey(key);
     }
 
+    /**
+     * Compares with a plain string without creating a key for it.
+     */
+    public boolean matches(String otherKey) {
+        return lowerCaseKey != null ? lowerCaseKey.equalsIgnoreCase(otherKey) : otherKey == null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -35,14 +49,14 @@ public class CaseInsensitiveKey {
 
         CaseInsensitiveKey that = (CaseInsensitiveKey) o;
 
-        if (key != null ? !key.toLowerCase().equals(that.key.toLowerCase()) : that.key != null) return false;
+        if (lowerCaseKey != null ? !lowerCaseKey.equals(that.lowerCaseKey) : that.lowerCaseKey != null) return false;
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        return key != null ? key.toLowerCase().hashCode() : 0;
+        return lowerCaseKey != null ? lowerCaseKey.hashCode() : 0;
     }
 
     @Override
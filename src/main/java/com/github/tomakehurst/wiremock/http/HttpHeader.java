@@ -15,14 +15,13 @@
  */
 package com.github.tomakehurst.wiremock.http;
 
+import com.github.tomakehurst.wiremock.matching.CompiledValuePattern;
 import com.github.tomakehurst.wiremock.matching.ValuePattern;
-import com.google.common.base.Predicate;
 
 import java.util.Collection;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.collect.Iterables.any;
 import static com.google.common.collect.Lists.newArrayList;
 
 public class HttpHeader {
@@ -53,6 +52,18 @@ public class HttpHeader {
         return new HttpHeader(key, values);
     }
 
+    private HttpHeader(String key, List<String> unmodifiableValues, boolean copyValues) {
+        this.key = key;
+        this.values = copyValues ? newArrayList(unmodifiableValues) : unmodifiableValues;
+    }
+
+    /**
+     * Shares values the caller guarantees won't change, rather than copying them.
+     */
+    static HttpHeader sharingValues(String key, List<String> unmodifiableValues) {
+        return new HttpHeader(key, unmodifiableValues, false);
+    }
+
     public static HttpHeader absent(String key) {
         return new HttpHeader(key);
     }
@@ -95,17 +106,23 @@ public class HttpHeader {
         return values.contains(expectedValue);
     }
 
-    public boolean hasValueMatching(final ValuePattern valuePattern) {
-        return (valuePattern.nullSafeIsAbsent() && !isPresent())
+    public boolean hasValueMatching(ValuePattern valuePattern) {
+        return hasValueMatching(valuePattern.compile());
+    }
+
+    public boolean hasValueMatching(CompiledValuePattern valuePattern) {
+        return (valuePattern.isAbsent() && !isPresent())
                 || anyValueMatches(valuePattern);
     }
 
-    private boolean anyValueMatches(final ValuePattern valuePattern) {
-        return any(values, new Predicate<String>() {
-            public boolean apply(String headerValue) {
-                return valuePattern.isMatchFor(headerValue);
+    private boolean anyValueMatches(CompiledValuePattern valuePattern) {
+        for (String headerValue: values) {
+            if (valuePattern.isMatchFor(headerValue)) {
+                return true;
             }
-        });
+        }
+
+        return false;
     }
 
     @Override
@@ -18,29 +18,32 @@ package com.github.tomakehurst.wiremock.http;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.github.tomakehurst.wiremock.capture.Replacer;
-import com.google.common.base.Function;
-import com.google.common.base.Functions;
+import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMultimap;
-import com.google.common.collect.Multimap;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
-import static com.google.common.base.Functions.toStringFunction;
-import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
 
+/**
+ * An immutable set of headers, held as parallel lists of keys and values in the order the keys
+ * were first seen. Headers are few enough that scanning the keys beats hashing them, and lookups
+ * share the stored values rather than copying them.
+ */
 @JsonSerialize(using = HttpHeadersJsonSerializer.class)
 @JsonDeserialize(using = HttpHeadersJsonDeserializer.class)
 public class HttpHeaders {
 
-    private final Multimap<CaseInsensitiveKey, String> headers;
+    private static final CaseInsensitiveKey[] NO_KEYS = new CaseInsensitiveKey[0];
+
+    private final CaseInsensitiveKey[] keys;
+    private final List<List<String>> values;
 
     public HttpHeaders() {
-        headers = ImmutableMultimap.of();
+        this(NO_KEYS, ImmutableList.<List<String>>of());
     }
 
     public HttpHeaders(HttpHeader... headers) {
@@ -48,16 +51,35 @@ public class HttpHeaders {
     }
 
     public HttpHeaders(Iterable<HttpHeader> headers) {
-        ImmutableMultimap.Builder<CaseInsensitiveKey, String> builder = ImmutableMultimap.builder();
+        List<CaseInsensitiveKey> keyList = newArrayList();
+        List<List<String>> valueList = newArrayList();
         for (HttpHeader header: headers) {
-            builder.putAll(caseInsensitive(header.key()), header.values());
+            List<String> headerValues = header.values();
+            CaseInsensitiveKey key = header.caseInsensitiveKey();
+            int index = keyList.indexOf(key);
+            if (index == -1) {
+                keyList.add(key);
+                valueList.add(newArrayList(headerValues));
+            } else {
+                valueList.get(index).addAll(headerValues);
+            }
         }
 
-        this.headers = builder.build();
+        this.keys = keyList.toArray(new CaseInsensitiveKey[keyList.size()]);
+        ImmutableList.Builder<List<String>> immutableValues = ImmutableList.builder();
+        for (List<String> headerValues: valueList) {
+            immutableValues.add(ImmutableList.copyOf(headerValues));
+        }
+        this.values = immutableValues.build();
     }
 
     public HttpHeaders(HttpHeaders headers) {
-        this(headers.all());
+        this(headers.keys, headers.values);
+    }
+
+    private HttpHeaders(CaseInsensitiveKey[] keys, List<List<String>> values) {
+        this.keys = keys;
+        this.values = values;
     }
 
     public static HttpHeaders noHeaders() {
@@ -65,18 +87,18 @@ public class HttpHeaders {
     }
 
     public HttpHeader getHeader(String key) {
-        if (!headers.containsKey(caseInsensitive(key))) {
+        int index = indexOf(key);
+        if (index == -1) {
             return HttpHeader.absent(key);
         }
 
-        Collection<String> values = headers.get(caseInsensitive(key));
-        return new HttpHeader(key, values);
+        return HttpHeader.sharingValues(key, values.get(index));
     }
 
     public ContentTypeHeader getContentTypeHeader() {
-        HttpHeader header = getHeader(ContentTypeHeader.KEY);
-        if (header.isPresent()) {
-            return new ContentTypeHeader(getHeader(ContentTypeHeader.KEY).firstValue());
+        int index = indexOf(ContentTypeHeader.KEY);
+        if (index != -1) {
+            return new ContentTypeHeader(values.get(index).get(0));
         }
 
         return ContentTypeHeader.absent();
@@ -84,31 +106,77 @@ public class HttpHeaders {
 
     public Collection<HttpHeader> all() {
         List<HttpHeader> httpHeaderList = newArrayList();
-        for (CaseInsensitiveKey key: headers.keySet()) {
-            httpHeaderList.add(new HttpHeader(key.value(), headers.get(key)));
+        for (int i = 0; i < keys.length; i++) {
+            httpHeaderList.add(HttpHeader.sharingValues(keys[i].value(), values.get(i)));
         }
 
         return httpHeaderList;
     }
 
     public Set<String> keys() {
-        return newHashSet(transform(headers.keySet(), toStringFunction()));
+        Set<String> keySet = newHashSet();
+        for (CaseInsensitiveKey key: keys) {
+            keySet.add(key.value());
+        }
+
+        return keySet;
     }
 
+    /**
+     * Headers are immutable, so the copy shares everything with the source.
+     */
     public static HttpHeaders copyOf(HttpHeaders source) {
         return new HttpHeaders(source);
     }
 
-    public HttpHeaders replacePlaceholders(final Replacer replacer) {
-    	return new HttpHeaders(transform(this.all(), new Function<HttpHeader, HttpHeader>() {
-    		public HttpHeader apply(HttpHeader header) {
-    			return new HttpHeader(header.key(), replacer.replacePlaceholders(header.values()));
-    		}
-    	}));
+    /**
+     * Value lists with nothing replaced in them are shared with these headers, which are returned as they are
+     * if no value changed.
+     */
+    public HttpHeaders replacePlaceholders(Replacer replacer) {
+        if (!replacer.hasVariables()) {
+            return this;
+        }
+
+        ImmutableList.Builder<List<String>> replacedValues = ImmutableList.builder();
+        boolean changed = false;
+        for (List<String> headerValues: values) {
+            List<String> replaced = replacePlaceholders(replacer, headerValues);
+            changed |= replaced != headerValues;
+            replacedValues.add(replaced);
+        }
+
+        return changed ? new HttpHeaders(keys, replacedValues.build()) : this;
     }
-    
+
+    private static List<String> replacePlaceholders(Replacer replacer, List<String> headerValues) {
+        String[] replaced = null;
+        for (int i = 0; i < headerValues.size(); i++) {
+            String value = headerValues.get(i);
+            String replacement = replacer.replacePlaceholders(value);
+            if (replaced == null && !Objects.equal(value, replacement)) {
+                replaced = headerValues.toArray(new String[headerValues.size()]);
+            }
+            if (replaced != null) {
+                replaced[i] = replacement;
+            }
+        }
+
+        return replaced != null ? ImmutableList.copyOf(replaced) : headerValues;
+    }
+
     public int size() {
-        return headers.asMap().size();
+        return keys.length;
+    }
+
+    private int indexOf(String key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].matches(key)) {
+                return i;
+            }
+        }
+
+        return -1;
     }
 
     @Override
@@ -118,20 +186,23 @@ public class HttpHeaders {
 
         HttpHeaders that = (HttpHeaders) o;
 
-        if (headers != null ? !headers.equals(that.headers) : that.headers != null) return false;
+        if (keys.length != that.keys.length) return false;
+        for (int i = 0; i < keys.length; i++) {
+            int index = that.indexOf(keys[i].value());
+            if (index == -1 || !values.get(i).equals(that.values.get(index))) return false;
+        }
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        int result = super.hashCode();
-        result = 31 * result + (headers != null ? headers.hashCode() : 0);
-        return result;
-    }
+        int result = 0;
+        for (int i = 0; i < keys.length; i++) {
+            result += keys[i].hashCode() ^ values.get(i).hashCode();
+        }
 
-    private CaseInsensitiveKey caseInsensitive(String key) {
-        return new CaseInsensitiveKey(key);
+        return result;
     }
 
 }
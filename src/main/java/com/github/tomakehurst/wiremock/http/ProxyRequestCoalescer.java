@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.http;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.github.tomakehurst.wiremock.http.RequestMethod.GET;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.HEAD;
+import static com.google.common.util.concurrent.Futures.addCallback;
+
+/**
+ * Lets concurrent identical GET and HEAD proxy requests share a single upstream call. Requests are identical
+ * when they have the same method, proxy URL and values for the configured key headers. Once the shared call
+ * completes it is forgotten, so later requests go upstream again.
+ */
+public class ProxyRequestCoalescer {
+
+    private final List<CaseInsensitiveKey> keyHeaders;
+    private final ConcurrentMap<List<String>, ListenableFuture<Response>> inFlight =
+            new ConcurrentHashMap<List<String>, ListenableFuture<Response>>();
+
+    public ProxyRequestCoalescer(List<CaseInsensitiveKey> keyHeaders) {
+        this.keyHeaders = ImmutableList.copyOf(keyHeaders);
+    }
+
+    public boolean canCoalesce(ResponseDefinition responseDefinition) {
+        return responseDefinition.getOriginalRequest().getMethod().isOneOf(GET, HEAD);
+    }
+
+    /**
+     * Returns the in-flight response for an identical request if there is one, otherwise starts a new upstream
+     * call. Responses handed out here are shared between requests, so their bodies must be safe to write more than once.
+     */
+    public ListenableFuture<Response> coalesce(ResponseDefinition responseDefinition, Callable<ListenableFuture<Response>> upstreamCall) {
+        final List<String> key = keyFor(responseDefinition);
+        final SettableFuture<Response> shared = SettableFuture.create();
+        ListenableFuture<Response> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            addCallback(upstreamCall.call(), new FutureCallback<Response>() {
+                public void onSuccess(Response response) {
+                    inFlight.remove(key, shared);
+                    shared.set(response);
+                }
+
+                public void onFailure(Throwable t) {
+                    inFlight.remove(key, shared);
+                    shared.setException(t);
+                }
+            });
+        } catch (Exception e) {
+            inFlight.remove(key, shared);
+            shared.setException(e);
+        }
+
+        return shared;
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private List<String> keyFor(ResponseDefinition responseDefinition) {
+        Request originalRequest = responseDefinition.getOriginalRequest();
+        ImmutableList.Builder<String> key = ImmutableList.builder();
+        key.add(originalRequest.getMethod().toString(), responseDefinition.getProxyUrl());
+        for (CaseInsensitiveKey header: keyHeaders) {
+            HttpHeader values = originalRequest.header(header.value());
+            key.add(values.isPresent() ? values.values().toString() : "");
+        }
+
+        return key.build();
+    }
+}
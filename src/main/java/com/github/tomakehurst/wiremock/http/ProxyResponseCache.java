@@ -0,0 +1,373 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.http;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.tomakehurst.wiremock.common.BinaryFile;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.common.Json;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.http.impl.cookie.DateParseException;
+import org.apache.http.impl.cookie.DateUtils;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
+import static com.github.tomakehurst.wiremock.http.HttpHeader.httpHeader;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.GET;
+import static com.github.tomakehurst.wiremock.http.Response.response;
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transform;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
+
+/**
+ * A shared HTTP cache for proxied GET responses. Freshness comes from Cache-Control (s-maxage, max-age,
+ * no-cache, no-store, private), Expires and Age; stale entries with an ETag or Last-Modified are
+ * revalidated with a conditional request. Responses carrying Vary are not stored.
+ *
+ * Entries are kept in memory up to a byte budget and, optionally, written through to a {@link FileSource}
+ * so that they survive a restart. Entries on disk are not evicted, only replaced.
+ */
+public class ProxyResponseCache {
+
+    public static final long DEFAULT_MAX_BYTES = 10 * 1024 * 1024;
+
+    private static final String CACHE_CONTROL = "Cache-Control";
+    private static final String PRAGMA = "Pragma";
+    private static final String EXPIRES = "Expires";
+    private static final String DATE = "Date";
+    private static final String AGE = "Age";
+    private static final String VARY = "Vary";
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final String AUTHORIZATION = "Authorization";
+    private static final List<String> ENTITY_FRAMING_HEADERS = ImmutableList.of("content-length", "transfer-encoding", "connection");
+
+    private final long maxBytes;
+    private final Cache<String, CachedResponse> memory;
+    private final Optional<FileSource> diskStore;
+
+    public ProxyResponseCache(long maxBytes, Optional<FileSource> diskStore) {
+        this.maxBytes = maxBytes;
+        this.diskStore = diskStore;
+        this.memory = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(Math.max(maxBytes, 0))
+                .weigher(new Weigher<String, CachedResponse>() {
+                    public int weigh(String url, CachedResponse cached) {
+                        return cached.body.length;
+                    }
+                })
+                .build();
+
+        if (diskStore.isPresent()) {
+            diskStore.get().createIfNecessary();
+        }
+    }
+
+    public boolean canCache(ResponseDefinition responseDefinition) {
+        Request request = responseDefinition.getOriginalRequest();
+        return request.getMethod() == GET &&
+                !request.containsHeader(AUTHORIZATION) &&
+                !directivesIn(request.header(CACHE_CONTROL)).containsKey("no-store");
+    }
+
+    /**
+     * Serves a fresh cached response if there is one. Otherwise calls upstream, passing conditional headers
+     * when a stale entry can be revalidated, and stores whatever comes back if it is cacheable.
+     */
+    public ListenableFuture<Response> responseFor(ResponseDefinition responseDefinition,
+                                                  Function<List<HttpHeader>, ListenableFuture<Response>> upstream) {
+        final String url = responseDefinition.getProxyUrl();
+        final CachedResponse cached = lookup(url);
+        final long requestTime = System.currentTimeMillis();
+        if (cached != null && cached.isFreshAt(requestTime) && !demandsRevalidation(responseDefinition.getOriginalRequest())) {
+            return immediateFuture(cached.toResponse());
+        }
+
+        List<HttpHeader> conditionalHeaders = cached != null ? cached.validators() : Collections.<HttpHeader>emptyList();
+        return transform(upstream.apply(conditionalHeaders), new Function<Response, Response>() {
+            public Response apply(Response response) {
+                if (cached != null && response.getStatus() == HTTP_NOT_MODIFIED) {
+                    CachedResponse revalidated = cached.revalidatedBy(response.getHeaders(), requestTime);
+                    store(url, revalidated);
+                    return revalidated.toResponse();
+                }
+
+                Optional<CachedResponse> cacheable = cacheableFrom(response, requestTime);
+                if (cacheable.isPresent()) {
+                    store(url, cacheable.get());
+                } else if (response.getStatus() == HTTP_OK) {
+                    invalidate(url);
+                }
+
+                return response;
+            }
+        });
+    }
+
+    public long size() {
+        return memory.size();
+    }
+
+    private Optional<CachedResponse> cacheableFrom(Response response, long requestTime) {
+        HttpHeaders headers = response.getHeaders();
+        Map<String, String> directives = directivesIn(headers.getHeader(CACHE_CONTROL));
+        if (response.getStatus() != HTTP_OK ||
+                directives.containsKey("no-store") ||
+                directives.containsKey("private") ||
+                headers.getHeader(VARY).isPresent()) {
+            return Optional.absent();
+        }
+
+        HttpHeader contentLength = headers.getHeader("Content-Length");
+        if (contentLength.isPresent() && bytesIn(contentLength.firstValue()) > maxBytes) {
+            return Optional.absent();
+        }
+
+        CachedResponse cached = new CachedResponse(response.getStatus(), headers, freshUntil(headers, requestTime));
+        cached.body = response.getBody();
+        if (cached.body.length > maxBytes || (!cached.isFreshAt(requestTime) && cached.validators().isEmpty())) {
+            return Optional.absent();
+        }
+
+        return Optional.of(cached);
+    }
+
+    private static long freshUntil(HttpHeaders headers, long requestTime) {
+        Map<String, String> directives = directivesIn(headers.getHeader(CACHE_CONTROL));
+        if (directives.containsKey("no-cache")) {
+            return requestTime;
+        }
+
+        long age = headers.getHeader(AGE).isPresent() ? secondsIn(headers.getHeader(AGE).firstValue()) * 1000 : 0;
+        if (directives.containsKey("s-maxage")) {
+            return requestTime + secondsIn(directives.get("s-maxage")) * 1000 - age;
+        }
+
+        if (directives.containsKey("max-age")) {
+            return requestTime + secondsIn(directives.get("max-age")) * 1000 - age;
+        }
+
+        if (headers.getHeader(EXPIRES).isPresent()) {
+            long expires = dateIn(headers.getHeader(EXPIRES), 0);
+            long date = dateIn(headers.getHeader(DATE), requestTime);
+            return requestTime + (expires - date) - age;
+        }
+
+        return requestTime;
+    }
+
+    private static boolean demandsRevalidation(Request request) {
+        Map<String, String> directives = directivesIn(request.header(CACHE_CONTROL));
+        return directives.containsKey("no-cache") ||
+                "0".equals(directives.get("max-age")) ||
+                (request.header(PRAGMA).isPresent() && request.header(PRAGMA).containsValue("no-cache"));
+    }
+
+    private static Map<String, String> directivesIn(HttpHeader header) {
+        Map<String, String> directives = newHashMap();
+        if (header == null || !header.isPresent()) {
+            return directives;
+        }
+
+        for (String value: header.values()) {
+            for (String directive: value.split(",")) {
+                String[] nameAndValue = directive.trim().split("=", 2);
+                String name = nameAndValue[0].trim().toLowerCase();
+                directives.put(name, nameAndValue.length > 1 ? nameAndValue[1].trim().replace("\"", "") : null);
+            }
+        }
+
+        return directives;
+    }
+
+    private static long secondsIn(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * An invalid length is treated as unknown, leaving the size check to the body itself.
+     */
+    private static long bytesIn(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long dateIn(HttpHeader header, long defaultTime) {
+        if (!header.isPresent()) {
+            return defaultTime;
+        }
+
+        try {
+            return DateUtils.parseDate(header.firstValue()).getTime();
+        } catch (DateParseException e) {
+            return 0; // An invalid date means already expired
+        }
+    }
+
+    private CachedResponse lookup(String url) {
+        CachedResponse cached = memory.getIfPresent(url);
+        if (cached == null && diskStore.isPresent()) {
+            cached = readFromDisk(url);
+            if (cached != null && cached.body.length <= maxBytes) {
+                memory.put(url, cached);
+            }
+        }
+
+        return cached;
+    }
+
+    private void store(String url, CachedResponse cached) {
+        memory.put(url, cached);
+        if (diskStore.isPresent()) {
+            String name = fileNameFor(url);
+            diskStore.get().writeBinaryFile(name + ".body", cached.body);
+            diskStore.get().writeTextFile(name + ".json", Json.write(cached));
+        }
+    }
+
+    private void invalidate(String url) {
+        memory.invalidate(url);
+        if (diskStore.isPresent()) {
+            String name = fileNameFor(url);
+            diskStore.get().deleteFile(name + ".json");
+            diskStore.get().deleteFile(name + ".body");
+        }
+    }
+
+    private CachedResponse readFromDisk(String url) {
+        String name = fileNameFor(url);
+        BinaryFile metadataFile = diskStore.get().getBinaryFileNamed(name + ".json");
+        Optional<File> localFile = metadataFile.localFile();
+        if (localFile.isPresent() && !localFile.get().exists()) {
+            return null;
+        }
+
+        try {
+            CachedResponse cached = Json.read(metadataFile.openStream(), CachedResponse.class);
+            cached.body = diskStore.get().getBinaryFileNamed(name + ".body").readContents();
+            return cached;
+        } catch (RuntimeException e) {
+            notifier().error("Unable to read cached proxy response for " + url, e);
+            return null;
+        }
+    }
+
+    private static String fileNameFor(String url) {
+        return Hashing.sha1().hashString(url, UTF_8).toString();
+    }
+
+    private static class CachedResponse {
+
+        private final int status;
+        private final HttpHeaders headers;
+        private final long freshUntil;
+        private byte[] body;
+
+        @JsonCreator
+        CachedResponse(@JsonProperty("status") int status,
+                       @JsonProperty("headers") HttpHeaders headers,
+                       @JsonProperty("freshUntil") long freshUntil) {
+            this.status = status;
+            this.headers = headers;
+            this.freshUntil = freshUntil;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        public long getFreshUntil() {
+            return freshUntil;
+        }
+
+        @JsonIgnore
+        boolean isFreshAt(long time) {
+            return time < freshUntil;
+        }
+
+        @JsonIgnore
+        List<HttpHeader> validators() {
+            List<HttpHeader> validators = newArrayList();
+            if (headers.getHeader(ETAG).isPresent()) {
+                validators.add(httpHeader("If-None-Match", headers.getHeader(ETAG).firstValue()));
+            }
+
+            if (headers.getHeader(LAST_MODIFIED).isPresent()) {
+                validators.add(httpHeader("If-Modified-Since", headers.getHeader(LAST_MODIFIED).firstValue()));
+            }
+
+            return validators;
+        }
+
+        CachedResponse revalidatedBy(HttpHeaders notModifiedHeaders, long requestTime) {
+            List<HttpHeader> merged = newArrayList();
+            for (HttpHeader header: headers.all()) {
+                if (!notModifiedHeaders.getHeader(header.key()).isPresent() ||
+                        ENTITY_FRAMING_HEADERS.contains(header.key().toLowerCase())) {
+                    merged.add(header);
+                }
+            }
+            for (HttpHeader header: notModifiedHeaders.all()) {
+                if (!ENTITY_FRAMING_HEADERS.contains(header.key().toLowerCase())) {
+                    merged.add(header);
+                }
+            }
+
+            HttpHeaders mergedHeaders = new HttpHeaders(merged);
+            CachedResponse revalidated = new CachedResponse(status, mergedHeaders, freshUntil(mergedHeaders, requestTime));
+            revalidated.body = body;
+            return revalidated;
+        }
+
+        Response toResponse() {
+            return response()
+                    .status(status)
+                    .headers(headers)
+                    .body(body)
+                    .fromProxy(true)
+                    .build();
+        }
+    }
+}
@@ -18,40 +18,56 @@ package com.github.tomakehurst.wiremock.http;
 import com.github.tomakehurst.wiremock.common.ProxySettings;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.http.*;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.*;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.InputStreamEntity;
-import org.apache.http.entity.StringEntity;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Callable;
 
-import static com.github.tomakehurst.wiremock.common.HttpClientUtils.getEntityAsByteArrayAndCloseStream;
 import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
+import static com.github.tomakehurst.wiremock.http.HttpHeader.httpHeader;
 import static com.github.tomakehurst.wiremock.http.RequestMethod.POST;
 import static com.github.tomakehurst.wiremock.http.RequestMethod.PUT;
 import static com.github.tomakehurst.wiremock.http.RequestMethod.PATCH;
 import static com.github.tomakehurst.wiremock.http.Response.response;
 import static com.google.common.collect.Iterables.transform;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static java.util.Arrays.asList;
 
 public class ProxyResponseRenderer implements ResponseRenderer {
 
-    private static final int MINUTES = 1000 * 60;
+    protected static final int MINUTES = 1000 * 60;
     private static final String TRANSFER_ENCODING = "transfer-encoding";
     private static final String CONTENT_LENGTH = "content-length";
     private static final String HOST_HEADER = "host";
+    protected static final List<HttpHeader> NO_EXTRA_HEADERS = ImmutableList.of();
 
     private final HttpClient client;
     private final boolean preserveHostHeader;
     private final String hostHeaderValue;
-	
+    private final Optional<ProxyRequestCoalescer> coalescer;
+    private final Optional<ProxyResponseCache> cache;
+
 	public ProxyResponseRenderer(ProxySettings proxySettings, boolean preserveHostHeader, String hostHeaderValue) {
+        this(proxySettings, preserveHostHeader, hostHeaderValue,
+                Optional.<ProxyRequestCoalescer>absent(), Optional.<ProxyResponseCache>absent());
+    }
+
+	public ProxyResponseRenderer(ProxySettings proxySettings, boolean preserveHostHeader, String hostHeaderValue,
+                                 Optional<ProxyRequestCoalescer> coalescer, Optional<ProxyResponseCache> cache) {
         if (proxySettings != null) {
             client = HttpClientFactory.createClient(1000, 5 * MINUTES, proxySettings);
         } else {
@@ -60,6 +76,8 @@ public class ProxyResponseRenderer implements ResponseRenderer {
 
         this.preserveHostHeader = preserveHostHeader;
         this.hostHeaderValue = hostHeaderValue;
+        this.coalescer = coalescer;
+        this.cache = cache;
 	}
 
     public ProxyResponseRenderer() {
@@ -68,17 +86,70 @@ public class ProxyResponseRenderer implements ResponseRenderer {
 
 	@Override
 	public Response render(ResponseDefinition responseDefinition) {
+        if (mayShareResponse(responseDefinition)) {
+            return getUnchecked(sharedResponseFor(responseDefinition));
+        }
+
+        return fetch(responseDefinition, NO_EXTRA_HEADERS);
+    }
+
+    /**
+     * Whether the response could come from the cache or another in-flight request, rather than
+     * from a call made for this request alone.
+     */
+    protected boolean mayShareResponse(ResponseDefinition responseDefinition) {
+        return (cache.isPresent() && cache.get().canCache(responseDefinition)) ||
+                (coalescer.isPresent() && coalescer.get().canCoalesce(responseDefinition));
+    }
+
+    protected ListenableFuture<Response> sharedResponseFor(final ResponseDefinition responseDefinition) {
+        if (cache.isPresent() && cache.get().canCache(responseDefinition)) {
+            return cache.get().responseFor(responseDefinition, new Function<List<HttpHeader>, ListenableFuture<Response>>() {
+                public ListenableFuture<Response> apply(List<HttpHeader> conditionalHeaders) {
+                    return coalescedOrFetched(responseDefinition, conditionalHeaders);
+                }
+            });
+        }
+
+        return coalescedOrFetched(responseDefinition, NO_EXTRA_HEADERS);
+    }
+
+    private ListenableFuture<Response> coalescedOrFetched(final ResponseDefinition responseDefinition, final List<HttpHeader> extraHeaders) {
+        if (coalescer.isPresent() && coalescer.get().canCoalesce(responseDefinition)) {
+            return coalescer.get().coalesce(responseDefinition, new Callable<ListenableFuture<Response>>() {
+                public ListenableFuture<Response> call() {
+                    return fetchShareable(responseDefinition, extraHeaders);
+                }
+            });
+        }
+
+        return fetchShareable(responseDefinition, extraHeaders);
+    }
+
+    /**
+     * Fetches a response whose body can be read and written more than once.
+     */
+    protected ListenableFuture<Response> fetchShareable(ResponseDefinition responseDefinition, List<HttpHeader> extraHeaders) {
+        Response response = fetch(responseDefinition, extraHeaders);
+        response.getBody(); // Buffers the streamed body
+        return immediateFuture(response);
+    }
+
+	private Response fetch(ResponseDefinition responseDefinition, List<HttpHeader> extraHeaders) {
 		HttpUriRequest httpRequest = getHttpRequestFor(responseDefinition);
-        addRequestHeaders(httpRequest, responseDefinition);
+        for (HttpHeader header: withOverrides(requestHeadersFor(responseDefinition), extraHeaders)) {
+            httpRequest.addHeader(header.key(), header.firstValue());
+        }
 
 		try {
 			addBodyIfPostPutOrPatch(httpRequest, responseDefinition);
 			HttpResponse httpResponse = client.execute(httpRequest);
+            HttpEntity entity = httpResponse.getEntity();
 
             return response()
                     .status(httpResponse.getStatusLine().getStatusCode())
                     .headers(headersFrom(httpResponse))
-                    .body(getEntityAsByteArrayAndCloseStream(httpResponse))
+                    .body(entity != null ? entity.getContent() : new ByteArrayInputStream(new byte[0]))
                     .fromProxy(true)
                     .build();
 		} catch (IOException e) {
@@ -86,6 +157,13 @@ public class ProxyResponseRenderer implements ResponseRenderer {
 		}
 	}
 
+    /**
+     * Releases anything held between requests when the server stops. The blocking client's pool is kept,
+     * since a stopped server may be started again.
+     */
+    public void stop() {
+    }
+
     private HttpHeaders headersFrom(HttpResponse httpResponse) {
         return new HttpHeaders(transform(asList(httpResponse.getAllHeaders()), new Function<Header, HttpHeader>() {
             public HttpHeader apply(Header header) {
@@ -121,22 +199,49 @@ public class ProxyResponseRenderer implements ResponseRenderer {
 		}
 	}
 	
-	private void addRequestHeaders(HttpRequest httpRequest, ResponseDefinition response) {
-		Request originalRequest = response.getOriginalRequest(); 
+	protected static List<HttpHeader> withOverrides(List<HttpHeader> headers, List<HttpHeader> overrides) {
+		List<HttpHeader> merged = newArrayList();
+		for (HttpHeader header: headers) {
+			if (!containsKey(overrides, header.key())) {
+				merged.add(header);
+			}
+		}
+
+		merged.addAll(overrides);
+		return merged;
+	}
+
+	private static boolean containsKey(List<HttpHeader> headers, String key) {
+		for (HttpHeader header: headers) {
+			if (header.key().equalsIgnoreCase(key)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * The original request's headers as they should be sent upstream, with the host header rewritten as configured.
+	 */
+	protected List<HttpHeader> requestHeadersFor(ResponseDefinition response) {
+		Request originalRequest = response.getOriginalRequest();
+		List<HttpHeader> headers = newArrayList();
 		for (String key: originalRequest.getAllHeaderKeys()) {
 			if (headerShouldBeTransferred(key)) {
                 if (!HOST_HEADER.equalsIgnoreCase(key) || preserveHostHeader) {
-                    String value = originalRequest.getHeader(key);
-                    httpRequest.addHeader(key, value);
+                    headers.add(httpHeader(key, originalRequest.getHeader(key)));
                 } else {
                     if (hostHeaderValue != null) {
-                        httpRequest.addHeader(key, hostHeaderValue);
+                        headers.add(httpHeader(key, hostHeaderValue));
                     } else if (response.getProxyBaseUrl() != null) {
-                        httpRequest.addHeader(key, URI.create(response.getProxyBaseUrl()).getHost());
+                        headers.add(httpHeader(key, URI.create(response.getProxyBaseUrl()).getHost()));
                     }
                 }
 			}
 		}
+
+		return headers;
 	}
 
     private static boolean headerShouldBeTransferred(String key) {
@@ -157,10 +262,10 @@ public class ProxyResponseRenderer implements ResponseRenderer {
 
         if (originalRequest.containsHeader(TRANSFER_ENCODING) &&
                 originalRequest.header(TRANSFER_ENCODING).firstValue().equals("chunked")) {
-            return new InputStreamEntity(new ByteArrayInputStream(originalRequest.getBodyAsString().getBytes()), -1, contentType);
+            return new InputStreamEntity(new ByteArrayInputStream(originalRequest.getBody()), -1, contentType);
         }
 
-        return new StringEntity(originalRequest.getBodyAsString(), contentType);
+        return new ByteArrayEntity(originalRequest.getBody(), contentType);
     }
 
 }
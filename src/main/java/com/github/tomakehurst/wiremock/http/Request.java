@@ -28,6 +28,7 @@ public interface Request {
     HttpHeaders getHeaders();
 	boolean containsHeader(String key);
 	Set<String> getAllHeaderKeys();
+	byte[] getBody();
 	String getBodyAsString();
 	boolean isBrowserProxyRequest();
 	
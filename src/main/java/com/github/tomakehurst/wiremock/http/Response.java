@@ -15,16 +15,30 @@
  */
 package com.github.tomakehurst.wiremock.http;
 
+import com.github.tomakehurst.wiremock.common.Json;
 import com.github.tomakehurst.wiremock.jetty.ActiveSocket;
+import com.google.common.base.Function;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 
 import static com.github.tomakehurst.wiremock.http.HttpHeaders.noHeaders;
 import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkState;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 import static java.net.HttpURLConnection.HTTP_OK;
 
@@ -32,10 +46,13 @@ public class Response {
 
 	private final int status;
 	private final byte[] body;
+	private final StreamedBody bodyStream;
 	private final HttpHeaders headers;
 	private final boolean configured;
 	private final Fault fault;
 	private final boolean fromProxy;
+	private final int delayMilliseconds;
+	private final ListenableFuture<Response> deferred;
 	
 	public static Response notConfigured() {
         Response response = new Response(HTTP_NOT_FOUND,
@@ -54,19 +71,110 @@ public class Response {
 	public Response(int status, byte[] body, HttpHeaders headers, boolean configured, Fault fault, boolean fromProxy) {
 		this.status = status;
         this.body = body;
+        this.bodyStream = null;
         this.headers = headers;
         this.configured = configured;
         this.fault = fault;
         this.fromProxy = fromProxy;
+        this.delayMilliseconds = 0;
+        this.deferred = null;
 	}
 
     public Response(int status, String body, HttpHeaders headers, boolean configured, Fault fault, boolean fromProxy) {
         this.status = status;
         this.headers = headers;
         this.body = body == null ? null : body.getBytes(encodingFromContentTypeHeaderOrUtf8());
+        this.bodyStream = null;
         this.configured = configured;
         this.fault = fault;
         this.fromProxy = fromProxy;
+        this.delayMilliseconds = 0;
+        this.deferred = null;
+    }
+
+    public Response(int status, InputStream bodyStream, HttpHeaders headers, boolean configured, Fault fault, boolean fromProxy) {
+        this(status, new InputStreamBody(bodyStream), headers, configured, fault, fromProxy);
+    }
+
+    private Response(int status, StreamedBody bodyStream, HttpHeaders headers, boolean configured, Fault fault, boolean fromProxy) {
+        this.status = status;
+        this.body = null;
+        this.bodyStream = bodyStream;
+        this.headers = headers;
+        this.configured = configured;
+        this.fault = fault;
+        this.fromProxy = fromProxy;
+        this.delayMilliseconds = 0;
+        this.deferred = null;
+    }
+
+    private Response(ListenableFuture<Response> deferred) {
+        this.status = 0;
+        this.body = null;
+        this.bodyStream = null;
+        this.headers = noHeaders();
+        this.configured = true;
+        this.fault = null;
+        this.fromProxy = true;
+        this.delayMilliseconds = 0;
+        this.deferred = deferred;
+    }
+
+    private Response(Response original, int delayMilliseconds, ListenableFuture<Response> deferred) {
+        this.status = original.status;
+        this.body = original.body;
+        this.bodyStream = original.bodyStream;
+        this.headers = original.headers;
+        this.configured = original.configured;
+        this.fault = original.fault;
+        this.fromProxy = original.fromProxy;
+        this.delayMilliseconds = delayMilliseconds;
+        this.deferred = deferred;
+    }
+
+    /**
+     * A response that is still being fetched, e.g. from a proxy target by a non-blocking client.
+     * It carries no content of its own; call {@link #resolve()} once the future is done.
+     */
+    public static Response deferred(ListenableFuture<Response> pending) {
+        return new Response(pending);
+    }
+
+    /**
+     * Returns a copy of this response which should be sent only after the given delay.
+     * The delay itself is applied by whoever writes the response out.
+     */
+    public Response delayedBy(int delayMilliseconds) {
+        return new Response(this, delayMilliseconds, deferred);
+    }
+
+    public boolean isDeferred() {
+        return deferred != null;
+    }
+
+    public ListenableFuture<Response> getDeferred() {
+        return deferred;
+    }
+
+    /**
+     * Returns a deferred response whose eventual value has been passed through the given function.
+     */
+    public Response whenResolved(Function<Response, Response> function) {
+        checkState(isDeferred(), "Only a deferred response can be resolved");
+        return new Response(this, delayMilliseconds, Futures.transform(deferred, function));
+    }
+
+    /**
+     * Waits for a deferred response and returns it, carrying over any delay added to this one.
+     * Other responses are returned as they are.
+     */
+    public Response resolve() {
+        if (!isDeferred()) {
+            return this;
+        }
+
+        Response resolved = Futures.getUnchecked(deferred);
+        return isDelayed() ? resolved.delayedBy(delayMilliseconds) : resolved;
     }
 
 	public int getStatus() {
@@ -74,18 +182,28 @@ public class Response {
 	}
 
     public byte[] getBody() {
+        if (bodyStream != null) {
+            return bodyStream.toByteArray();
+        }
+
         return body;
     }
 	
 	public String getBodyAsString() {
-        return new String(body, encodingFromContentTypeHeaderOrUtf8());
+        return new String(getBody(), encodingFromContentTypeHeaderOrUtf8());
 	}
+
 	
 	public HttpHeaders getHeaders() {
 		return headers;
 	}
 	
 	public void applyTo(HttpServletResponse httpServletResponse) {
+		if (isDeferred()) {
+			resolve().applyTo(httpServletResponse);
+			return;
+		}
+
 		if (fault != null) {
             Socket socket = ActiveSocket.get();
 			fault.apply(httpServletResponse, socket);
@@ -99,7 +217,11 @@ public class Response {
             }
 		}
 		
-		writeAndTranslateExceptions(httpServletResponse, body);
+		if (bodyStream != null) {
+            bodyStream.writeTo(httpServletResponse);
+        } else {
+		    writeAndTranslateExceptions(httpServletResponse, body);
+        }
 	}
 	
 	private static void writeAndTranslateExceptions(HttpServletResponse httpServletResponse, byte[] content) {
@@ -110,6 +232,30 @@ public class Response {
 		}
 	}
 
+    private static void writeFileAndTranslateExceptions(HttpServletResponse httpServletResponse, File file) {
+        FileInputStream fileStream = null;
+        try {
+            fileStream = new FileInputStream(file);
+            FileChannel fileChannel = fileStream.getChannel();
+            long length = fileChannel.size();
+            if (length <= Integer.MAX_VALUE) {
+                httpServletResponse.setContentLength((int) length);
+            } else {
+                httpServletResponse.setHeader("Content-Length", String.valueOf(length));
+            }
+
+            WritableByteChannel outChannel = Channels.newChannel(httpServletResponse.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += fileChannel.transferTo(position, length - position, outChannel);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            Closeables.closeQuietly(fileStream);
+        }
+    }
+
     private Charset encodingFromContentTypeHeaderOrUtf8() {
         ContentTypeHeader contentTypeHeader = headers.getContentTypeHeader();
         if (contentTypeHeader.isPresent() && contentTypeHeader.encodingPart().isPresent()) {
@@ -127,16 +273,161 @@ public class Response {
         return fromProxy;
     }
 
+    public boolean isDelayed() {
+        return delayMilliseconds > 0;
+    }
+
+    public int getDelayMilliseconds() {
+        return delayMilliseconds;
+    }
+
     @Override
     public String toString() {
-        return "Response [status=" + status + ", body=" + Arrays.toString(body) + ", headers=" + headers
-                + ", configured=" + configured + ", fault=" + fault + ", fromProxy=" + fromProxy + "]";
+        String bodyDescription = bodyStream != null ? bodyStream.toString() : Arrays.toString(body);
+        return "Response [status=" + status + ", body=" + bodyDescription + ", headers=" + headers
+                + ", configured=" + configured + ", fault=" + fault + ", fromProxy=" + fromProxy + ", delayMilliseconds=" + delayMilliseconds + ", deferred=" + isDeferred() + "]";
+    }
+
+    /**
+     * A body that is written straight to the client rather than held as a byte array.
+     */
+    private abstract static class StreamedBody {
+        abstract byte[] toByteArray();
+        abstract void writeTo(HttpServletResponse httpServletResponse);
+    }
+
+    /**
+     * A body read from a stream, typically a proxied response. It is copied straight to the client
+     * unless something asks for the whole body first, in which case it is buffered once and kept.
+     */
+    private static class InputStreamBody extends StreamedBody {
+        private InputStream stream;
+        private byte[] buffered;
+
+        InputStreamBody(InputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        synchronized byte[] toByteArray() {
+            if (buffered == null) {
+                try {
+                    buffered = ByteStreams.toByteArray(stream);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    Closeables.closeQuietly(stream);
+                    stream = null;
+                }
+            }
+
+            return buffered;
+        }
+
+        @Override
+        synchronized void writeTo(HttpServletResponse httpServletResponse) {
+            if (buffered != null) {
+                writeAndTranslateExceptions(httpServletResponse, buffered);
+                return;
+            }
+
+            if (stream == null) {
+                throw new IllegalStateException("Streamed body has already been written");
+            }
+
+            try {
+                ByteStreams.copy(stream, httpServletResponse.getOutputStream());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                Closeables.closeQuietly(stream);
+                stream = null;
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return buffered != null ? Arrays.toString(buffered) : "<streamed>";
+        }
+    }
+
+    /**
+     * A file too large to cache, sent to the client from disk. As with a stream, a listener asking for
+     * the whole body has the file read once and the bytes kept, which are then sent instead.
+     */
+    private static class FileBody extends StreamedBody {
+        private final File file;
+        private byte[] buffered;
+
+        FileBody(File file) {
+            this.file = file;
+        }
+
+        @Override
+        synchronized byte[] toByteArray() {
+            if (buffered == null) {
+                try {
+                    buffered = Files.toByteArray(file);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            return buffered;
+        }
+
+        @Override
+        synchronized void writeTo(HttpServletResponse httpServletResponse) {
+            if (buffered != null) {
+                writeAndTranslateExceptions(httpServletResponse, buffered);
+            } else {
+                writeFileAndTranslateExceptions(httpServletResponse, file);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return file.getPath();
+        }
+    }
+
+    /**
+     * An object serialised as JSON straight to the client, so large documents are never built up as a string.
+     */
+    private static class JsonBody extends StreamedBody {
+        private final Object object;
+
+        JsonBody(Object object) {
+            this.object = object;
+        }
+
+        @Override
+        byte[] toByteArray() {
+            return Json.write(object).getBytes(UTF_8);
+        }
+
+        @Override
+        void writeTo(HttpServletResponse httpServletResponse) {
+            try {
+                Json.write(object, httpServletResponse.getOutputStream());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "<json>";
+        }
     }
 
     public static class Builder {
+        private static final String ONLY_ONE_BODY = "Body should be set as only one of a String, byte[], File, InputStream or JSON object";
+
         private int status = HTTP_OK;
         private byte[] body;
         private String bodyString;
+        private StreamedBody bodyStream;
         private HttpHeaders headers = new HttpHeaders();
         private boolean configured = true;
         private Fault fault;
@@ -159,9 +450,35 @@ public class Response {
             return this;
         }
 
+        public Builder body(File bodyFile) {
+            return bodyStream(bodyFile != null ? new FileBody(bodyFile) : null);
+        }
+
+        public Builder body(InputStream bodyStream) {
+            return bodyStream(bodyStream != null ? new InputStreamBody(bodyStream) : null);
+        }
+
+        /**
+         * Sets a body to be serialised as JSON as it's written out.
+         */
+        public Builder jsonBody(Object jsonBody) {
+            return bodyStream(jsonBody != null ? new JsonBody(jsonBody) : null);
+        }
+
+        private Builder bodyStream(StreamedBody bodyStream) {
+            if (this.bodyStream != null && bodyStream != null) {
+                throw new IllegalStateException(ONLY_ONE_BODY);
+            }
+
+            this.bodyStream = bodyStream;
+            ensureOnlyOneBodySet();
+            return this;
+        }
+
         private void ensureOnlyOneBodySet() {
-            if (body != null && bodyString != null) {
-                throw new IllegalStateException("Body should either be set as a String or byte[], not both");
+            int bodiesSet = (body != null ? 1 : 0) + (bodyString != null ? 1 : 0) + (bodyStream != null ? 1 : 0);
+            if (bodiesSet > 1) {
+                throw new IllegalStateException(ONLY_ONE_BODY);
             }
         }
 
@@ -190,6 +507,8 @@ public class Response {
                 return new Response(status, body, headers, configured, fault, fromProxy);
             } else if (bodyString != null) {
                 return new Response(status, bodyString, headers, configured, fault, fromProxy);
+            } else if (bodyStream != null) {
+                return new Response(status, bodyStream, headers, configured, fault, fromProxy);
             } else {
                 return new Response(status, new byte[0], headers, configured, fault, fromProxy);
             }
@@ -42,6 +42,7 @@ public class ResponseDefinition {
 	private String proxyBaseUrl;
 	private String browserProxyUrl;
 	private Fault fault;
+	private Object jsonBody;
 	
 	private boolean wasConfigured = true;
 	private Request originalRequest;
@@ -57,12 +58,24 @@ public class ResponseDefinition {
 	    newResponseDef.fixedDelayMilliseconds = original.fixedDelayMilliseconds;
 	    newResponseDef.proxyBaseUrl = original.proxyBaseUrl;
 	    newResponseDef.fault = original.fault;
+	    newResponseDef.jsonBody = original.jsonBody;
 	    newResponseDef.wasConfigured = original.wasConfigured;
 	    newResponseDef.originalRequest = original.originalRequest;
 	    newResponseDef.replacer = original.replacer;
 	    return newResponseDef;
 	}
 	
+    /**
+     * A 200 response whose body is the object serialised as JSON while it's written out, rather than up front.
+     */
+    public static ResponseDefinition okForJson(Object body) {
+        ResponseDefinition response = new ResponseDefinition();
+        response.status = HTTP_OK;
+        response.jsonBody = body;
+        response.headers = new HttpHeaders(HttpHeader.httpHeader("Content-Type", "application/json"));
+        return response;
+    }
+
 	public HttpHeaders getHeaders() {
 		return headers;
 	}
@@ -207,6 +220,16 @@ public class ResponseDefinition {
 		return bodyFileName != null;
 	}
 	
+    @JsonIgnore
+    public Object getJsonBody() {
+        return jsonBody;
+    }
+
+    @JsonIgnore
+    public boolean specifiesJsonBody() {
+        return jsonBody != null;
+    }
+
 	@JsonIgnore
 	public boolean specifiesBodyContent() {
 		return body != null;
@@ -17,10 +17,13 @@ package com.github.tomakehurst.wiremock.http;
 
 import com.github.tomakehurst.wiremock.capture.Replacer;
 import com.github.tomakehurst.wiremock.common.BinaryFile;
+import com.github.tomakehurst.wiremock.common.BinaryFileCache;
 import com.github.tomakehurst.wiremock.common.FileSource;
 import com.github.tomakehurst.wiremock.global.GlobalSettingsHolder;
 import com.google.common.base.Optional;
 
+import java.io.File;
+
 import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
 import static com.github.tomakehurst.wiremock.http.Response.response;
 
@@ -29,13 +32,16 @@ public class StubResponseRenderer implements ResponseRenderer {
 	
 	private final FileSource fileSource;
 	private final GlobalSettingsHolder globalSettingsHolder;
+	private final BinaryFileCache bodyFileCache;
 	private final ProxyResponseRenderer proxyResponseRenderer;
 
     public StubResponseRenderer(FileSource fileSource,
                                 GlobalSettingsHolder globalSettingsHolder,
+                                BinaryFileCache bodyFileCache,
                                 ProxyResponseRenderer proxyResponseRenderer) {
         this.fileSource = fileSource;
         this.globalSettingsHolder = globalSettingsHolder;
+        this.bodyFileCache = bodyFileCache;
         this.proxyResponseRenderer = proxyResponseRenderer;
     }
 
@@ -45,12 +51,11 @@ public class StubResponseRenderer implements ResponseRenderer {
 			return Response.notConfigured();
 		}
 		
-		addDelayIfSpecifiedGloballyOrIn(responseDefinition);
-		if (responseDefinition.isProxyResponse()) {
-	    	return proxyResponseRenderer.render(responseDefinition);
-	    } else {
-	    	return renderDirectly(responseDefinition);
-	    }
+		Response response = responseDefinition.isProxyResponse() ?
+                proxyResponseRenderer.render(responseDefinition) :
+                renderDirectly(responseDefinition);
+
+        return addDelayIfSpecifiedGloballyOrIn(responseDefinition, response);
 	}
 	
 	private Response renderDirectly(ResponseDefinition responseDefinition) {
@@ -68,7 +73,12 @@ public class StubResponseRenderer implements ResponseRenderer {
         StringBuilder message = new StringBuilder("Response status ").append(responseDefinition.getStatus());
 		if (responseDefinition.specifiesBodyFile()) {
 			BinaryFile bodyFile = fileSource.getBinaryFileNamed(responseDefinition.getBodyFileName());
-            responseBuilder.body(bodyFile.readContents());
+            Optional<File> localFile = bodyFile.localFile();
+            if (localFile.isPresent() && localFile.get().isFile() && !bodyFileCache.canHold(localFile.get().length())) {
+                responseBuilder.body(localFile.get());
+            } else {
+                responseBuilder.body(bodyFileCache.contentsOf(bodyFile));
+            }
 		} else if (responseDefinition.specifiesBodyContent()) {
             if (responseDefinition.specifiesBinaryBodyContent()) {
                 responseBuilder.body(responseDefinition.getByteBody());
@@ -92,15 +102,13 @@ public class StubResponseRenderer implements ResponseRenderer {
         return responseBuilder.build();
 	}
 	
-    private void addDelayIfSpecifiedGloballyOrIn(ResponseDefinition response) {
-    	Optional<Integer> optionalDelay = getDelayFromResponseOrGlobalSetting(response);
+    private Response addDelayIfSpecifiedGloballyOrIn(ResponseDefinition responseDefinition, Response response) {
+    	Optional<Integer> optionalDelay = getDelayFromResponseOrGlobalSetting(responseDefinition);
         if (optionalDelay.isPresent()) {
-	        try {
-	            Thread.sleep(optionalDelay.get());
-	        } catch (InterruptedException e) {
-	            throw new RuntimeException(e);
-	        }
+            return response.delayedBy(optionalDelay.get());
 	    }
+
+        return response;
     }
     
     private Optional<Integer> getDelayFromResponseOrGlobalSetting(ResponseDefinition response) {
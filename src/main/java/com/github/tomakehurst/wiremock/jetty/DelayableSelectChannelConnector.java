@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.jetty;
+
+import com.github.tomakehurst.wiremock.global.RequestDelayControl;
+import org.mortbay.io.nio.SelectChannelEndPoint;
+import org.mortbay.io.nio.SelectorManager;
+import org.mortbay.jetty.HttpConnection;
+import org.mortbay.jetty.nio.SelectChannelConnector;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A selector-based connector, so idle keep-alive connections don't each hold a thread. The socket accept
+ * delay is applied on the first dispatch of each new connection, as delaying the selector itself would
+ * stall every other connection.
+ */
+public class DelayableSelectChannelConnector extends SelectChannelConnector {
+
+    private final RequestDelayControl requestDelayControl;
+
+    public DelayableSelectChannelConnector(RequestDelayControl requestDelayControl) {
+        this.requestDelayControl = requestDelayControl;
+    }
+
+    @Override
+    protected SelectChannelEndPoint newEndPoint(SocketChannel channel, SelectorManager.SelectSet selectSet, SelectionKey key) throws IOException {
+        return new DelayableEndPoint(channel, selectSet, key);
+    }
+
+    private class DelayableEndPoint extends ConnectorEndPoint implements SheddableConnection {
+
+        private volatile boolean started = false;
+
+        public DelayableEndPoint(SocketChannel channel, SelectorManager.SelectSet selectSet, SelectionKey key) {
+            super(channel, selectSet, key);
+        }
+
+        @Override
+        public void run() {
+            if (!started) {
+                started = true;
+                try {
+                    requestDelayControl.delayIfRequired();
+                } catch (InterruptedException e) {
+                    if (!(isStopping() || isStopped())) {
+                        Thread.interrupted(); // Clear the interrupt flag on the current thread
+                    }
+                }
+            }
+
+            ActiveSocket.set(new EndPointSocket(this));
+            try {
+                super.run();
+            } finally {
+                ActiveSocket.clear();
+            }
+        }
+
+        @Override
+        public boolean shed(byte[] rawResponse) {
+            // Jetty dispatches new connections before their first bytes arrive, so having run proves nothing
+            if (!isOpen() || ((HttpConnection) getConnection()).getRequests() > 0) {
+                return false;
+            }
+
+            LoadSheddingThreadPool.respondAndClose((SocketChannel) getChannel(), rawResponse);
+            return true;
+        }
+    }
+}
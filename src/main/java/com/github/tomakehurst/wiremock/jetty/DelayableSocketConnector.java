@@ -42,14 +42,30 @@ public class DelayableSocketConnector extends SocketConnector {
         }
 
         configure(socket);
-        Connection connection = new Connection(socket) {
-            @Override
-            public void run() {
-                ActiveSocket.set(socket);
-                super.run();
-                ActiveSocket.clear();
-            }
-        };
+        Connection connection = new DelayableConnection(socket);
         connection.dispatch();
     }
+
+    private class DelayableConnection extends Connection implements SheddableConnection {
+
+        private final Socket socket;
+
+        public DelayableConnection(Socket socket) throws IOException {
+            super(socket);
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            ActiveSocket.set(socket);
+            super.run();
+            ActiveSocket.clear();
+        }
+
+        @Override
+        public boolean shed(byte[] rawResponse) {
+            LoadSheddingThreadPool.respondAndClose(socket, rawResponse);
+            return true;
+        }
+    }
 }
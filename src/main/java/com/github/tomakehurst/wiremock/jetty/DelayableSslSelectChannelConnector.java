@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.jetty;
+
+import com.github.tomakehurst.wiremock.global.RequestDelayControl;
+import org.mortbay.io.Buffers;
+import org.mortbay.io.nio.SelectChannelEndPoint;
+import org.mortbay.io.nio.SelectorManager;
+import org.mortbay.jetty.HttpConnection;
+import org.mortbay.jetty.security.SslHttpChannelEndPoint;
+import org.mortbay.jetty.security.SslSelectChannelConnector;
+
+import javax.net.ssl.SSLEngine;
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * The HTTPS counterpart of {@link DelayableSelectChannelConnector}.
+ */
+public class DelayableSslSelectChannelConnector extends SslSelectChannelConnector {
+
+    private final RequestDelayControl requestDelayControl;
+
+    public DelayableSslSelectChannelConnector(RequestDelayControl requestDelayControl) {
+        this.requestDelayControl = requestDelayControl;
+    }
+
+    @Override
+    protected SelectChannelEndPoint newEndPoint(SocketChannel channel, SelectorManager.SelectSet selectSet, SelectionKey key) throws IOException {
+        DelayableSslEndPoint endPoint = new DelayableSslEndPoint(this, channel, selectSet, key, createSSLEngine());
+        endPoint.setAllowRenegotiate(isAllowRenegotiate());
+        return endPoint;
+    }
+
+    @Override
+    protected SSLEngine createSSLEngine() throws IOException {
+        SSLEngine engine = super.createSSLEngine();
+        // Jetty 6 predates TLS 1.3 and mistakes its post-handshake messages for a renegotiation, which it refuses
+        List<String> protocols = newArrayList(engine.getEnabledProtocols());
+        protocols.remove("TLSv1.3");
+        engine.setEnabledProtocols(protocols.toArray(new String[protocols.size()]));
+        return engine;
+    }
+
+    private class DelayableSslEndPoint extends SslHttpChannelEndPoint implements SheddableConnection {
+
+        private volatile boolean started = false;
+
+        public DelayableSslEndPoint(Buffers buffers, SocketChannel channel, SelectorManager.SelectSet selectSet, SelectionKey key, SSLEngine engine) throws IOException {
+            super(buffers, channel, selectSet, key, engine);
+        }
+
+        @Override
+        public void run() {
+            if (!started) {
+                started = true;
+                try {
+                    requestDelayControl.delayIfRequired();
+                } catch (InterruptedException e) {
+                    if (!(isStopping() || isStopped())) {
+                        Thread.interrupted(); // Clear the interrupt flag on the current thread
+                    }
+                }
+            }
+
+            ActiveSocket.set(new EndPointSocket(this));
+            try {
+                super.run();
+            } finally {
+                ActiveSocket.clear();
+            }
+        }
+
+        /**
+         * Closes without a response, as answering would mean a TLS handshake on the selector thread.
+         */
+        @Override
+        public boolean shed(byte[] rawResponse) {
+            // Jetty dispatches new connections before their first bytes arrive, so having run proves nothing
+            if (!isOpen() || ((HttpConnection) getConnection()).getRequests() > 0) {
+                return false;
+            }
+
+            LoadSheddingThreadPool.closeQuietly(_socket);
+            return true;
+        }
+    }
+}
@@ -47,14 +47,7 @@ public class DelayableSslSocketConnector extends SslSocketConnector {
             }
 
             configure(socket);
-            Connection connection = new SslConnection(socket) {
-                @Override
-                public void run() {
-                    ActiveSocket.set(socket);
-                    super.run();
-                    ActiveSocket.clear();
-                }
-            };
+            Connection connection = new DelayableSslConnection(socket);
             connection.dispatch();
         }
         catch(SSLException e)
@@ -71,4 +64,30 @@ public class DelayableSslSocketConnector extends SslSocketConnector {
             }
         }
     }
+
+    private class DelayableSslConnection extends SslConnection implements SheddableConnection {
+
+        private final Socket socket;
+
+        public DelayableSslConnection(Socket socket) throws IOException {
+            super(socket);
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            ActiveSocket.set(socket);
+            super.run();
+            ActiveSocket.clear();
+        }
+
+        /**
+         * Closes without a response, as answering would mean a TLS handshake on the acceptor thread.
+         */
+        @Override
+        public boolean shed(byte[] rawResponse) {
+            LoadSheddingThreadPool.closeQuietly(socket);
+            return true;
+        }
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.jetty;
+
+import org.mortbay.io.Buffer;
+import org.mortbay.io.EndPoint;
+import org.mortbay.io.nio.IndirectNIOBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * Presents a selector-managed connection as a Socket, so that faults can write raw bytes and close it
+ * just as they do a blocking one. Writes go through the endpoint, so they are encrypted on HTTPS and
+ * block until sent even though the underlying channel is non-blocking.
+ */
+public class EndPointSocket extends Socket {
+
+    private static final long WRITE_TIMEOUT_MILLISECONDS = 30000;
+
+    private final EndPoint endPoint;
+
+    public EndPointSocket(EndPoint endPoint) {
+        this.endPoint = endPoint;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                // The SSL endpoint only encrypts NIO buffers
+                Buffer buffer = new IndirectNIOBuffer(length);
+                buffer.put(bytes, offset, length);
+                while (buffer.hasContent()) {
+                    if (endPoint.flush(buffer) == 0 && !endPoint.blockWritable(WRITE_TIMEOUT_MILLISECONDS)) {
+                        throw new IOException("Timed out writing to " + endPoint.getRemoteAddr());
+                    }
+                }
+
+                endPoint.flush();
+            }
+        };
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        endPoint.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return !endPoint.isOpen();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.jetty;
+
+import org.mortbay.io.EndPoint;
+import org.mortbay.jetty.bio.SocketConnector;
+import org.mortbay.log.Log;
+import org.mortbay.thread.ThreadPool;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A blocking connector running on its own thread pool rather than the server's. Jetty stops a connector's
+ * own pool before closing its open connections, which leaves the stop waiting on threads blocked reading
+ * idle keep-alive connections, so those are closed first here.
+ */
+public class IsolatedSocketConnector extends SocketConnector {
+
+    public IsolatedSocketConnector(ThreadPool threadPool) {
+        setThreadPool(threadPool);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void doStop() throws Exception {
+        close();
+
+        Set<EndPoint> connections;
+        synchronized (_connections) {
+            connections = new HashSet<EndPoint>(_connections);
+        }
+
+        for (EndPoint connection: connections) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                Log.ignore(e);
+            }
+        }
+
+        super.doStop();
+    }
+}
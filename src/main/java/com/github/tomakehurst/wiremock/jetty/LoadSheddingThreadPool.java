@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.jetty;
+
+import com.github.tomakehurst.wiremock.core.ThreadPoolStats;
+import com.google.common.base.Optional;
+import org.mortbay.thread.QueuedThreadPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+/**
+ * A worker pool with a bounded queue. Once every thread is busy and the queue is full, new connections
+ * are turned away with a 503 straight from the acceptor or selector instead of waiting for a thread.
+ */
+public class LoadSheddingThreadPool extends QueuedThreadPool {
+
+    private static final long serialVersionUID = 871065886080372466L;
+
+    public static final int DEFAULT_MIN_THREADS = 2;
+    public static final int DEFAULT_MAX_THREADS = 254;
+    public static final int DEFAULT_IDLE_TIMEOUT_MILLISECONDS = 60000;
+    public static final String DEFAULT_RESPONSE_BODY = "WireMock is overloaded, try again later";
+
+    private final Optional<Integer> queueCapacity;
+    private final byte[] serviceUnavailableResponse;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public LoadSheddingThreadPool(int minThreads, int maxThreads, int idleTimeoutMilliseconds, Optional<Integer> queueCapacity, String responseBody) {
+        setMinThreads(minThreads);
+        setMaxThreads(maxThreads);
+        setMaxIdleTimeMs(idleTimeoutMilliseconds);
+        this.queueCapacity = queueCapacity;
+        this.serviceUnavailableResponse = serviceUnavailableResponse(responseBody);
+    }
+
+    @Override
+    public boolean dispatch(Runnable job) {
+        if (job instanceof SheddableConnection && isSaturated() &&
+                ((SheddableConnection) job).shed(serviceUnavailableResponse)) {
+            rejectedCount.incrementAndGet();
+            return true;
+        }
+
+        return super.dispatch(job);
+    }
+
+    private boolean isSaturated() {
+        return queueCapacity.isPresent() &&
+                getIdleThreads() == 0 &&
+                getThreads() >= getMaxThreads() &&
+                getQueueSize() >= queueCapacity.get();
+    }
+
+    public ThreadPoolStats getStats() {
+        return new ThreadPoolStats(
+                getThreads(),
+                getIdleThreads(),
+                getMinThreads(),
+                getMaxThreads(),
+                getQueueSize(),
+                queueCapacity.orNull(),
+                rejectedCount.get());
+    }
+
+    private static byte[] serviceUnavailableResponse(String body) {
+        byte[] bodyBytes = body.getBytes(UTF_8);
+        String head = "HTTP/1.1 503 Service Unavailable\r\n" +
+                "Content-Type: text/plain; charset=utf-8\r\n" +
+                "Content-Length: " + bodyBytes.length + "\r\n" +
+                "Connection: close\r\n\r\n";
+        byte[] headBytes = head.getBytes(UTF_8);
+
+        byte[] response = new byte[headBytes.length + bodyBytes.length];
+        System.arraycopy(headBytes, 0, response, 0, headBytes.length);
+        System.arraycopy(bodyBytes, 0, response, headBytes.length, bodyBytes.length);
+        return response;
+    }
+
+    /**
+     * Sends the response and closes, discarding whatever of the request has arrived so the close
+     * doesn't reset the connection before the client reads the response.
+     */
+    static void respondAndClose(Socket socket, byte[] rawResponse) {
+        try {
+            socket.getOutputStream().write(rawResponse);
+            socket.shutdownOutput();
+            InputStream in = socket.getInputStream();
+            in.skip(in.available());
+        } catch (IOException ignored) {
+            // The client has gone away, which is as good as shed
+        } finally {
+            closeQuietly(socket);
+        }
+    }
+
+    static void respondAndClose(SocketChannel channel, byte[] rawResponse) {
+        try {
+            // A few hundred bytes into an empty send buffer, so a non-blocking write takes it all
+            channel.write(ByteBuffer.wrap(rawResponse));
+            channel.socket().shutdownOutput();
+            ByteBuffer discard = ByteBuffer.allocate(4096);
+            while (channel.read(discard) > 0) {
+                discard.clear();
+            }
+        } catch (IOException ignored) {
+            // The client has gone away, which is as good as shed
+        } finally {
+            closeQuietly(channel.socket());
+        }
+    }
+
+    static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.jetty;
+
+/**
+ * A connection that can be turned away without a worker thread when the server is saturated.
+ */
+public interface SheddableConnection {
+
+    /**
+     * Sends the raw HTTP response if the protocol allows it, then closes the connection. Called on the
+     * acceptor or selector thread, so must not wait on the client.
+     * @return false if the connection has already served a request, so a 503 could be taken for the next response
+     */
+    boolean shed(byte[] rawResponse);
+}
@@ -74,8 +74,8 @@ public class WireMockClassRule implements MethodRule, TestRule, Stubbing {
                     }
                 } else {
                     wireMockServer.start();
-                    wireMock = new WireMock("localhost", port());
-                    WireMock.configureFor("localhost", port());
+                    wireMock = new WireMock("localhost", adminPort());
+                    WireMock.configureFor("localhost", adminPort());
                     try {
                         before();
                         base.evaluate();
@@ -139,4 +139,8 @@ public class WireMockClassRule implements MethodRule, TestRule, Stubbing {
     public int httpsPort() {
         return wireMockServer.httpsPort();
     }
+
+    public int adminPort() {
+        return wireMockServer.adminPort();
+    }
 }
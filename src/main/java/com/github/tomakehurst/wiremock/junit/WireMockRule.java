@@ -67,8 +67,8 @@ public class WireMockRule implements MethodRule, TestRule, Stubbing {
 			public void evaluate() throws Throwable {
 				wireMockServer = new WireMockServer(options);
 				wireMockServer.start();
-				WireMock.configureFor("localhost", port());
-                wireMock = new WireMock("localhost", port());
+				WireMock.configureFor("localhost", adminPort());
+                wireMock = new WireMock("localhost", adminPort());
 				try {
                     before();
                     base.evaluate();
@@ -135,4 +135,8 @@ public class WireMockRule implements MethodRule, TestRule, Stubbing {
     public int httpsPort() {
         return wireMockServer.httpsPort();
     }
+
+    public int adminPort() {
+        return wireMockServer.adminPort();
+    }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.matching;
+
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.ANY;
+
+/**
+ * An immutable, ready to evaluate form of a {@link RequestPattern}, built once when the pattern is first used
+ * so that matching a request doesn't recompile regexes or rebuild header and body pattern collections.
+ */
+public class CompiledRequestPattern {
+
+    private final String url;
+    private final Pattern urlPattern;
+    private final RequestMethod method;
+    private final List<String> requiredAbsentHeaderKeys;
+    private final List<HeaderPattern> headerPatterns;
+    private final boolean someHeadersAreRequiredToBePresent;
+    private final List<CompiledValuePattern> bodyPatterns;
+
+    CompiledRequestPattern(RequestPattern requestPattern) {
+        url = requestPattern.getUrl();
+        urlPattern = requestPattern.getUrlPattern() != null ? Pattern.compile(requestPattern.getUrlPattern()) : null;
+        method = requestPattern.getMethod();
+
+        ImmutableList.Builder<String> absentHeaderKeys = ImmutableList.builder();
+        ImmutableList.Builder<HeaderPattern> headers = ImmutableList.builder();
+        boolean anyPresentHeaders = false;
+        if (requestPattern.getHeaders() != null) {
+            for (Map.Entry<String, ValuePattern> header: requestPattern.getHeaders().entrySet()) {
+                HeaderPattern headerPattern = new HeaderPattern(header.getKey(), header.getValue());
+                headers.add(headerPattern);
+                if (headerPattern.compiled.isAbsent()) {
+                    absentHeaderKeys.add(header.getKey());
+                } else {
+                    anyPresentHeaders = true;
+                }
+            }
+        }
+        requiredAbsentHeaderKeys = absentHeaderKeys.build();
+        headerPatterns = headers.build();
+        someHeadersAreRequiredToBePresent = anyPresentHeaders;
+
+        if (requestPattern.getBodyPatterns() != null) {
+            ImmutableList.Builder<CompiledValuePattern> bodies = ImmutableList.builder();
+            for (ValuePattern bodyPattern: requestPattern.getBodyPatterns()) {
+                bodies.add(bodyPattern.compile());
+            }
+            bodyPatterns = bodies.build();
+        } else {
+            bodyPatterns = null;
+        }
+    }
+
+    public boolean isMatchedBy(Request request) {
+        return isMatchedBy(request, ParsedBody.of(request));
+    }
+
+    /**
+     * Matches the request, sharing parsed forms of its body with any other patterns given the same {@link ParsedBody}.
+     */
+    public boolean isMatchedBy(Request request, ParsedBody body) {
+        return (urlIsMatch(request) &&
+                methodMatches(request) &&
+                requiredAbsentHeadersAreNotPresentIn(request) &&
+                headersMatch(request) &&
+                bodyMatches(request, body));
+    }
+
+    private boolean urlIsMatch(Request request) {
+        String candidateUrl = request.getUrl();
+        if (urlPattern == null) {
+            return url.equals(candidateUrl);
+        }
+
+        return urlPattern.matcher(candidateUrl).matches();
+    }
+
+    private boolean methodMatches(Request request) {
+        boolean matched = method == ANY || request.getMethod() == method;
+        if (!matched) {
+            notifier().debug(String.format("URL %s is match, but method %s is not", request.getUrl(), request.getMethod()));
+        }
+
+        return matched;
+    }
+
+    private boolean requiredAbsentHeadersAreNotPresentIn(Request request) {
+        if (requiredAbsentHeaderKeys.isEmpty()) {
+            return true;
+        }
+
+        for (String key: requiredAbsentHeaderKeys) {
+            if (request.getAllHeaderKeys().contains(key)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean headersMatch(Request request) {
+        if (!someHeadersAreRequiredToBePresent) {
+            return true;
+        }
+
+        for (HeaderPattern headerPattern: headerPatterns) {
+            if (!headerPattern.isMatchedBy(request)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean bodyMatches(Request request, ParsedBody body) {
+        if (bodyPatterns == null) {
+            return true;
+        }
+
+        for (CompiledValuePattern bodyPattern: bodyPatterns) {
+            if (!bodyPattern.isMatchFor(body)) {
+                notifier().debug(String.format("URL %s is match, but body is not: %s", request.getUrl(), body.asString()));
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static class HeaderPattern {
+        private final String key;
+        private final ValuePattern valuePattern;
+        private final CompiledValuePattern compiled;
+
+        HeaderPattern(String key, ValuePattern valuePattern) {
+            this.key = key;
+            this.valuePattern = valuePattern;
+            this.compiled = valuePattern.compile();
+        }
+
+        boolean isMatchedBy(Request request) {
+            HttpHeader header = request.header(key);
+            boolean match = header.hasValueMatching(compiled);
+
+            if (!match) {
+                notifier().info(String.format(
+                        "URL %s is match, but header %s is not. For a match, value should %s",
+                        request.getUrl(),
+                        key,
+                        valuePattern.toString()));
+            }
+
+            return match;
+        }
+    }
+}
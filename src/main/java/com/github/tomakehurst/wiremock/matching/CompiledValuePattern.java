@@ -0,0 +1,427 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.matching;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.jayway.jsonpath.JsonPath;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.custommonkey.xmlunit.Diff;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.json.JSONException;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.regex.Pattern.DOTALL;
+import static org.skyscreamer.jsonassert.JSONCompare.compareJSON;
+import static org.skyscreamer.jsonassert.JSONCompareMode.NON_EXTENSIBLE;
+
+/**
+ * An immutable, ready to evaluate form of a {@link ValuePattern}. Regexes, expected JSON documents and
+ * JSON path expressions are compiled once up front rather than on every match attempt. XML control documents
+ * and XPath expressions aren't thread safe, so are held in a bounded cache per thread shared by all patterns.
+ */
+public abstract class CompiledValuePattern {
+
+    static CompiledValuePattern compile(ValuePattern valuePattern) {
+        if (valuePattern.isAbsent() != null) {
+            return new AbsentPattern(valuePattern.isAbsent());
+        } else if (valuePattern.getEqualToJson() != null) {
+            return new EqualToJsonPattern(valuePattern.getEqualToJson(), Optional.fromNullable(valuePattern.getJsonCompareMode()).or(NON_EXTENSIBLE));
+        } else if (valuePattern.getEqualToXml() != null) {
+            return new EqualToXmlPattern(valuePattern.getEqualToXml());
+        } else if (valuePattern.getMatchesXPath() != null) {
+            return new XPathPattern(valuePattern.getMatchesXPath());
+        } else if (valuePattern.getEqualTo() != null) {
+            return new EqualToPattern(valuePattern.getEqualTo());
+        } else if (valuePattern.getContains() != null) {
+            return new ContainsPattern(valuePattern.getContains());
+        } else if (valuePattern.getMatches() != null) {
+            return new RegexPattern(valuePattern.getMatches(), true);
+        } else if (valuePattern.getDoesNotMatch() != null) {
+            return new RegexPattern(valuePattern.getDoesNotMatch(), false);
+        } else if (valuePattern.getMatchesJsonPath() != null) {
+            return new JsonPathPattern(valuePattern.getMatchesJsonPath());
+        }
+
+        throw new IllegalStateException("One match type must be specified");
+    }
+
+    public abstract boolean isMatchFor(String value);
+
+    /**
+     * Matches against a request body, reusing any representation of it already parsed for another pattern.
+     */
+    public boolean isMatchFor(ParsedBody body) {
+        return isMatchFor(body.asString());
+    }
+
+    public boolean isAbsent() {
+        return false;
+    }
+
+    private static class AbsentPattern extends CompiledValuePattern {
+        private final boolean absent;
+
+        AbsentPattern(boolean absent) {
+            this.absent = absent;
+        }
+
+        @Override
+        public boolean isMatchFor(String value) {
+            return absent && value == null;
+        }
+
+        @Override
+        public boolean isAbsent() {
+            return absent;
+        }
+    }
+
+    private static class EqualToPattern extends CompiledValuePattern {
+        private final String expected;
+
+        EqualToPattern(String expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        public boolean isMatchFor(String value) {
+            return value.equals(expected);
+        }
+    }
+
+    private static class ContainsPattern extends CompiledValuePattern {
+        private final String expected;
+
+        ContainsPattern(String expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        public boolean isMatchFor(String value) {
+            return value.contains(expected);
+        }
+    }
+
+    private static class RegexPattern extends CompiledValuePattern {
+        private final Pattern pattern;
+        private final boolean shouldMatch;
+
+        RegexPattern(String regex, boolean shouldMatch) {
+            this.pattern = Pattern.compile(regex, DOTALL);
+            this.shouldMatch = shouldMatch;
+        }
+
+        @Override
+        public boolean isMatchFor(String value) {
+            return pattern.matcher(value).matches() == shouldMatch;
+        }
+    }
+
+    private static class EqualToJsonPattern extends CompiledValuePattern {
+        private final Object expected;
+        private final JSONCompareMode compareMode;
+
+        EqualToJsonPattern(String expectedJson, JSONCompareMode compareMode) {
+            this.expected = ParsedBody.of(expectedJson).asJson();
+            this.compareMode = compareMode;
+        }
+
+        @Override
+        public boolean isMatchFor(String value) {
+            return isMatchFor(ParsedBody.of(value));
+        }
+
+        @Override
+        public boolean isMatchFor(ParsedBody body) {
+            Object actual = body.asJson();
+            try {
+                if (expected instanceof org.json.JSONObject && actual instanceof org.json.JSONObject) {
+                    return compareJSON((org.json.JSONObject) expected, (org.json.JSONObject) actual, compareMode).passed();
+                } else if (expected instanceof org.json.JSONArray && actual instanceof org.json.JSONArray) {
+                    return compareJSON((org.json.JSONArray) expected, (org.json.JSONArray) actual, compareMode).passed();
+                }
+            } catch (JSONException e) {
+                return false;
+            }
+
+            return false;
+        }
+    }
+
+    private static class EqualToXmlPattern extends CompiledValuePattern {
+        private final String expectedXml;
+
+        EqualToXmlPattern(String expectedXml) {
+            this.expectedXml = expectedXml;
+        }
+
+        @Override
+        public boolean isMatchFor(String value) {
+            return isMatchFor(ParsedBody.of(value));
+        }
+
+        @Override
+        public boolean isMatchFor(ParsedBody body) {
+            try {
+                Document control = XmlCache.forThisThread().controlDocument(expectedXml);
+                Diff diff = XMLUnit.compareXML(control, body.asXml());
+                return diff.similar();
+            } catch (SAXException e) {
+                return false;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    private static class XPathPattern extends CompiledValuePattern {
+        private final String xpath;
+
+        XPathPattern(String xpath) {
+            this.xpath = xpath;
+        }
+
+        @Override
+        public boolean isMatchFor(String value) {
+            return isMatchFor(ParsedBody.of(value));
+        }
+
+        @Override
+        public boolean isMatchFor(ParsedBody body) {
+            try {
+                Document inDocument = body.asXml();
+                XPathExpression compiledXPath = XmlCache.forThisThread().xpathExpression(xpath);
+                NodeList nodeList = (NodeList) compiledXPath.evaluate(inDocument, XPathConstants.NODESET);
+                return nodeList.getLength() > 0;
+            } catch (SAXException e) {
+                notifier().info(String.format(
+                        "Warning: failed to parse the XML document. Reason: %s\nXML: %s", e.getMessage(), body.asString()));
+                return false;
+            } catch (IOException e) {
+                notifier().info(e.getMessage());
+                return false;
+            } catch (XPathExpressionException e) {
+                notifier().info("Warning: failed to evaluate the XPath expression " + xpath);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * XML control documents and XPath expressions aren't thread safe, so each thread keeps its own, shared
+     * by every pattern and bounded in size so that memory doesn't grow with stubs times threads. XPath
+     * expressions are compiled with the namespace context and factory configured on XMLUnit, as they
+     * were when XMLUnit evaluated them, and are recompiled should that configuration change.
+     */
+    private static class XmlCache {
+        private static final int MAX_ENTRIES_PER_THREAD = 256;
+
+        private static final ThreadLocal<XmlCache> CACHES = new ThreadLocal<XmlCache>() {
+            @Override
+            protected XmlCache initialValue() {
+                return new XmlCache();
+            }
+        };
+
+        private final Map<String, Document> controlDocuments = new BoundedMap<Document>();
+        private final Map<String, XPathExpression> xpathExpressions = new BoundedMap<XPathExpression>();
+        private org.custommonkey.xmlunit.NamespaceContext namespaceContext;
+        private String xpathFactoryClassName;
+        private XPath xpath;
+
+        static XmlCache forThisThread() {
+            return CACHES.get();
+        }
+
+        Document controlDocument(String xml) throws SAXException, IOException {
+            Document document = controlDocuments.get(xml);
+            if (document == null) {
+                document = XMLUnit.buildControlDocument(xml);
+                controlDocuments.put(xml, document);
+            }
+
+            return document;
+        }
+
+        XPathExpression xpathExpression(String expression) throws XPathExpressionException {
+            if (xpath == null ||
+                    namespaceContext != XMLUnit.getXpathNamespaceContext() ||
+                    !Objects.equal(xpathFactoryClassName, XMLUnit.getXPathFactory())) {
+                resetXPath();
+            }
+
+            XPathExpression compiled = xpathExpressions.get(expression);
+            if (compiled == null) {
+                compiled = xpath.compile(expression);
+                xpathExpressions.put(expression, compiled);
+            }
+
+            return compiled;
+        }
+
+        private void resetXPath() {
+            namespaceContext = XMLUnit.getXpathNamespaceContext();
+            xpathFactoryClassName = XMLUnit.getXPathFactory();
+            XPathFactory factory = xpathFactoryClassName != null ?
+                    newXPathFactory(xpathFactoryClassName) :
+                    XPathFactory.newInstance();
+            xpath = factory.newXPath();
+            if (namespaceContext != null) {
+                xpath.setNamespaceContext(new JaxpNamespaceContext(namespaceContext));
+            }
+            xpathExpressions.clear();
+        }
+
+        private static XPathFactory newXPathFactory(String className) {
+            try {
+                return (XPathFactory) Class.forName(className).newInstance();
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to create XPath factory " + className, e);
+            }
+        }
+
+        private static class BoundedMap<V> extends LinkedHashMap<String, V> {
+            private static final long serialVersionUID = 6409273381276404873L;
+
+            BoundedMap() {
+                super(16, 0.75f, true);
+            }
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > MAX_ENTRIES_PER_THREAD;
+            }
+        }
+    }
+
+    private static class JaxpNamespaceContext implements NamespaceContext {
+        private final org.custommonkey.xmlunit.NamespaceContext namespaceContext;
+
+        JaxpNamespaceContext(org.custommonkey.xmlunit.NamespaceContext namespaceContext) {
+            this.namespaceContext = namespaceContext;
+        }
+
+        @Override
+        public String getNamespaceURI(String prefix) {
+            String uri = namespaceContext.getNamespaceURI(prefix);
+            return uri != null ? uri : XMLConstants.NULL_NS_URI;
+        }
+
+        @Override
+        public String getPrefix(String namespaceURI) {
+            Iterator<?> prefixes = getPrefixes(namespaceURI);
+            return prefixes.hasNext() ? (String) prefixes.next() : null;
+        }
+
+        @Override
+        public Iterator<?> getPrefixes(String namespaceURI) {
+            List<String> matching = newArrayList();
+            for (Iterator<?> prefixes = namespaceContext.getPrefixes(); prefixes.hasNext();) {
+                String prefix = (String) prefixes.next();
+                if (namespaceURI.equals(namespaceContext.getNamespaceURI(prefix))) {
+                    matching.add(prefix);
+                }
+            }
+
+            return matching.iterator();
+        }
+    }
+
+    private static class JsonPathPattern extends CompiledValuePattern {
+        private final String path;
+        private final JsonPath jsonPath;
+        private final RuntimeException compilationError;
+
+        JsonPathPattern(String path) {
+            this.path = path;
+            JsonPath compiled = null;
+            RuntimeException error = null;
+            try {
+                compiled = JsonPath.compile(path);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            this.jsonPath = compiled;
+            this.compilationError = error;
+        }
+
+        @Override
+        public boolean isMatchFor(String value) {
+            return isMatchFor(ParsedBody.of(value));
+        }
+
+        @Override
+        public boolean isMatchFor(ParsedBody body) {
+            if (compilationError != null) {
+                return failedToMatch(body.asString(), compilationError);
+            }
+
+            try {
+                Object obj = jsonPath.read(body.asJsonPathDocument());
+                if (obj instanceof JSONArray) {
+                    return ((JSONArray) obj).size() > 0;
+                }
+
+                if (obj instanceof JSONObject) {
+                    return ((JSONObject) obj).size() > 0;
+                }
+
+                return obj != null;
+            } catch (Exception e) {
+                return failedToMatch(body.asString(), e);
+            }
+        }
+
+        private boolean failedToMatch(String value, Exception e) {
+            String error;
+            if (e.getMessage().equalsIgnoreCase("invalid path")) {
+                error = "the JSON path didn't match the document structure";
+            }
+            else if (e.getMessage().equalsIgnoreCase("invalid container object")) {
+                error = "the JSON document couldn't be parsed";
+            } else {
+                error = "of error '" + e.getMessage() + "'";
+            }
+
+            String message = String.format(
+                    "Warning: JSON path expression '%s' failed to match document '%s' because %s",
+                    path, value, error);
+            notifier().info(message);
+            return false;
+        }
+    }
+}
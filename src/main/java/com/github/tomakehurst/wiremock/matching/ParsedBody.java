@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.matching;
+
+import com.github.tomakehurst.wiremock.http.Request;
+import com.jayway.jsonpath.spi.JsonProviderFactory;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.json.JSONException;
+import org.skyscreamer.jsonassert.JSONParser;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+
+/**
+ * Lazily parsed representations of a request body, shared by every body pattern evaluated against the same
+ * request so that the body is parsed at most once per format (JSON tree, JSON path document and DOM).
+ * Parse failures are remembered too, so an unparseable body isn't retried by each pattern.
+ *
+ * Instances are scoped to a single request on a single thread and are not thread safe.
+ */
+public class ParsedBody {
+
+    private final Request request;
+    private String body;
+
+    private boolean jsonParsed;
+    private Object json;
+
+    private boolean jsonPathDocumentParsed;
+    private Object jsonPathDocument;
+    private RuntimeException jsonPathDocumentError;
+
+    private boolean xmlParsed;
+    private Document xml;
+    private SAXException xmlParseError;
+    private IOException xmlReadError;
+
+    private ParsedBody(Request request, String body) {
+        this.request = request;
+        this.body = body;
+    }
+
+    public static ParsedBody of(Request request) {
+        return new ParsedBody(request, null);
+    }
+
+    public static ParsedBody of(String body) {
+        return new ParsedBody(null, body);
+    }
+
+    public String asString() {
+        if (body == null && request != null) {
+            body = request.getBodyAsString();
+        }
+
+        return body;
+    }
+
+    /**
+     * @return The body as a JSONObject or JSONArray, or null if it isn't valid JSON
+     */
+    Object asJson() {
+        if (!jsonParsed) {
+            jsonParsed = true;
+            try {
+                json = JSONParser.parseJSON(asString());
+            } catch (JSONException e) {
+                json = null;
+            }
+        }
+
+        return json;
+    }
+
+    Object asJsonPathDocument() {
+        if (!jsonPathDocumentParsed) {
+            jsonPathDocumentParsed = true;
+            try {
+                String value = asString();
+                if (value == null || value.isEmpty()) {
+                    throw new IllegalArgumentException("json can not be null or empty");
+                }
+                jsonPathDocument = JsonProviderFactory.createProvider().parse(value);
+            } catch (RuntimeException e) {
+                jsonPathDocumentError = e;
+            }
+        }
+
+        if (jsonPathDocumentError != null) {
+            throw jsonPathDocumentError;
+        }
+
+        return jsonPathDocument;
+    }
+
+    Document asXml() throws SAXException, IOException {
+        if (!xmlParsed) {
+            xmlParsed = true;
+            try {
+                xml = XMLUnit.buildTestDocument(asString());
+            } catch (SAXException e) {
+                xmlParseError = e;
+            } catch (IOException e) {
+                xmlReadError = e;
+            }
+        }
+
+        if (xmlParseError != null) {
+            throw xmlParseError;
+        }
+        if (xmlReadError != null) {
+            throw xmlReadError;
+        }
+
+        return xml;
+    }
+}
@@ -18,21 +18,15 @@ package com.github.tomakehurst.wiremock.matching;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize.Inclusion;
 import com.github.tomakehurst.wiremock.common.Json;
-import com.github.tomakehurst.wiremock.http.HttpHeader;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.RequestMethod;
-import com.google.common.base.Function;
-import com.google.common.base.Predicate;
-import com.google.common.collect.ImmutableSet;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
-import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
-import static com.github.tomakehurst.wiremock.http.RequestMethod.ANY;
-import static com.github.tomakehurst.wiremock.matching.ValuePattern.matching;
-import static com.google.common.collect.Iterables.*;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
 import static com.google.common.collect.Maps.newLinkedHashMap;
 
 @JsonSerialize(include=Inclusion.NON_NULL)
@@ -43,6 +37,8 @@ public class RequestPattern {
 	private RequestMethod method;
 	private Map<String, ValuePattern> headerPatterns;
 	private List<ValuePattern> bodyPatterns;
+
+	private volatile CompiledRequestPattern compiled;
 	
 	public RequestPattern(RequestMethod method, String url, Map<String, ValuePattern> headerPatterns) {
 		this.url = url;
@@ -79,79 +75,24 @@ public class RequestPattern {
 	}
 	
 	public boolean isMatchedBy(Request request) {
-		return (urlIsMatch(request) &&
-				methodMatches(request) &&
-                requiredAbsentHeadersAreNotPresentIn(request) &&
-				headersMatch(request) &&
-				bodyMatches(request));
-	}
-	
-	private boolean urlIsMatch(Request request) {
-		String candidateUrl = request.getUrl();
-		boolean matched;
-		if (urlPattern == null) {
-			matched = url.equals(candidateUrl);
-		} else {
-			matched = candidateUrl.matches(urlPattern);
+		return compile().isMatchedBy(request);
+	}
+
+	/**
+	 * The compiled form is cached until one of this pattern's setters is next called. Header and body
+	 * patterns are compiled along with it, so a {@link ValuePattern} changed after being added to this
+	 * pattern is not seen until it is set again.
+	 *
+	 * @return A pre-compiled form of this pattern, cached until the pattern is next modified.
+	 */
+	public CompiledRequestPattern compile() {
+		CompiledRequestPattern compiledPattern = compiled;
+		if (compiledPattern == null) {
+			compiledPattern = new CompiledRequestPattern(this);
+			compiled = compiledPattern;
 		}
-		
-		return matched;
-	}
-	
-	private boolean methodMatches(Request request) {
-        boolean matched = method == ANY || request.getMethod() == method;
-        if (!matched) {
-            notifier().debug(String.format("URL %s is match, but method %s is not", request.getUrl(), request.getMethod()));
-        }
-        
-        return matched;
-	}
-
-    private boolean requiredAbsentHeadersAreNotPresentIn(final Request request) {
-        return !any(requiredAbsentHeaderKeys(), new Predicate<String>() {
-            public boolean apply(String key) {
-                return request.getAllHeaderKeys().contains(key);
-            }
-        });
-    }
-
-    private Set<String> requiredAbsentHeaderKeys() {
-        if (headerPatterns == null) {
-            return ImmutableSet.of();
-        }
 
-        return ImmutableSet.copyOf(filter(transform(headerPatterns.entrySet(), TO_KEYS_WHERE_VALUE_ABSENT), REMOVING_NULL));
-    }
-	
-	private boolean headersMatch(final Request request) {
-        return noHeadersAreRequiredToBePresent() ||
-                all(headerPatterns.entrySet(), matchHeadersIn(request));
-	}
-
-    private boolean noHeadersAreRequiredToBePresent() {
-        return headerPatterns == null || allHeaderPatternsSpecifyAbsent();
-    }
-
-    private boolean allHeaderPatternsSpecifyAbsent() {
-        return size(filter(headerPatterns.values(), new Predicate<ValuePattern>() {
-            public boolean apply(ValuePattern headerPattern) {
-                return !headerPattern.nullSafeIsAbsent();
-            }
-        })) == 0;
-    }
-
-    private boolean bodyMatches(Request request) {
-		if (bodyPatterns == null) {
-			return true;
-		}
-		
-        boolean matches = all(bodyPatterns, matching(request.getBodyAsString()));
-        
-        if (!matches) {
-            notifier().debug(String.format("URL %s is match, but body is not: %s", request.getUrl(), request.getBodyAsString()));
-        }
-        
-        return matches;
+		return compiledPattern;
 	}
 	
 	public String getUrlPattern() {
@@ -160,6 +101,7 @@ public class RequestPattern {
 
 	public void setUrlPattern(String urlPattern) {
 		this.urlPattern = urlPattern;
+		compiled = null;
 		assertIsInValidState();
 	}
 	
@@ -169,10 +111,11 @@ public class RequestPattern {
 
 	public void setMethod(RequestMethod method) {
 		this.method = method;
+		compiled = null;
 	}
 
 	public Map<String, ValuePattern> getHeaders() {
-		return headerPatterns;
+		return headerPatterns != null ? unmodifiableMap(headerPatterns) : null;
 	}
 	
 	public void addHeader(String key, ValuePattern pattern) {
@@ -181,10 +124,12 @@ public class RequestPattern {
 		}
 		
 		headerPatterns.put(key, pattern);
+		compiled = null;
 	}
 	
 	public void setHeaders(Map<String, ValuePattern> headers) {
 		this.headerPatterns = headers;
+		compiled = null;
 	}
 
 	public String getUrl() {
@@ -193,15 +138,17 @@ public class RequestPattern {
 
 	public void setUrl(String url) {
 		this.url = url;
+		compiled = null;
 		assertIsInValidState();
 	}
 	
 	public List<ValuePattern> getBodyPatterns() {
-		return bodyPatterns;
+		return bodyPatterns != null ? unmodifiableList(bodyPatterns) : null;
 	}
 
 	public void setBodyPatterns(List<ValuePattern> bodyPatterns) {
 		this.bodyPatterns = bodyPatterns;
+		compiled = null;
 	}
 
 	@Override
@@ -268,38 +215,4 @@ public class RequestPattern {
 	public String toString() {
 		return Json.write(this);
 	}
-
-    private static final Function<Map.Entry<String,ValuePattern>,String> TO_KEYS_WHERE_VALUE_ABSENT = new Function<Map.Entry<String, ValuePattern>, String>() {
-        public String apply(Map.Entry<String, ValuePattern> input) {
-            return input.getValue().nullSafeIsAbsent() ? input.getKey() : null;
-        }
-    };
-
-    private static final Predicate<String> REMOVING_NULL = new Predicate<String>() {
-        public boolean apply(String input) {
-            return input != null;
-        }
-    };
-
-    private static final Predicate<Map.Entry<String, ValuePattern>> matchHeadersIn(final Request request) {
-        return new Predicate<Map.Entry<String, ValuePattern>>() {
-            public boolean apply(Map.Entry<String, ValuePattern> headerPattern) {
-                ValuePattern headerValuePattern = headerPattern.getValue();
-                String key = headerPattern.getKey();
-                HttpHeader header = request.header(key);
-
-                boolean match = header.hasValueMatching(headerValuePattern);
-
-                if (!match) {
-                    notifier().info(String.format(
-                            "URL %s is match, but header %s is not. For a match, value should %s",
-                            request.getUrl(),
-                            key,
-                            headerValuePattern.toString()));
-                }
-
-                return match;
-            }
-        };
-    }
 }
@@ -17,30 +17,9 @@ package com.github.tomakehurst.wiremock.matching;
 
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize.Inclusion;
-import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
-import com.jayway.jsonpath.JsonPath;
-import net.minidev.json.JSONArray;
-import net.minidev.json.JSONObject;
-
-import java.io.IOException;
-import java.util.regex.Pattern;
-
-import org.custommonkey.xmlunit.Diff;
 import org.custommonkey.xmlunit.XMLUnit;
-import org.custommonkey.xmlunit.XpathEngine;
-import org.custommonkey.xmlunit.exceptions.XpathException;
-import org.json.JSONException;
 import org.skyscreamer.jsonassert.JSONCompareMode;
-import org.skyscreamer.jsonassert.JSONCompareResult;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
-import static java.util.regex.Pattern.DOTALL;
-import static org.skyscreamer.jsonassert.JSONCompare.compareJSON;
-import static org.skyscreamer.jsonassert.JSONCompareMode.NON_EXTENSIBLE;
 
 @JsonSerialize(include=Inclusion.NON_NULL)
 public class ValuePattern {
@@ -60,6 +39,8 @@ public class ValuePattern {
     private Boolean absent;
     private String matchesJsonPath;
 
+    private volatile CompiledValuePattern compiled;
+
     public static ValuePattern equalTo(String value) {
 		ValuePattern valuePattern = new ValuePattern();
 		valuePattern.setEqualTo(value);
@@ -110,29 +91,25 @@ public class ValuePattern {
     }
 	
 	public boolean isMatchFor(String value) {
-		checkOneMatchTypeSpecified();
+		return compile().isMatchFor(value);
+	}
 
-        if (absent != null) {
-            return (absent && value == null);
-        } else if (equalToJson != null) {
-            return isEqualJson(value);
-        } else if (equalToXml != null) {
-            return isEqualXml(value);
-        } else if (matchesXPath != null) {
-            return isXPathMatch(value);
-        } else if (equalTo != null) {
-			return value.equals(equalTo);
-		} else if (contains != null) {
-			return value.contains(contains);
-		} else if (matches != null) {
-			return isMatch(matches, value);
-		} else if (doesNotMatch != null) {
-			return !isMatch(doesNotMatch, value);
-		} else if (matchesJsonPath != null) {
-            return isJsonPathMatch(value);
-        }
-		
-		return false;
+	/**
+	 * The compiled form is cached until one of this pattern's setters is next called. A
+	 * {@link RequestPattern} holding this pattern keeps its own compiled copy, so changes made
+	 * here after that pattern was compiled are not seen by it.
+	 *
+	 * @return A pre-compiled form of this pattern, cached until the pattern is next modified.
+	 */
+	public CompiledValuePattern compile() {
+		CompiledValuePattern compiledPattern = compiled;
+		if (compiledPattern == null) {
+			checkOneMatchTypeSpecified();
+			compiledPattern = CompiledValuePattern.compile(this);
+			compiled = compiledPattern;
+		}
+
+		return compiledPattern;
 	}
 	
 	public static Predicate<ValuePattern> matching(final String value) {
@@ -143,83 +120,6 @@ public class ValuePattern {
 		};
 	}
 	
-    private boolean isEqualJson(String value) {
-        JSONCompareResult result;
-        try {
-            result = compareJSON(equalToJson, value, Optional.fromNullable(jsonCompareMode).or(NON_EXTENSIBLE));
-        } catch (JSONException e) {
-            return false;
-        }
-        return result.passed();
-    }
-
-    private boolean isEqualXml(String value) {
-        try {
-            Diff diff = XMLUnit.compareXML(equalToXml, value);
-            return diff.similar();
-        } catch (SAXException e) {
-            return false;
-        } catch (IOException e) {
-            return false;
-        }
-    }
-
-    private boolean isXPathMatch(String value) {
-        try {
-            Document inDocument = XMLUnit.buildControlDocument(value);
-            XpathEngine simpleXpathEngine = XMLUnit.newXpathEngine();
-            NodeList nodeList = simpleXpathEngine.getMatchingNodes(
-                    matchesXPath, inDocument);
-            return nodeList.getLength() > 0;
-        } catch (SAXException e) {
-            notifier().info(String.format(
-                    "Warning: failed to parse the XML document. Reason: %s\nXML: %s", e.getMessage(), value));
-            return false;
-        } catch (IOException e) {
-            notifier().info(e.getMessage());
-            return false;
-        } catch (XpathException e) {
-            notifier().info("Warning: failed to evaluate the XPath expression " + matchesXPath);
-            return false;
-        }
-    }
-	
-	private boolean isMatch(String regex, String value) {
-		Pattern pattern = Pattern.compile(regex, DOTALL);
-		return pattern.matcher(value).matches();
-	}
-
-    private boolean isJsonPathMatch(String value) {
-        try {
-            Object obj = JsonPath.read(value, matchesJsonPath);
-            if (obj instanceof JSONArray) {
-                return ((JSONArray) obj).size() > 0;
-            }
-
-            if (obj instanceof JSONObject) {
-                return ((JSONObject) obj).size() > 0;
-            }
-
-            return obj != null;
-        } catch (Exception e) {
-            String error;
-            if (e.getMessage().equalsIgnoreCase("invalid path")) {
-                error = "the JSON path didn't match the document structure";
-            }
-            else if (e.getMessage().equalsIgnoreCase("invalid container object")) {
-                error = "the JSON document couldn't be parsed";
-            } else {
-                error = "of error '" + e.getMessage() + "'";
-            }
-
-            String message = String.format(
-                    "Warning: JSON path expression '%s' failed to match document '%s' because %s",
-                    matchesJsonPath, value, error);
-            notifier().info(message);
-            return false;
-        }
-    }
-	
 	private void checkNoMoreThanOneMatchTypeSpecified() {
 		if (countAllAttributes() > 1) {
 			throw new IllegalStateException("Only one type of match may be specified");
@@ -249,46 +149,55 @@ public class ValuePattern {
 	
 	public void setEqualTo(String equalTo) {
 		this.equalTo = equalTo;
+		compiled = null;
 		checkNoMoreThanOneMatchTypeSpecified();
 	}
 	
     public void setEqualToJson(String equalToJson) {
         this.equalToJson = equalToJson;
+        compiled = null;
         checkNoMoreThanOneMatchTypeSpecified();
     }
 
     public void setEqualToXml(String equalToXml) {
         this.equalToXml = equalToXml;
+        compiled = null;
         checkNoMoreThanOneMatchTypeSpecified();
     }
 
     public void setMatchesXPath(String matchesXPath) {
         this.matchesXPath = matchesXPath;
+        compiled = null;
         checkNoMoreThanOneMatchTypeSpecified();
     }
     
 	public void setContains(String contains) {
 		this.contains = contains;
+		compiled = null;
 		checkNoMoreThanOneMatchTypeSpecified();
 	}
 	
 	public void setMatches(String matches) {
 		this.matches = matches;
+		compiled = null;
 		checkNoMoreThanOneMatchTypeSpecified();
 	}
 
 	public void setDoesNotMatch(String doesNotMatch) {
 		this.doesNotMatch = doesNotMatch;
+		compiled = null;
 		checkNoMoreThanOneMatchTypeSpecified();
 	}
 
     public void setAbsent(Boolean absent) {
         this.absent = absent;
+        compiled = null;
         checkNoMoreThanOneMatchTypeSpecified();
     }
 
     public void setMatchesJsonPaths(String matchesJsonPath) {
         this.matchesJsonPath = matchesJsonPath;
+        compiled = null;
         checkNoMoreThanOneMatchTypeSpecified();
     }
 
@@ -314,6 +223,7 @@ public class ValuePattern {
 
     public void setJsonCompareMode(JSONCompareMode jsonCompareMode) {
         this.jsonCompareMode = jsonCompareMode;
+        compiled = null;
     }
 
     public String getContains() {
@@ -21,6 +21,8 @@ import com.github.tomakehurst.wiremock.core.WireMockApp;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.RequestHandler;
 import com.github.tomakehurst.wiremock.http.Response;
+import org.mortbay.util.ajax.Continuation;
+import org.mortbay.util.ajax.ContinuationSupport;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletConfig;
@@ -33,6 +35,7 @@ import java.io.IOException;
 
 import static com.github.tomakehurst.wiremock.http.RequestMethod.GET;
 import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 import static java.net.URLDecoder.decode;
 
@@ -41,6 +44,10 @@ public class HandlerDispatchingServlet extends HttpServlet {
 	public static final String SHOULD_FORWARD_TO_FILES_CONTEXT = "shouldForwardToFilesContext";
 	public static final String MAPPED_UNDER_KEY = "mappedUnder";
 
+	private static final String DELAYED_RESPONSE_KEY = HandlerDispatchingServlet.class.getName() + ".delayedResponse";
+	private static final String DEFERRED_RESPONSE_KEY = HandlerDispatchingServlet.class.getName() + ".deferredResponse";
+	private static final long DEFERRED_RESPONSE_POLL_MILLISECONDS = 1000;
+
 	private static final long serialVersionUID = -6602042274260495538L;
 	
 	private RequestHandler requestHandler;
@@ -89,12 +96,28 @@ public class HandlerDispatchingServlet extends HttpServlet {
 	@Override
 	protected void service(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) throws ServletException, IOException {
 		LocalNotifier.set(notifier);
+
+		Response delayedResponse = (Response) httpServletRequest.getAttribute(DELAYED_RESPONSE_KEY);
+		if (delayedResponse != null) {
+			delayedResponse.applyTo(httpServletResponse);
+			return;
+		}
+
+		Response deferredResponse = (Response) httpServletRequest.getAttribute(DEFERRED_RESPONSE_KEY);
+		if (deferredResponse != null) {
+			applyResolved(httpServletRequest, httpServletResponse, deferredResponse);
+			return;
+		}
 		
 		Request request = new HttpServletRequestAdapter(httpServletRequest, mappedUnder);
         notifier.debug("Received request: " + httpServletRequest.toString());
 
 		Response response = requestHandler.handle(request);
-		if (response.wasConfigured()) {
+		if (response.isDeferred()) {
+			resumeWhenResolved(httpServletRequest, response);
+			applyResolved(httpServletRequest, httpServletResponse, response);
+		} else if (response.wasConfigured()) {
+		    delayIfRequired(httpServletRequest, response);
 		    response.applyTo(httpServletResponse);
 		} else if (request.getMethod() == GET && shouldForwardToFilesContext) {
 		    forwardToFilesContext(httpServletRequest, httpServletResponse, request);
@@ -103,6 +126,49 @@ public class HandlerDispatchingServlet extends HttpServlet {
 		}
 	}
 
+	/**
+	 * Suspends the request for the response's delay. Jetty's select channel connector frees the worker thread
+	 * and re-dispatches the request when the continuation expires, which is picked up from the request attribute
+	 * at the top of service(). Blocking connectors simply wait on the continuation.
+	 */
+	private void delayIfRequired(HttpServletRequest httpServletRequest, Response response) {
+		if (response.isDelayed()) {
+			httpServletRequest.setAttribute(DELAYED_RESPONSE_KEY, response);
+			Continuation continuation = ContinuationSupport.getContinuation(httpServletRequest, null);
+			continuation.suspend(response.getDelayMilliseconds());
+			httpServletRequest.removeAttribute(DELAYED_RESPONSE_KEY);
+		}
+	}
+
+	private void resumeWhenResolved(HttpServletRequest httpServletRequest, Response response) {
+		httpServletRequest.setAttribute(DEFERRED_RESPONSE_KEY, response);
+		final Continuation continuation = ContinuationSupport.getContinuation(httpServletRequest, null);
+		response.getDeferred().addListener(new Runnable() {
+			public void run() {
+				continuation.resume();
+			}
+		}, sameThreadExecutor());
+	}
+
+	/**
+	 * Suspends the request until a deferred response is resolved. On the select channel connector each
+	 * suspend either returns the outcome of the previous one (on re-dispatch) or frees the thread, so this
+	 * is re-entered from the top of service() until the response is ready. The poll covers a resume that
+	 * arrives just before the request is suspended.
+	 */
+	private void applyResolved(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, Response response) {
+		Continuation continuation = ContinuationSupport.getContinuation(httpServletRequest, null);
+		while (!response.getDeferred().isDone()) {
+			continuation.suspend(DEFERRED_RESPONSE_POLL_MILLISECONDS);
+		}
+
+		continuation.reset();
+		httpServletRequest.removeAttribute(DEFERRED_RESPONSE_KEY);
+		Response resolved = response.resolve();
+		delayIfRequired(httpServletRequest, resolved);
+		resolved.applyTo(httpServletResponse);
+	}
+
     private void forwardToFilesContext(HttpServletRequest httpServletRequest,
             HttpServletResponse httpServletResponse, Request request) throws ServletException, IOException {
         String forwardUrl = wiremockFileSourceRoot + WireMockApp.FILES_ROOT + request.getUrl();
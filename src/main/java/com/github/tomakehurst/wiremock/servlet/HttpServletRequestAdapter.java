@@ -23,22 +23,26 @@ import com.google.common.io.CharStreams;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.io.ByteStreams.toByteArray;
 import static java.util.Collections.list;
 
 public class HttpServletRequestAdapter implements Request {
 	
 	private final HttpServletRequest request;
-	private String cachedBody;
+	private byte[] cachedBody;
+	private String cachedBodyString;
 	private String urlPrefixToRemove;
+	private Map<String, HttpHeader> headersByLowerCaseKey;
+	private HttpHeaders cachedHeaders;
 
 	public HttpServletRequestAdapter(HttpServletRequest request) {
 		this.request = request;
@@ -79,43 +83,41 @@ public class HttpServletRequestAdapter implements Request {
 	}
 
 	@Override
-	public String getBodyAsString() {
+	public byte[] getBody() {
 		if (cachedBody == null) {
 			try {
-                cachedBody = new String(toByteArray(request.getInputStream()), UTF_8);
+                cachedBody = toByteArray(request.getInputStream());
 			} catch (IOException ioe) {
 				throw new RuntimeException(ioe);
 			}
 		}
-		
+
 		return cachedBody;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
-	public String getHeader(String key) {
-	    List<String> headerNames = list(request.getHeaderNames());
-		for (String currentKey: headerNames) {
-			if (currentKey.toLowerCase().equals(key.toLowerCase())) {
-				return request.getHeader(currentKey);
-			}
+	public String getBodyAsString() {
+		if (cachedBodyString == null) {
+			cachedBodyString = new String(getBody(), UTF_8);
 		}
 		
-		return null;
+		return cachedBodyString;
+	}
+
+	@Override
+	public String getHeader(String key) {
+		HttpHeader header = indexedHeader(key);
+		return header != null && header.isPresent() ? header.firstValue() : null;
 	}
 
     @Override
-    @SuppressWarnings("unchecked")
     public HttpHeader header(String key) {
-        List<String> headerNames = list(request.getHeaderNames());
-        for (String currentKey: headerNames) {
-            if (currentKey.toLowerCase().equals(key.toLowerCase())) {
-                List<String> valueList = list(request.getHeaders(currentKey));
-                return new HttpHeader(key, valueList);
-            }
+        HttpHeader header = indexedHeader(key);
+        if (header == null) {
+            return HttpHeader.absent(key);
         }
 
-        return HttpHeader.absent(key);
+        return header.key().equals(key) ? header : new HttpHeader(key, header.values());
     }
 
     @Override
@@ -130,25 +132,48 @@ public class HttpServletRequestAdapter implements Request {
 
     @Override
     public HttpHeaders getHeaders() {
-        List<HttpHeader> headerList = newArrayList();
-        for (String key: getAllHeaderKeys()) {
-            headerList.add(header(key));
+        if (cachedHeaders == null) {
+            cachedHeaders = new HttpHeaders(headerIndex().values());
         }
 
-        return new HttpHeaders(headerList);
+        return cachedHeaders;
     }
 
-    @SuppressWarnings("unchecked")
 	@Override
 	public Set<String> getAllHeaderKeys() {
-		LinkedHashSet<String> headerKeys = new LinkedHashSet<String>();
-		for (Enumeration<String> headerNames = request.getHeaderNames(); headerNames.hasMoreElements();) {
-			headerKeys.add(headerNames.nextElement());
+		Set<String> headerKeys = new LinkedHashSet<String>();
+		for (HttpHeader header: headerIndex().values()) {
+			headerKeys.add(header.key());
 		}
-		
+
 		return headerKeys;
 	}
 
+    private HttpHeader indexedHeader(String key) {
+        return headerIndex().get(key.toLowerCase());
+    }
+
+    /**
+     * Reads every header from the servlet request once, keyed by lower cased name, so that matching
+     * a request against many stubs doesn't enumerate and compare the header names each time.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, HttpHeader> headerIndex() {
+        if (headersByLowerCaseKey == null) {
+            Map<String, HttpHeader> index = new LinkedHashMap<String, HttpHeader>();
+            for (String key: list((Enumeration<String>) request.getHeaderNames())) {
+                String lowerCaseKey = key.toLowerCase();
+                if (!index.containsKey(lowerCaseKey)) {
+                    index.put(lowerCaseKey, new HttpHeader(key, list((Enumeration<String>) request.getHeaders(key))));
+                }
+            }
+
+            headersByLowerCaseKey = Collections.unmodifiableMap(index);
+        }
+
+        return headersByLowerCaseKey;
+    }
+
 	@Override
 	public boolean isBrowserProxyRequest() {
 		return ServletContainerUtils.isBrowserProxyRequest(request);
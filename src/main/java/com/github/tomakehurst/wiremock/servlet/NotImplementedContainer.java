@@ -16,10 +16,22 @@
 package com.github.tomakehurst.wiremock.servlet;
 
 import com.github.tomakehurst.wiremock.core.Container;
+import com.github.tomakehurst.wiremock.core.RecordingStats;
+import com.github.tomakehurst.wiremock.core.ThreadPoolStats;
 
 public class NotImplementedContainer implements Container {
     @Override
     public void shutdown() {
         throw new UnsupportedOperationException("Stopping the server is not supported");
     }
+
+    @Override
+    public ThreadPoolStats getThreadPoolStats() {
+        throw new UnsupportedOperationException("Thread pool stats are not available from a servlet container");
+    }
+
+    @Override
+    public RecordingStats getRecordingStats() {
+        throw new UnsupportedOperationException("Recording is not available from a servlet container");
+    }
 }
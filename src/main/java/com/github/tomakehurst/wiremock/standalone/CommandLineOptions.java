@@ -22,6 +22,7 @@ import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.BinaryFileCache;
 import com.github.tomakehurst.wiremock.common.FileSource;
 import com.github.tomakehurst.wiremock.common.HttpsSettings;
 import com.github.tomakehurst.wiremock.common.Log4jNotifier;
@@ -30,7 +31,10 @@ import com.github.tomakehurst.wiremock.common.ProxySettings;
 import com.github.tomakehurst.wiremock.common.SingleRootFileSource;
 import com.github.tomakehurst.wiremock.core.Options;
 import com.github.tomakehurst.wiremock.http.CaseInsensitiveKey;
+import com.github.tomakehurst.wiremock.http.ProxyResponseCache;
+import com.github.tomakehurst.wiremock.jetty.LoadSheddingThreadPool;
 import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
@@ -57,12 +61,30 @@ public class CommandLineOptions implements Options {
 	private static final String PORT = "port";
     private static final String BIND_ADDRESS = "bind-address";
     private static final String HTTPS_PORT = "https-port";
+    private static final String ADMIN_PORT = "admin-port";
     private static final String HTTPS_KEYSTORE = "https-keystore";
     private static final String VERBOSE = "verbose";
     private static final String DEBUG = "debug";
 	private static final String ENABLE_BROWSER_PROXYING = "enable-browser-proxying";
     private static final String DISABLE_REQUEST_JOURNAL = "no-request-journal";
+    private static final String MAX_REQUEST_JOURNAL_ENTRIES = "max-request-journal-entries";
+    private static final String MAX_REQUEST_JOURNAL_BYTES = "max-request-journal-bytes";
     private static final String ROOT_DIR = "root-dir";
+    private static final String BODY_FILE_CACHE_BYTES = "body-file-cache-bytes";
+    private static final String ASYNC_PROXY = "async-proxy";
+    private static final String COALESCE_PROXY_REQUESTS = "coalesce-proxy-requests";
+    private static final String PROXY_CACHE_BYTES = "proxy-cache-bytes";
+    private static final String PROXY_CACHE_ON_DISK = "proxy-cache-on-disk";
+    private static final String CONTENT_ADDRESSED_BODIES = "content-addressed-bodies";
+    private static final String PARALLEL_MAPPING_LOAD = "parallel-mapping-load";
+    private static final String MAPPINGS_SNAPSHOT = "mappings-snapshot";
+    private static final String WATCH_MAPPINGS = "watch-mappings";
+    private static final String NIO = "nio";
+    private static final String MIN_THREADS = "min-threads";
+    private static final String MAX_THREADS = "max-threads";
+    private static final String THREAD_IDLE_TIMEOUT = "thread-idle-timeout";
+    private static final String QUEUE_CAPACITY = "queue-capacity";
+    private static final String LOAD_SHEDDING_BODY = "load-shedding-body";
 
     private final OptionSet optionSet;
 	private String helpText;
@@ -71,6 +93,7 @@ public class CommandLineOptions implements Options {
 		OptionParser optionParser = new OptionParser();
 		optionParser.accepts(PORT, "The port number for the server to listen on").withRequiredArg();
         optionParser.accepts(HTTPS_PORT, "If this option is present WireMock will enable HTTPS on the specified port").withRequiredArg();
+        optionParser.accepts(ADMIN_PORT, "Serve the admin API on this port, with its own threads, instead of alongside the stubs").withRequiredArg();
         optionParser.accepts(BIND_ADDRESS, "The IP to listen connections").withRequiredArg();
         optionParser.accepts(HTTPS_KEYSTORE, "Path to an alternative keystore for HTTPS. Must have a password of \"password\".").withRequiredArg();
 		optionParser.accepts(PROXY_ALL, "Will create a proxy mapping for /* to the specified URL").withRequiredArg();
@@ -83,6 +106,23 @@ public class CommandLineOptions implements Options {
 		optionParser.accepts(ROOT_DIR, "Specifies path for storing recordings (parent for " + WireMockServer.MAPPINGS_ROOT + " and " + WireMockServer.FILES_ROOT + " folders)").withRequiredArg().defaultsTo(".");
 		optionParser.accepts(ENABLE_BROWSER_PROXYING, "Allow wiremock to be set as a browser's proxy server");
         optionParser.accepts(DISABLE_REQUEST_JOURNAL, "Disable the request journal (to avoid heap growth when running wiremock for long periods without reset)");
+        optionParser.accepts(MAX_REQUEST_JOURNAL_ENTRIES, "Maximum number of requests kept in the request journal, evicting the oldest first").withRequiredArg();
+        optionParser.accepts(MAX_REQUEST_JOURNAL_BYTES, "Approximate maximum size in bytes of the requests kept in the request journal, evicting the oldest first").withRequiredArg();
+        optionParser.accepts(BODY_FILE_CACHE_BYTES, "Maximum total size in bytes of " + WireMockServer.FILES_ROOT + " bodies held in memory (0 to disable caching)").withRequiredArg();
+        optionParser.accepts(ASYNC_PROXY, "Send proxied requests through a non-blocking client, so in-flight requests don't each hold a thread");
+        optionParser.accepts(MIN_THREADS, "Minimum number of request threads kept alive").withRequiredArg();
+        optionParser.accepts(MAX_THREADS, "Maximum number of request threads").withRequiredArg();
+        optionParser.accepts(THREAD_IDLE_TIMEOUT, "Milliseconds an idle request thread above the minimum is kept before stopping").withRequiredArg();
+        optionParser.accepts(QUEUE_CAPACITY, "Number of requests allowed to wait for a thread before new ones are turned away with a 503").withRequiredArg();
+        optionParser.accepts(LOAD_SHEDDING_BODY, "Body of the 503 response sent when the request queue is full").withRequiredArg();
+        optionParser.accepts(COALESCE_PROXY_REQUESTS, "Share one upstream call between concurrent identical proxied GET and HEAD requests, optionally also keyed on a comma separated list of request headers").withOptionalArg();
+        optionParser.accepts(PROXY_CACHE_BYTES, "Cache proxied GET responses as HTTP caching headers allow, holding up to this many bytes in memory").withRequiredArg();
+        optionParser.accepts(PROXY_CACHE_ON_DISK, "Also keep cached proxy responses under the root dir, so they survive a restart (implies caching)");
+        optionParser.accepts(CONTENT_ADDRESSED_BODIES, "Name recorded and saved body files after a hash of their content, so identical bodies are stored once");
+        optionParser.accepts(PARALLEL_MAPPING_LOAD, "Read and parse mapping files on all available cores at startup");
+        optionParser.accepts(MAPPINGS_SNAPSHOT, "Keep a snapshot of the " + WireMockServer.MAPPINGS_ROOT + " files under the root dir and load it at startup while they are unchanged");
+        optionParser.accepts(WATCH_MAPPINGS, "Apply changes to files under " + WireMockServer.MAPPINGS_ROOT + " as they are made, without a reset");
+        optionParser.accepts(NIO, "Serve HTTP and HTTPS with selector-based connectors, so idle keep-alive connections don't each hold a thread");
 		optionParser.accepts(HELP, "Print this message");
 		
 		optionSet = optionParser.parse(args);
@@ -98,6 +138,10 @@ public class CommandLineOptions implements Options {
         if (optionSet.has(RECORD_MAPPINGS) && optionSet.has(DISABLE_REQUEST_JOURNAL)) {
             throw new IllegalArgumentException("Request journal must be enabled to record stubs");
         }
+
+        if (minRequestThreads() > maxRequestThreads()) {
+            throw new IllegalArgumentException("Minimum request threads must not be more than the maximum");
+        }
     }
 
     private void captureHelpTextIfRequested(OptionParser optionParser) {
@@ -158,6 +202,15 @@ public class CommandLineOptions implements Options {
         return DEFAULT_BIND_ADDRESS;
     }
 
+    @Override
+    public Optional<Integer> adminPortNumber() {
+        if (optionSet.has(ADMIN_PORT)) {
+            return Optional.of(Integer.parseInt((String) optionSet.valueOf(ADMIN_PORT)));
+        }
+
+        return Optional.absent();
+    }
+
     @Override
     public HttpsSettings httpsSettings() {
         if (!optionSet.has(HTTPS_PORT)) {
@@ -232,6 +285,137 @@ public class CommandLineOptions implements Options {
         return optionSet.has(DISABLE_REQUEST_JOURNAL);
     }
 
+    @Override
+    public Optional<Integer> maxRequestJournalEntries() {
+        if (optionSet.has(MAX_REQUEST_JOURNAL_ENTRIES)) {
+            return Optional.of(Integer.parseInt((String) optionSet.valueOf(MAX_REQUEST_JOURNAL_ENTRIES)));
+        }
+
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<Long> maxRequestJournalBytes() {
+        if (optionSet.has(MAX_REQUEST_JOURNAL_BYTES)) {
+            return Optional.of(Long.parseLong((String) optionSet.valueOf(MAX_REQUEST_JOURNAL_BYTES)));
+        }
+
+        return Optional.absent();
+    }
+
+    @Override
+    public long bodyFileCacheMaxBytes() {
+        if (optionSet.has(BODY_FILE_CACHE_BYTES)) {
+            return Long.parseLong((String) optionSet.valueOf(BODY_FILE_CACHE_BYTES));
+        }
+
+        return BinaryFileCache.DEFAULT_MAX_BYTES;
+    }
+
+    @Override
+    public boolean asynchronousProxyingEnabled() {
+        return optionSet.has(ASYNC_PROXY);
+    }
+
+    @Override
+    public Optional<List<CaseInsensitiveKey>> proxyRequestCoalescingHeaders() {
+        if (!optionSet.has(COALESCE_PROXY_REQUESTS)) {
+            return Optional.absent();
+        }
+
+        if (optionSet.hasArgument(COALESCE_PROXY_REQUESTS)) {
+            String headerSpec = (String) optionSet.valueOf(COALESCE_PROXY_REQUESTS);
+            UnmodifiableIterator<String> headerKeys = Iterators.forArray(headerSpec.split(","));
+            return Optional.<List<CaseInsensitiveKey>>of(ImmutableList.copyOf(Iterators.transform(headerKeys, TO_CASE_INSENSITIVE_KEYS)));
+        }
+
+        return Optional.<List<CaseInsensitiveKey>>of(ImmutableList.<CaseInsensitiveKey>of());
+    }
+
+    @Override
+    public Optional<Long> proxyResponseCacheMaxBytes() {
+        if (optionSet.has(PROXY_CACHE_BYTES)) {
+            return Optional.of(Long.parseLong((String) optionSet.valueOf(PROXY_CACHE_BYTES)));
+        }
+
+        if (proxyResponseCacheOnDisk()) {
+            return Optional.of(ProxyResponseCache.DEFAULT_MAX_BYTES);
+        }
+
+        return Optional.absent();
+    }
+
+    @Override
+    public boolean proxyResponseCacheOnDisk() {
+        return optionSet.has(PROXY_CACHE_ON_DISK);
+    }
+
+    @Override
+    public boolean contentAddressedBodiesEnabled() {
+        return optionSet.has(CONTENT_ADDRESSED_BODIES);
+    }
+
+    @Override
+    public boolean parallelMappingLoadingEnabled() {
+        return optionSet.has(PARALLEL_MAPPING_LOAD);
+    }
+
+    @Override
+    public boolean mappingsSnapshotEnabled() {
+        return optionSet.has(MAPPINGS_SNAPSHOT);
+    }
+
+    @Override
+    public boolean mappingsWatchingEnabled() {
+        return optionSet.has(WATCH_MAPPINGS);
+    }
+
+    @Override
+    public boolean nonBlockingConnectorsEnabled() {
+        return optionSet.has(NIO);
+    }
+
+    @Override
+    public int minRequestThreads() {
+        return intOption(MIN_THREADS, LoadSheddingThreadPool.DEFAULT_MIN_THREADS);
+    }
+
+    @Override
+    public int maxRequestThreads() {
+        return intOption(MAX_THREADS, LoadSheddingThreadPool.DEFAULT_MAX_THREADS);
+    }
+
+    @Override
+    public int requestThreadIdleTimeoutMilliseconds() {
+        return intOption(THREAD_IDLE_TIMEOUT, LoadSheddingThreadPool.DEFAULT_IDLE_TIMEOUT_MILLISECONDS);
+    }
+
+    @Override
+    public Optional<Integer> requestQueueCapacity() {
+        if (optionSet.has(QUEUE_CAPACITY)) {
+            return Optional.of(Integer.parseInt((String) optionSet.valueOf(QUEUE_CAPACITY)));
+        }
+
+        return Optional.absent();
+    }
+
+    @Override
+    public String loadSheddingResponseBody() {
+        if (optionSet.has(LOAD_SHEDDING_BODY)) {
+            return (String) optionSet.valueOf(LOAD_SHEDDING_BODY);
+        }
+
+        return LoadSheddingThreadPool.DEFAULT_RESPONSE_BODY;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        if (optionSet.has(name)) {
+            return Integer.parseInt((String) optionSet.valueOf(name));
+        }
+
+        return defaultValue;
+    }
+
     @Override
     public String toString() {
         return Joiner.on(", ").withKeyValueSeparator("=").join(
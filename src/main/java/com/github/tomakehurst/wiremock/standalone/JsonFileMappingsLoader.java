@@ -18,25 +18,94 @@ package com.github.tomakehurst.wiremock.standalone;
 import com.github.tomakehurst.wiremock.common.FileSource;
 import com.github.tomakehurst.wiremock.common.TextFile;
 import com.github.tomakehurst.wiremock.stubbing.JsonStubMappingCreator;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
 import com.github.tomakehurst.wiremock.stubbing.StubMappings;
 import com.google.common.base.Predicate;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import static com.google.common.collect.Iterables.filter;
+import static com.google.common.collect.Lists.newArrayList;
 
 public class JsonFileMappingsLoader implements MappingsLoader {
 
+	private static final int FILES_PER_TASK = 64;
+
 	private final FileSource mappingsFileSource;
-	
-	public JsonFileMappingsLoader(FileSource mappingsFileSource) {
+	private final boolean parallel;
+
+	public JsonFileMappingsLoader(FileSource mappingsFileSource, boolean parallel) {
 		this.mappingsFileSource = mappingsFileSource;
+		this.parallel = parallel;
+	}
+
+	public JsonFileMappingsLoader(FileSource mappingsFileSource) {
+		this(mappingsFileSource, false);
 	}
 
 	@Override
 	public void loadMappingsInto(StubMappings stubMappings) {
 		JsonStubMappingCreator jsonStubMappingCreator = new JsonStubMappingCreator(stubMappings);
-		Iterable<TextFile> mappingFiles = filter(mappingsFileSource.listFilesRecursively(), byFileExtension("json"));
-		for (TextFile mappingFile: mappingFiles) {
-			jsonStubMappingCreator.addMappingFrom(mappingFile.readContentsAsString());
+		List<TextFile> mappingFiles = newArrayList(filter(mappingsFileSource.listFilesRecursively(), byFileExtension("json")));
+		if (!parallel) {
+			for (TextFile mappingFile: mappingFiles) {
+				jsonStubMappingCreator.addMapping(mappingFrom(mappingFile));
+			}
+			return;
+		}
+
+		StubMapping[] mappings = new StubMapping[mappingFiles.size()];
+		ForkJoinPool pool = new ForkJoinPool();
+		try {
+			pool.invoke(new ParseMappingFiles(mappingFiles, mappings, 0, mappings.length));
+		} finally {
+			pool.shutdown();
+		}
+
+		// Added in file order, so insertion indexes come out the same as a serial load
+		for (StubMapping mapping: mappings) {
+			jsonStubMappingCreator.addMapping(mapping);
+		}
+	}
+
+	public static StubMapping mappingFrom(TextFile mappingFile) {
+		StubMapping mapping = StubMapping.buildFrom(mappingFile.openStream());
+		mapping.setSourceFile(mappingFile.name());
+		return mapping;
+	}
+
+	/**
+	 * Reads and binds a range of mapping files, splitting the range until it's small enough to do directly.
+	 */
+	private static class ParseMappingFiles extends RecursiveAction {
+		private static final long serialVersionUID = -8346368323794342737L;
+
+		private final List<TextFile> files;
+		private final StubMapping[] results;
+		private final int from;
+		private final int to;
+
+		ParseMappingFiles(List<TextFile> files, StubMapping[] results, int from, int to) {
+			this.files = files;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= FILES_PER_TASK) {
+				for (int i = from; i < to; i++) {
+					results[i] = mappingFrom(files.get(i));
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new ParseMappingFiles(files, results, from, middle),
+					new ParseMappingFiles(files, results, middle, to));
 		}
 	}
 	
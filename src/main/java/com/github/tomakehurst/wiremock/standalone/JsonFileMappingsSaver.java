@@ -18,8 +18,10 @@ package com.github.tomakehurst.wiremock.standalone;
 import com.github.tomakehurst.wiremock.common.FileSource;
 import com.github.tomakehurst.wiremock.common.VeryShortIdGenerator;
 import com.github.tomakehurst.wiremock.core.MappingsSaver;
+import com.github.tomakehurst.wiremock.stubbing.ContentAddressedBodyStore;
 import com.github.tomakehurst.wiremock.stubbing.StubMapping;
 import com.github.tomakehurst.wiremock.stubbing.StubMappings;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 
 import java.util.Collection;
@@ -29,13 +31,19 @@ import static com.google.common.collect.Collections2.filter;
 
 public class JsonFileMappingsSaver implements MappingsSaver {
     private final FileSource mappingsFileSource;
+    private final Optional<ContentAddressedBodyStore> bodyStore;
     private final VeryShortIdGenerator idGenerator;
 
-    public JsonFileMappingsSaver(FileSource mappingsFileSource) {
+    public JsonFileMappingsSaver(FileSource mappingsFileSource, Optional<ContentAddressedBodyStore> bodyStore) {
         this.mappingsFileSource = mappingsFileSource;
+        this.bodyStore = bodyStore;
         idGenerator = new VeryShortIdGenerator();
     }
 
+    public JsonFileMappingsSaver(FileSource mappingsFileSource) {
+        this(mappingsFileSource, Optional.<ContentAddressedBodyStore>absent());
+    }
+
     public void saveMappings(StubMappings stubMappings) {
         Collection<StubMapping> transientStubs = filter(stubMappings.getAll(), new Predicate<StubMapping>() {
             public boolean apply(StubMapping input) {
@@ -46,8 +54,21 @@ public class JsonFileMappingsSaver implements MappingsSaver {
         for (StubMapping mapping : transientStubs) {
             String fileId = idGenerator.generate();
             String mappingFileName = "saved-mapping-" + fileId + ".json";
-            mappingsFileSource.writeTextFile(mappingFileName, write(mapping));
+            mapping.setSourceFile(mappingsFileSource.getBinaryFileNamed(mappingFileName).name());
+            stubMappings.addOrReplaceMappingFromSource(mapping);
+            mappingsFileSource.writeTextFile(mappingFileName, write(withBodyInFile(mapping)));
             mapping.setTransient(false);
         }
     }
+
+    private StubMapping withBodyInFile(StubMapping mapping) {
+        if (!bodyStore.isPresent() || !mapping.getResponse().specifiesBodyContent()) {
+            return mapping;
+        }
+
+        StubMapping copy = StubMapping.buildFrom(write(mapping));
+        copy.getResponse().setBodyFileName(bodyStore.get().store(mapping.getResponse().getByteBody(), mapping.getSourceFile()));
+        copy.getResponse().setBody((byte[]) null);
+        return copy;
+    }
 }
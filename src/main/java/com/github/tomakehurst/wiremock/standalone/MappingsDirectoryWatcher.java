@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.standalone;
+
+import com.github.tomakehurst.wiremock.common.Notifier;
+import com.github.tomakehurst.wiremock.common.TextFile;
+import com.github.tomakehurst.wiremock.stubbing.ContentAddressedBodyStore;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.github.tomakehurst.wiremock.stubbing.StubMappings;
+import com.google.common.base.Optional;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Watches a mappings directory and its subdirectories, applying each added, changed or deleted mapping
+ * file to the stub mappings as it happens rather than reloading the lot. A file that fails to parse
+ * leaves its previous mapping in place. When content-addressed bodies are in use, a deleted mapping file
+ * releases its body file, so the body goes once nothing else refers to it.
+ */
+public class MappingsDirectoryWatcher {
+
+    private static final long SETTLE_MILLISECONDS = 50;
+
+    private final File mappingsDirectory;
+    private final StubMappings stubMappings;
+    private final Optional<ContentAddressedBodyStore> bodyStore;
+    private final Notifier notifier;
+    private final Map<WatchKey, Path> watchedDirectories = newHashMap();
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public MappingsDirectoryWatcher(File mappingsDirectory, StubMappings stubMappings,
+                                    Optional<ContentAddressedBodyStore> bodyStore, Notifier notifier) {
+        this.mappingsDirectory = mappingsDirectory;
+        this.stubMappings = stubMappings;
+        this.bodyStore = bodyStore;
+        this.notifier = notifier;
+    }
+
+    public MappingsDirectoryWatcher(File mappingsDirectory, StubMappings stubMappings, Notifier notifier) {
+        this(mappingsDirectory, stubMappings, Optional.<ContentAddressedBodyStore>absent(), notifier);
+    }
+
+    public synchronized void start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerRecursively(mappingsDirectory);
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+
+        watcherThread = new Thread(new WatchLoop(), "wiremock-mappings-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        notifier.info("Watching " + mappingsDirectory + " for mapping changes");
+    }
+
+    public synchronized void stop() {
+        if (watcherThread == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+            watcherThread.join();
+        } catch (IOException ioe) {
+            notifier.error("Failed to close mappings watcher", ioe);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        watchedDirectories.clear();
+        watcherThread = null;
+    }
+
+    private void registerRecursively(File directory) throws IOException {
+        WatchKey key = directory.toPath().register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        watchedDirectories.put(key, directory.toPath());
+
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+
+        for (File child: children) {
+            if (child.isDirectory()) {
+                registerRecursively(child);
+            }
+        }
+    }
+
+    private void applyChanges(Map<File, Boolean> changedFiles) {
+        for (Map.Entry<File, Boolean> change: changedFiles.entrySet()) {
+            File file = change.getKey();
+            if (change.getValue() && file.isFile()) {
+                addOrReplace(file);
+            } else if (!file.exists()) {
+                remove(sourceNameOf(file));
+                notifier.info("Removed mapping loaded from " + file);
+            }
+        }
+    }
+
+    private void remove(String sourceFile) {
+        stubMappings.removeMappingFromSource(sourceFile);
+        if (bodyStore.isPresent()) {
+            bodyStore.get().releaseReferenceFrom(sourceFile);
+        }
+    }
+
+    private void addOrReplace(File file) {
+        try {
+            StubMapping mapping = JsonFileMappingsLoader.mappingFrom(new TextFile(file.toURI()));
+            mapping.setTransient(false);
+            stubMappings.addOrReplaceMappingFromSource(mapping);
+            updateBodyReference(mapping);
+            notifier.info("Loaded mapping from " + file);
+        } catch (RuntimeException e) {
+            notifier.error("Unable to load mapping from " + file + ", keeping the previous version", e);
+        }
+    }
+
+    private void updateBodyReference(StubMapping mapping) {
+        if (!bodyStore.isPresent()) {
+            return;
+        }
+
+        String bodyFileName = mapping.getResponse().getBodyFileName();
+        if (ContentAddressedBodyStore.isContentAddressed(bodyFileName)) {
+            bodyStore.get().addReference(bodyFileName, mapping.getSourceFile());
+        } else {
+            bodyStore.get().releaseReferenceFrom(mapping.getSourceFile());
+        }
+    }
+
+    /**
+     * Brings the stub mappings back in line with every file in the directory, for when events have been lost.
+     */
+    private void resynchronise() {
+        Set<String> current = newHashSet();
+        Map<File, Boolean> changes = newLinkedHashMap();
+        collectMappingFiles(mappingsDirectory, changes);
+        for (File file: changes.keySet()) {
+            current.add(sourceNameOf(file));
+        }
+
+        for (StubMapping mapping: stubMappings.getAll()) {
+            if (mapping.getSourceFile() != null && !current.contains(mapping.getSourceFile())) {
+                remove(mapping.getSourceFile());
+            }
+        }
+
+        applyChanges(changes);
+    }
+
+    private void collectMappingFiles(File directory, Map<File, Boolean> files) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+
+        for (File child: children) {
+            if (child.isDirectory()) {
+                collectMappingFiles(child, files);
+            } else if (isMappingFile(child)) {
+                files.put(child, true);
+            }
+        }
+    }
+
+    private static boolean isMappingFile(File file) {
+        return file.getName().endsWith(".json");
+    }
+
+    private static String sourceNameOf(File file) {
+        return new TextFile(file.toURI()).name();
+    }
+
+    private class WatchLoop implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    // Editors often write a file in several steps, so let them finish and take the events together
+                    Thread.sleep(SETTLE_MILLISECONDS);
+                    Map<File, Boolean> changedFiles = newLinkedHashMap();
+                    boolean overflowed = false;
+                    do {
+                        overflowed |= collectEvents(key, changedFiles);
+                        key = watchService.poll(0, MILLISECONDS);
+                    } while (key != null);
+
+                    if (overflowed) {
+                        resynchronise();
+                    } else {
+                        applyChanges(changedFiles);
+                    }
+                }
+            } catch (ClosedWatchServiceException e) {
+                // Stopped
+            } catch (InterruptedException e) {
+                // Stopped
+            }
+        }
+
+        /**
+         * @return true if events were lost
+         */
+        private boolean collectEvents(WatchKey key, Map<File, Boolean> changedFiles) {
+            Path directory = watchedDirectories.get(key);
+            boolean overflowed = false;
+            for (WatchEvent<?> event: key.pollEvents()) {
+                if (event.kind() == OVERFLOW || directory == null) {
+                    overflowed = true;
+                    continue;
+                }
+
+                File file = directory.resolve((Path) event.context()).toFile();
+                if (event.kind() == ENTRY_CREATE && file.isDirectory()) {
+                    registerNewDirectory(file, changedFiles);
+                } else if (isMappingFile(file)) {
+                    changedFiles.remove(file);
+                    changedFiles.put(file, event.kind() != ENTRY_DELETE);
+                }
+            }
+
+            if (!key.reset()) {
+                watchedDirectories.remove(key);
+            }
+
+            return overflowed;
+        }
+
+        private void registerNewDirectory(File directory, Map<File, Boolean> changedFiles) {
+            try {
+                registerRecursively(directory);
+            } catch (IOException ioe) {
+                notifier.error("Unable to watch " + directory, ioe);
+            }
+
+            collectMappingFiles(directory, changedFiles);
+        }
+    }
+}
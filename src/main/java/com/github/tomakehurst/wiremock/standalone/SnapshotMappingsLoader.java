@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.standalone;
+
+import com.github.tomakehurst.wiremock.stubbing.StubMappings;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
+
+/**
+ * Loads from a mappings snapshot the first time, at startup, when there's a valid one, and from the given
+ * loader otherwise. Later loads, such as a reset to the default mappings, always read the mapping files.
+ * <p>
+ * A startup that finds the snapshot missing or stale writes a fresh one once the files are loaded, so the
+ * cost of reading them twice is paid only by the first startup after they change.
+ */
+public class SnapshotMappingsLoader implements MappingsLoader {
+
+    private final MappingsSnapshot snapshot;
+    private final MappingsLoader fallback;
+    private final AtomicBoolean loaded = new AtomicBoolean(false);
+
+    public SnapshotMappingsLoader(MappingsSnapshot snapshot, MappingsLoader fallback) {
+        this.snapshot = snapshot;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void loadMappingsInto(StubMappings stubMappings) {
+        boolean firstLoad = loaded.compareAndSet(false, true);
+        if (firstLoad && snapshot.loadInto(stubMappings)) {
+            return;
+        }
+
+        fallback.loadMappingsInto(stubMappings);
+        if (firstLoad) {
+            refreshSnapshot();
+        }
+    }
+
+    private void refreshSnapshot() {
+        try {
+            snapshot.write();
+        } catch (RuntimeException e) {
+            notifier().error("Unable to refresh mappings snapshot", e);
+        }
+    }
+}
@@ -90,6 +90,10 @@ public class WireMockServerRunner {
 		});
 	}
 	
+	public void flushRecordings() {
+		wireMockServer.flushRecordings();
+	}
+
 	public void stop() {
 		wireMockServer.stop();
 	}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.stubbing;
+
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.common.Notifier;
+import com.github.tomakehurst.wiremock.core.RecordingStats;
+import com.google.common.base.Optional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Writes recorded mapping and body files from a bounded queue on a single background thread, so that
+ * requests being recorded don't wait on disk. Recordings arriving while the queue is full are dropped and counted.
+ */
+public class BackgroundRecordingWriter {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    private static final int MAX_BATCH_SIZE = 50;
+    private static final long FLUSH_TIMEOUT_MILLISECONDS = 30000;
+    private static final Runnable DO_NOTHING = new Runnable() {
+        public void run() {
+        }
+    };
+
+    private final FileSource mappingsFileSource;
+    private final FileSource filesFileSource;
+    private final Notifier notifier;
+    private final Optional<ContentAddressedBodyStore> bodyStore;
+    private final BlockingQueue<PendingRecording> queue;
+    private final Thread writerThread;
+    private final Object stateLock = new Object();
+    private volatile boolean stopped;
+
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Object writtenLock = new Object();
+    private long writtenCount;
+
+    public BackgroundRecordingWriter(FileSource mappingsFileSource, FileSource filesFileSource, Notifier notifier,
+                                     Optional<ContentAddressedBodyStore> bodyStore, int queueCapacity) {
+        this(mappingsFileSource, filesFileSource, notifier, bodyStore, new ArrayBlockingQueue<PendingRecording>(queueCapacity));
+    }
+
+    BackgroundRecordingWriter(FileSource mappingsFileSource, FileSource filesFileSource, Notifier notifier,
+                              Optional<ContentAddressedBodyStore> bodyStore, BlockingQueue<PendingRecording> queue) {
+        this.mappingsFileSource = mappingsFileSource;
+        this.filesFileSource = filesFileSource;
+        this.notifier = notifier;
+        this.bodyStore = bodyStore;
+        this.queue = queue;
+        writerThread = new Thread(new WriteLoop(), "wiremock-recording-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public BackgroundRecordingWriter(FileSource mappingsFileSource, FileSource filesFileSource, Notifier notifier,
+                                     Optional<ContentAddressedBodyStore> bodyStore) {
+        this(mappingsFileSource, filesFileSource, notifier, bodyStore, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public BackgroundRecordingWriter(FileSource mappingsFileSource, FileSource filesFileSource, Notifier notifier) {
+        this(mappingsFileSource, filesFileSource, notifier, Optional.<ContentAddressedBodyStore>absent());
+    }
+
+    /**
+     * Queues a mapping file and its body file for writing. A null body means the body file is already in place.
+     * Content-addressed bodies are only counted against the body store when written, so a dropped recording
+     * leaves no reference behind. Once the writer has stopped, recordings are written on the caller's thread,
+     * as a stopped server may be started again with its recorders still listening.
+     *
+     * @return false if the queue was full and the recording dropped
+     */
+    public boolean enqueue(String mappingFileName, String mappingJson, String bodyFileName, byte[] body) {
+        return enqueue(mappingFileName, mappingJson, bodyFileName, body, DO_NOTHING);
+    }
+
+    /**
+     * As {@link #enqueue(String, String, String, byte[])}, running onFailure if the recording is accepted
+     * but can't be written.
+     */
+    public boolean enqueue(String mappingFileName, String mappingJson, String bodyFileName, byte[] body, Runnable onFailure) {
+        PendingRecording recording = new PendingRecording(mappingFileName, mappingJson, bodyFileName, body, onFailure);
+        synchronized (stateLock) {
+            if (!stopped) {
+                return offer(recording);
+            }
+        }
+
+        write(recording);
+        return true;
+    }
+
+    /**
+     * Called holding stateLock, so the writer can't stop between the check and the offer and leave the
+     * recording behind in the queue.
+     */
+    private boolean offer(PendingRecording recording) {
+        if (queue.offer(recording)) {
+            queuedCount.incrementAndGet();
+            return true;
+        }
+
+        long dropped = droppedCount.incrementAndGet();
+        notifier.error(String.format("Recording queue is full, dropped mapping %s (%d dropped so far)", recording.mappingFileName, dropped));
+        return false;
+    }
+
+    /**
+     * Blocks until every recording queued before this call has been written, or the writer has stopped.
+     */
+    public void flush() {
+        long target = queuedCount.get();
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MILLISECONDS;
+        synchronized (writtenLock) {
+            while (writtenCount < target && writerThread.isAlive()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    notifier.error(String.format("Timed out flushing recordings, %d still queued", target - writtenCount));
+                    return;
+                }
+
+                try {
+                    writtenLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    public void stop() {
+        flush();
+        synchronized (stateLock) {
+            stopped = true;
+        }
+        try {
+            writerThread.join(FLUSH_TIMEOUT_MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        notifier.info(String.format("Recording writer stopped: %d written, %d dropped", writtenCount(), droppedCount()));
+    }
+
+    public RecordingStats getStats() {
+        return new RecordingStats(queuedCount(), writtenCount(), droppedCount(), pendingCount());
+    }
+
+    public long queuedCount() {
+        return queuedCount.get();
+    }
+
+    public long droppedCount() {
+        return droppedCount.get();
+    }
+
+    public long writtenCount() {
+        synchronized (writtenLock) {
+            return writtenCount;
+        }
+    }
+
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    private void write(PendingRecording recording) {
+        try {
+            writeRecording(mappingsFileSource, filesFileSource, bodyStore,
+                    recording.mappingFileName, recording.mappingJson, recording.bodyFileName, recording.body);
+        } catch (RuntimeException e) {
+            notifier.error("Failed to write recorded mapping " + recording.mappingFileName, e);
+            recording.onFailure.run();
+        }
+    }
+
+    /**
+     * Writes a body file and then the mapping file referring to it. A content-addressed body is written through
+     * the body store, and its reference released again if the mapping file can't be written.
+     */
+    static void writeRecording(FileSource mappingsFileSource, FileSource filesFileSource, Optional<ContentAddressedBodyStore> bodyStore,
+                               String mappingFileName, String mappingJson, String bodyFileName, byte[] body) {
+        boolean referenced = bodyStore.isPresent() && ContentAddressedBodyStore.isContentAddressed(bodyFileName);
+        String mappingSource = referenced ? mappingsFileSource.getBinaryFileNamed(mappingFileName).name() : null;
+        if (referenced && body != null) {
+            bodyStore.get().store(body, mappingSource);
+        } else if (referenced) {
+            bodyStore.get().addReference(bodyFileName, mappingSource);
+        } else if (body != null) {
+            filesFileSource.writeBinaryFile(bodyFileName, body);
+        }
+
+        try {
+            mappingsFileSource.writeTextFile(mappingFileName, mappingJson);
+        } catch (RuntimeException e) {
+            if (referenced) {
+                bodyStore.get().releaseReferenceFrom(mappingSource);
+            }
+            throw e;
+        }
+    }
+
+    private class WriteLoop implements Runnable {
+
+        @Override
+        public void run() {
+            List<PendingRecording> batch = new ArrayList<PendingRecording>(MAX_BATCH_SIZE);
+            while (!stopped || !queue.isEmpty()) {
+                try {
+                    PendingRecording first = queue.poll(100, MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+
+                    batch.add(first);
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                for (PendingRecording recording: batch) {
+                    write(recording);
+                }
+
+                synchronized (writtenLock) {
+                    writtenCount += batch.size();
+                    writtenLock.notifyAll();
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    static class PendingRecording {
+        final String mappingFileName;
+        final String mappingJson;
+        final String bodyFileName;
+        final byte[] body;
+        final Runnable onFailure;
+
+        PendingRecording(String mappingFileName, String mappingJson, String bodyFileName, byte[] body, Runnable onFailure) {
+            this.mappingFileName = mappingFileName;
+            this.mappingJson = mappingJson;
+            this.bodyFileName = bodyFileName;
+            this.body = body;
+            this.onFailure = onFailure;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.stubbing;
+
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.common.TextFile;
+import com.google.common.hash.Hashing;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+
+/**
+ * Names body files after a hash of their content, so that identical bodies share one file. The mapping files
+ * referring to each body file are tracked, and a body file is deleted once no mapping file refers to it.
+ * References are keyed by mapping file, so reporting the same one twice doesn't count it twice.
+ */
+public class ContentAddressedBodyStore {
+
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("body-[0-9a-f]{40}\\.json");
+
+    private final FileSource filesFileSource;
+    private final Map<String, Set<String>> mappingsByBodyFile = newHashMap();
+    private final Map<String, String> bodyFilesByMapping = newHashMap();
+
+    public ContentAddressedBodyStore(FileSource filesFileSource) {
+        this.filesFileSource = filesFileSource;
+    }
+
+    public static String nameFor(byte[] body) {
+        return "body-" + Hashing.sha1().hashBytes(body).toString() + ".json";
+    }
+
+    public static boolean isContentAddressed(String bodyFileName) {
+        return bodyFileName != null && CONTENT_ADDRESSED_NAME.matcher(bodyFileName).matches();
+    }
+
+    /**
+     * Records that the mapping file refers to this body, writing the body file if nothing referred to it yet.
+     * Call this once the body is about to reach disk, not before, so a recording that never gets written
+     * can't leave a reference behind.
+     * @return the name of the body file
+     */
+    public synchronized String store(byte[] body, String mappingSource) {
+        String name = nameFor(body);
+        if (addReference(name, mappingSource)) {
+            try {
+                filesFileSource.writeBinaryFile(name, body);
+            } catch (RuntimeException e) {
+                releaseReferenceFrom(mappingSource);
+                throw e;
+            }
+        }
+
+        return name;
+    }
+
+    /**
+     * Records that the mapping file refers to this body file, dropping any other body file it referred to before.
+     * @return true if nothing else refers to the body file, meaning it may still need writing
+     */
+    public synchronized boolean addReference(String bodyFileName, String mappingSource) {
+        String previous = bodyFilesByMapping.get(mappingSource);
+        if (bodyFileName.equals(previous)) {
+            return false;
+        }
+
+        if (previous != null) {
+            releaseReferenceFrom(mappingSource);
+        }
+
+        Set<String> mappings = mappingsByBodyFile.get(bodyFileName);
+        if (mappings == null) {
+            mappings = newHashSet();
+            mappingsByBodyFile.put(bodyFileName, mappings);
+        }
+
+        mappings.add(mappingSource);
+        bodyFilesByMapping.put(mappingSource, bodyFileName);
+        return mappings.size() == 1;
+    }
+
+    /**
+     * Drops the mapping file's reference to its body file, deleting the body file when nothing refers to it
+     * any more. Body files that aren't content addressed are never tracked, so are never deleted, as those
+     * may be shared by hand-written mappings.
+     */
+    public synchronized void releaseReferenceFrom(String mappingSource) {
+        String bodyFileName = bodyFilesByMapping.remove(mappingSource);
+        if (bodyFileName == null) {
+            return;
+        }
+
+        Set<String> mappings = mappingsByBodyFile.get(bodyFileName);
+        mappings.remove(mappingSource);
+        if (mappings.isEmpty()) {
+            mappingsByBodyFile.remove(bodyFileName);
+            filesFileSource.deleteFile(bodyFileName);
+        }
+    }
+
+    public synchronized int referenceCount(String bodyFileName) {
+        Set<String> mappings = mappingsByBodyFile.get(bodyFileName);
+        return mappings == null ? 0 : mappings.size();
+    }
+
+    /**
+     * Counts references from the mapping files already on disk, so bodies recorded in earlier runs are
+     * neither rewritten nor deleted while still in use.
+     */
+    public void countReferencesFrom(FileSource mappingsFileSource) {
+        if (!mappingsFileSource.exists()) {
+            return;
+        }
+
+        for (TextFile mappingFile: mappingsFileSource.listFilesRecursively()) {
+            if (!mappingFile.name().endsWith(".json")) {
+                continue;
+            }
+
+            try {
+                String bodyFileName = StubMapping.buildFrom(mappingFile.readContentsAsString()).getResponse().getBodyFileName();
+                if (isContentAddressed(bodyFileName)) {
+                    addReference(bodyFileName, mappingFile.name());
+                }
+            } catch (RuntimeException e) {
+                notifier().error("Unable to read body file reference from " + mappingFile.name(), e);
+            }
+        }
+    }
+}
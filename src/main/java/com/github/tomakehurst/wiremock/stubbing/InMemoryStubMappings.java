@@ -29,6 +29,7 @@ import com.github.tomakehurst.wiremock.capture.Capture;
 import com.github.tomakehurst.wiremock.capture.Replacer;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.matching.ParsedBody;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 
@@ -37,11 +38,12 @@ public class InMemoryStubMappings implements StubMappings {
 	
 	private final SortedConcurrentMappingSet mappings = new SortedConcurrentMappingSet();
 	private final ConcurrentHashMap<String, Scenario> scenarioMap = new ConcurrentHashMap<String, Scenario>();
+	private final ConcurrentHashMap<String, StubMapping> mappingsBySourceFile = new ConcurrentHashMap<String, StubMapping>();
 	
 	@Override
 	public ResponseDefinition serveFor(Request request) {
 		StubMapping matchingMapping = find(
-				mappings,
+				mappings.candidatesFor(request),
 				mappingMatchingAndInCorrectScenarioState(request),
 				StubMapping.NOT_CONFIGURED);
 		
@@ -51,7 +53,7 @@ public class InMemoryStubMappings implements StubMappings {
 		if (matchingMapping.hasCaptures() || matchingMapping.hasRandomValues()) {
 			Map<String, String> variables = captureValues(request, matchingMapping.getCaptures());
 			variables.putAll(randomValues(matchingMapping.getRandomValues()));
-			response.setReplacer(new Replacer(variables, matchingMapping.getPlaceholderDelimiters()));
+			response.setReplacer(new Replacer(variables, matchingMapping.getPlaceholderTemplates()));
 		}
 		return response;
 	}
@@ -63,20 +65,51 @@ public class InMemoryStubMappings implements StubMappings {
 	}
 
 	@Override
-	public void addMapping(StubMapping mapping) {
+	public synchronized void addMapping(StubMapping mapping) {
+		prepare(mapping);
+		mappings.add(mapping);
+		if (mapping.getSourceFile() != null) {
+			mappingsBySourceFile.put(mapping.getSourceFile(), mapping);
+		}
+	}
+
+	@Override
+	public synchronized void addOrReplaceMappingFromSource(StubMapping mapping) {
+		StubMapping existing = mappingsBySourceFile.get(mapping.getSourceFile());
+		if (existing != null) {
+			prepare(mapping);
+			mappings.replace(existing, mapping);
+		} else if (!mappings.contains(mapping)) {
+			prepare(mapping);
+			mappings.add(mapping);
+		}
+
+		mappingsBySourceFile.put(mapping.getSourceFile(), mapping);
+	}
+
+	@Override
+	public synchronized void removeMappingFromSource(String sourceFile) {
+		StubMapping existing = mappingsBySourceFile.remove(sourceFile);
+		if (existing != null) {
+			mappings.remove(existing);
+		}
+	}
+
+	private void prepare(StubMapping mapping) {
+		mapping.getRequest().compile();
+
 		if (mapping.isInScenario()) {
 			scenarioMap.putIfAbsent(mapping.getScenarioName(), Scenario.inStartedState());
 			Scenario scenario = scenarioMap.get(mapping.getScenarioName());
 			mapping.setScenario(scenario);
 		}
-		
-		mappings.add(mapping);
 	}
 
 	@Override
-	public void reset() {
+	public synchronized void reset() {
 		mappings.clear();
         scenarioMap.clear();
+        mappingsBySourceFile.clear();
 	}
 	
 	@Override
@@ -92,9 +125,10 @@ public class InMemoryStubMappings implements StubMappings {
     }
 
     private Predicate<StubMapping> mappingMatchingAndInCorrectScenarioState(final Request request) {
+		final ParsedBody body = ParsedBody.of(request);
 		return new Predicate<StubMapping>() {
 			public boolean apply(StubMapping mapping) {
-				return mapping.getRequest().isMatchedBy(request) &&
+				return mapping.getRequest().compile().isMatchedBy(request, body) &&
 				(mapping.isIndependentOfScenarioState() || mapping.requiresCurrentScenarioState());
 			}
 		};
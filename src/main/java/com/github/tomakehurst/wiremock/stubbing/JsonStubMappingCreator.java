@@ -15,6 +15,7 @@
  */
 package com.github.tomakehurst.wiremock.stubbing;
 
+import java.io.InputStream;
 
 public class JsonStubMappingCreator {
 
@@ -25,7 +26,14 @@ public class JsonStubMappingCreator {
 	}
 	
 	public void addMappingFrom(String mappingSpecJson) {
-		StubMapping mapping = StubMapping.buildFrom(mappingSpecJson);
+		addMapping(StubMapping.buildFrom(mappingSpecJson));
+	}
+
+	public void addMappingFrom(InputStream mappingSpecJson) {
+		addMapping(StubMapping.buildFrom(mappingSpecJson));
+	}
+
+	public void addMapping(StubMapping mapping) {
         mapping.setTransient(false);
 		stubMappings.addMapping(mapping);
 	}
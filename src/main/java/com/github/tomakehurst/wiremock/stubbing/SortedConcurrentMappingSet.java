@@ -15,19 +15,38 @@
  */
 package com.github.tomakehurst.wiremock.stubbing;
 
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Longs;
+
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.github.tomakehurst.wiremock.http.RequestMethod.ANY;
+import static com.google.common.collect.Iterables.mergeSorted;
+
 public class SortedConcurrentMappingSet implements Iterable<StubMapping> {
 
 	private AtomicLong insertionCount;
 	private ConcurrentSkipListSet<StubMapping> mappingSet;
+	private ConcurrentHashMap<ExactUrlKey, ConcurrentSkipListSet<StubMapping>> exactUrlIndex;
+	private ConcurrentSkipListSet<StubMapping> unindexedMappings;
 	
 	public SortedConcurrentMappingSet() {
 		insertionCount = new AtomicLong();
-		mappingSet = new ConcurrentSkipListSet<StubMapping>(sortedByPriorityThenReverseInsertionOrder());
+		mappingSet = newMappingSet();
+		exactUrlIndex = new ConcurrentHashMap<ExactUrlKey, ConcurrentSkipListSet<StubMapping>>();
+		unindexedMappings = newMappingSet();
+	}
+
+	private ConcurrentSkipListSet<StubMapping> newMappingSet() {
+		return new ConcurrentSkipListSet<StubMapping>(sortedByPriorityThenReverseInsertionOrder());
 	}
 	
 	private Comparator<StubMapping> sortedByPriorityThenReverseInsertionOrder() {
@@ -38,7 +57,12 @@ public class SortedConcurrentMappingSet implements Iterable<StubMapping> {
 					return priorityComparison;
 				}
 				
-				return (two.getInsertionIndex() > one.getInsertionIndex()) ? 1 : -1;
+				int insertionComparison = Longs.compare(two.getInsertionIndex(), one.getInsertionIndex());
+				if (insertionComparison != 0) {
+					return insertionComparison;
+				}
+
+				return Longs.compare(two.getRevision(), one.getRevision());
 			}
 		};
 	}
@@ -48,17 +72,121 @@ public class SortedConcurrentMappingSet implements Iterable<StubMapping> {
 		return mappingSet.iterator();
 	}
 	
-	public void add(StubMapping mapping) {
+	/**
+	 * Returns only the mappings that could possibly match the request - those indexed under its method and
+	 * exact URL, plus every mapping that can't be indexed (URL patterns, no URL) - in the same
+	 * priority then reverse insertion order as the full set.
+	 */
+	@SuppressWarnings("unchecked")
+	public Iterable<StubMapping> candidatesFor(Request request) {
+		return mergeSorted(ImmutableList.of(
+				indexedUnder(new ExactUrlKey(request.getMethod(), request.getUrl())),
+				indexedUnder(new ExactUrlKey(ANY, request.getUrl())),
+				unindexedMappings),
+				mappingSet.comparator());
+	}
+
+	private Iterable<StubMapping> indexedUnder(ExactUrlKey key) {
+		ConcurrentSkipListSet<StubMapping> mappings = exactUrlIndex.get(key);
+		return mappings != null ? mappings : Collections.<StubMapping>emptySet();
+	}
+	
+	/**
+	 * Changes to the set are made one at a time, so that an exact-URL bucket emptied by a removal can be
+	 * dropped from the index without racing an addition to it. Lookups take no lock.
+	 */
+	public synchronized void add(StubMapping mapping) {
 		mapping.setInsertionIndex(insertionCount.getAndIncrement());
 		mappingSet.add(mapping);
+		indexSetFor(mapping).add(mapping);
+	}
+
+	/**
+	 * Swaps the existing mapping for its replacement, which takes over the existing insertion index
+	 * so it keeps the same place relative to mappings of equal priority. The replacement goes in before
+	 * the existing mapping comes out, and sorts ahead of it, so a concurrent match sees one or the other.
+	 */
+	public synchronized void replace(StubMapping existing, StubMapping replacement) {
+		replacement.setInsertionIndex(existing.getInsertionIndex());
+		replacement.setRevision(existing.getRevision() + 1);
+		mappingSet.add(replacement);
+		indexSetFor(replacement).add(replacement);
+		remove(existing);
+	}
+
+	public boolean contains(StubMapping mapping) {
+		return mappingSet.ceiling(mapping) == mapping;
+	}
+
+	public synchronized void remove(StubMapping mapping) {
+		mappingSet.remove(mapping);
+		if (!isIndexable(mapping)) {
+			unindexedMappings.remove(mapping);
+			return;
+		}
+
+		ExactUrlKey key = exactUrlKeyFor(mapping);
+		ConcurrentSkipListSet<StubMapping> mappings = exactUrlIndex.get(key);
+		if (mappings != null && mappings.remove(mapping) && mappings.isEmpty()) {
+			exactUrlIndex.remove(key);
+		}
+	}
+
+	int exactUrlIndexSize() {
+		return exactUrlIndex.size();
+	}
+
+	private ConcurrentSkipListSet<StubMapping> indexSetFor(StubMapping mapping) {
+		if (!isIndexable(mapping)) {
+			return unindexedMappings;
+		}
+
+		ExactUrlKey key = exactUrlKeyFor(mapping);
+		exactUrlIndex.putIfAbsent(key, newMappingSet());
+		return exactUrlIndex.get(key);
+	}
+
+	private static boolean isIndexable(StubMapping mapping) {
+		RequestPattern requestPattern = mapping.getRequest();
+		return requestPattern.getUrl() != null && requestPattern.getMethod() != null;
+	}
+
+	private static ExactUrlKey exactUrlKeyFor(StubMapping mapping) {
+		return new ExactUrlKey(mapping.getRequest().getMethod(), mapping.getRequest().getUrl());
 	}
 	
-	public void clear() {
+	public synchronized void clear() {
 		mappingSet.clear();
+		exactUrlIndex.clear();
+		unindexedMappings.clear();
 	}
 	
 	@Override
 	public String toString() {
 		return mappingSet.toString();
 	}
+
+	private static class ExactUrlKey {
+		private final RequestMethod method;
+		private final String url;
+
+		ExactUrlKey(RequestMethod method, String url) {
+			this.method = method;
+			this.url = url;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			ExactUrlKey that = (ExactUrlKey) o;
+			return method == that.method && url.equals(that.url);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * method.hashCode() + url.hashCode();
+		}
+	}
 }
@@ -15,6 +15,7 @@
  */
 package com.github.tomakehurst.wiremock.stubbing;
 
+import java.io.InputStream;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -22,6 +23,7 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize.Inclusion;
 import com.github.tomakehurst.wiremock.capture.Capture;
+import com.github.tomakehurst.wiremock.capture.PlaceholderTemplateCache;
 import com.github.tomakehurst.wiremock.common.Json;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
 import com.github.tomakehurst.wiremock.matching.RequestPattern;
@@ -42,9 +44,12 @@ public class StubMapping {
 	private List<Capture> captures;
 	private List<String> placeholderDelimiters = null;
 	private List<RandomPattern> randomValues;
+	private volatile PlaceholderTemplateCache placeholderTemplates;
 	
 	private long insertionIndex;
+	private long revision;
     private boolean isTransient = true;
+    private String sourceFile;
 
 	public StubMapping(RequestPattern requestPattern, ResponseDefinition response) {
 		this.request = requestPattern;
@@ -62,6 +67,10 @@ public class StubMapping {
         return Json.read(mappingSpecJson, StubMapping.class);
     }
 
+    public static StubMapping buildFrom(InputStream mappingSpecJson) {
+        return Json.read(mappingSpecJson, StubMapping.class);
+    }
+
     public static String buildJsonStringFor(StubMapping mapping) {
 		return Json.write(mapping);
 	}
@@ -80,6 +89,7 @@ public class StubMapping {
 
 	public void setResponse(ResponseDefinition response) {
 		this.response = response;
+		this.placeholderTemplates = null;
 	}
 
 	@Override
@@ -97,6 +107,19 @@ public class StubMapping {
 		this.insertionIndex = insertionIndex;
 	}
 
+	/**
+	 * @return How many times the mapping at this insertion index has been replaced.
+	 */
+	@JsonIgnore
+	public long getRevision() {
+		return revision;
+	}
+
+	@JsonIgnore
+	public void setRevision(long revision) {
+		this.revision = revision;
+	}
+
     /**
      * @return True if this StubMapping is not persisted to the file system, false otherwise.
      */
@@ -110,6 +133,19 @@ public class StubMapping {
         this.isTransient = isTransient;
     }
 
+    /**
+     * @return The name of the file this StubMapping was loaded from, or null if it wasn't loaded from a file.
+     */
+    @JsonIgnore
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    @JsonIgnore
+    public void setSourceFile(String sourceFile) {
+        this.sourceFile = sourceFile;
+    }
+
 	public Integer getPriority() {
 		return priority;
 	}
@@ -172,6 +208,17 @@ public class StubMapping {
 			throw new RuntimeException("placeholderDelimiters must have exactly 2 entries");
 		}
 		this.placeholderDelimiters = placeHolderDelimiters;
+		this.placeholderTemplates = null;
+	}
+
+	@JsonIgnore
+	public PlaceholderTemplateCache getPlaceholderTemplates() {
+		PlaceholderTemplateCache templates = placeholderTemplates;
+		if (templates == null) {
+			templates = new PlaceholderTemplateCache(placeholderDelimiters);
+			placeholderTemplates = templates;
+		}
+		return templates;
 	}
 
 	public void updateScenarioStateIfRequired() {
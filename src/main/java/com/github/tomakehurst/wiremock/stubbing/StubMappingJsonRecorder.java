@@ -17,45 +17,81 @@ package com.github.tomakehurst.wiremock.stubbing;
 
 import com.github.tomakehurst.wiremock.common.FileSource;
 import com.github.tomakehurst.wiremock.common.IdGenerator;
+import com.github.tomakehurst.wiremock.common.Json;
 import com.github.tomakehurst.wiremock.common.UniqueFilenameGenerator;
 import com.github.tomakehurst.wiremock.common.VeryShortIdGenerator;
-import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.core.RecordingStats;
+import com.github.tomakehurst.wiremock.core.ResetListener;
 import com.github.tomakehurst.wiremock.http.*;
 import com.github.tomakehurst.wiremock.matching.RequestPattern;
 import com.github.tomakehurst.wiremock.matching.ValuePattern;
-import com.github.tomakehurst.wiremock.verification.VerificationResult;
+import com.google.common.base.Optional;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.github.tomakehurst.wiremock.common.Json.write;
 import static com.github.tomakehurst.wiremock.common.LocalNotifier.notifier;
+import static com.google.common.base.Charsets.UTF_8;
 import static java.util.Arrays.asList;
+import static java.util.Collections.newSetFromMap;
 import static org.skyscreamer.jsonassert.JSONCompareMode.LENIENT;
 
-public class StubMappingJsonRecorder implements RequestListener {
+public class StubMappingJsonRecorder implements RequestListener, ResetListener {
+
+    private static final byte SEPARATOR = 0;
 
     private final FileSource mappingsFileSource;
     private final FileSource filesFileSource;
-    private final Admin admin;
     private final List<CaseInsensitiveKey> headersToMatch;
+    private final Optional<BackgroundRecordingWriter> backgroundWriter;
+    private final Optional<ContentAddressedBodyStore> bodyStore;
+    private final Set<String> recordedFingerprints = newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     private IdGenerator idGenerator;
 
-    public StubMappingJsonRecorder(FileSource mappingsFileSource, FileSource filesFileSource, Admin admin, List<CaseInsensitiveKey> headersToMatch) {
+    public StubMappingJsonRecorder(FileSource mappingsFileSource, FileSource filesFileSource,
+                                   List<CaseInsensitiveKey> headersToMatch, Optional<BackgroundRecordingWriter> backgroundWriter,
+                                   Optional<ContentAddressedBodyStore> bodyStore) {
         this.mappingsFileSource = mappingsFileSource;
         this.filesFileSource = filesFileSource;
-        this.admin = admin;
         this.headersToMatch = headersToMatch;
+        this.backgroundWriter = backgroundWriter;
+        this.bodyStore = bodyStore;
         idGenerator = new VeryShortIdGenerator();
     }
 
+    public StubMappingJsonRecorder(FileSource mappingsFileSource, FileSource filesFileSource, List<CaseInsensitiveKey> headersToMatch) {
+        this(mappingsFileSource, filesFileSource, headersToMatch,
+                Optional.<BackgroundRecordingWriter>absent(), Optional.<ContentAddressedBodyStore>absent());
+    }
+
+    /**
+     * Forgets which requests have been recorded, as resetting the request journal used to.
+     */
+    @Override
+    public void reset() {
+        recordedFingerprints.clear();
+    }
+
     @Override
     public void requestReceived(Request request, Response response) {
-        RequestPattern requestPattern = buildRequestPatternFrom(request);
+        if (!response.isFromProxy()) {
+            return;
+        }
 
-        if (requestNotAlreadyReceived(requestPattern) && response.isFromProxy()) {
+        String fingerprint = fingerprintOf(request);
+        if (recordedFingerprints.add(fingerprint)) {
             notifier().info(String.format("Recording mappings for %s", request.getUrl()));
-            writeToMappingAndBodyFile(request, response, requestPattern);
+            try {
+                writeToMappingAndBodyFile(request, response, buildRequestPatternFrom(request), fingerprint);
+            } catch (RuntimeException e) {
+                recordedFingerprints.remove(fingerprint);
+                throw e;
+            }
         } else {
             notifier().info(String.format("Not recording mapping for %s as this has already been received", request.getUrl()));
         }
@@ -93,10 +129,18 @@ public class StubMappingJsonRecorder implements RequestListener {
         return ValuePattern.equalTo(request.getBodyAsString());
     }
 
-    private void writeToMappingAndBodyFile(Request request, Response response, RequestPattern requestPattern) {
+    /**
+     * Writes, or queues, the recording. Should it be dropped or fail to be written, its fingerprint is
+     * forgotten so the request can be recorded next time.
+     */
+    private void writeToMappingAndBodyFile(Request request, Response response, RequestPattern requestPattern, final String fingerprint) {
         String fileId = idGenerator.generate();
         String mappingFileName = UniqueFilenameGenerator.generate(request, "mapping", fileId);
-        String bodyFileName = UniqueFilenameGenerator.generate(request, "body", fileId);
+        byte[] body = response.getBody();
+        String bodyFileName = bodyStore.isPresent() ?
+                ContentAddressedBodyStore.nameFor(body) :
+                UniqueFilenameGenerator.generate(request, "body", fileId);
+
         ResponseDefinition responseToWrite = new ResponseDefinition();
         responseToWrite.setStatus(response.getStatus());
         responseToWrite.setBodyFileName(bodyFileName);
@@ -107,14 +151,83 @@ public class StubMappingJsonRecorder implements RequestListener {
 
         StubMapping mapping = new StubMapping(requestPattern, responseToWrite);
 
-        filesFileSource.writeBinaryFile(bodyFileName, response.getBody());
-        mappingsFileSource.writeTextFile(mappingFileName, write(mapping));
+        if (backgroundWriter.isPresent()) {
+            boolean queued = backgroundWriter.get().enqueue(mappingFileName, write(mapping), bodyFileName, body, new Runnable() {
+                public void run() {
+                    recordedFingerprints.remove(fingerprint);
+                }
+            });
+            if (!queued) {
+                recordedFingerprints.remove(fingerprint);
+            }
+        } else {
+            BackgroundRecordingWriter.writeRecording(mappingsFileSource, filesFileSource, bodyStore,
+                    mappingFileName, write(mapping), bodyFileName, body);
+        }
     }
 
-    private boolean requestNotAlreadyReceived(RequestPattern requestPattern) {
-        VerificationResult verificationResult = admin.countRequestsMatching(requestPattern);
-        verificationResult.assertRequestJournalEnabled();
-        return (verificationResult.getCount() <= 1);
+    /**
+     * Waits for any recordings still queued for the background writer to reach disk.
+     */
+    public void flush() {
+        if (backgroundWriter.isPresent()) {
+            backgroundWriter.get().flush();
+        }
+    }
+
+    /**
+     * @return The background writer's counts, or none if recordings are written as they arrive
+     */
+    public RecordingStats getStats() {
+        if (backgroundWriter.isPresent()) {
+            return backgroundWriter.get().getStats();
+        }
+
+        return RecordingStats.NONE;
+    }
+
+    /**
+     * Writes out anything still queued and stops the background writer's thread.
+     */
+    public void stop() {
+        if (backgroundWriter.isPresent()) {
+            backgroundWriter.get().stop();
+        }
+    }
+
+    /**
+     * Hashes the parts of the request that go into its recorded pattern. JSON bodies are canonicalised
+     * first, as they are matched leniently.
+     */
+    private String fingerprintOf(Request request) {
+        Hasher hasher = Hashing.sha1().newHasher()
+                .putString(request.getMethod().toString(), UTF_8).putByte(SEPARATOR)
+                .putString(request.getUrl(), UTF_8).putByte(SEPARATOR);
+        for (CaseInsensitiveKey key: headersToMatch) {
+            if (request.containsHeader(key.value())) {
+                hasher.putString(key.value().toLowerCase(), UTF_8).putByte(SEPARATOR)
+                        .putString(request.getHeader(key.value()), UTF_8).putByte(SEPARATOR);
+            }
+        }
+
+        return hasher.putBytes(normalisedBodyOf(request)).hash().toString();
+    }
+
+    private byte[] normalisedBodyOf(Request request) {
+        byte[] body = request.getBody();
+        if (body == null || body.length == 0) {
+            return new byte[0];
+        }
+
+        if (request.containsHeader("Content-Type") && request.getHeader("Content-Type").contains("json")) {
+            try {
+                return Json.canonicalise(request.getBodyAsString()).getBytes(UTF_8);
+            } catch (RuntimeException e) {
+                return body;
+            }
+        }
+
+        return body;
     }
 
     public void setIdGenerator(IdGenerator idGenerator) {
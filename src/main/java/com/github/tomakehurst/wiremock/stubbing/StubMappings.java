@@ -25,6 +25,8 @@ public interface StubMappings {
 
 	ResponseDefinition serveFor(Request request);
 	void addMapping(StubMapping mapping);
+	void addOrReplaceMappingFromSource(StubMapping mapping);
+	void removeMappingFromSource(String sourceFile);
 	void reset();
 	void resetScenarios();
 
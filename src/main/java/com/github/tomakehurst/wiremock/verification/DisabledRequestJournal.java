@@ -39,4 +39,9 @@ public class DisabledRequestJournal implements RequestJournal {
     @Override
     public void requestReceived(Request request) {
     }
+
+    @Override
+    public RequestJournalStats getStats() {
+        return RequestJournalStats.withRequestJournalDisabled();
+    }
 }
@@ -15,31 +15,61 @@
  */
 package com.github.tomakehurst.wiremock.verification;
 
+import com.github.tomakehurst.wiremock.http.HttpHeader;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.RequestListener;
 import com.github.tomakehurst.wiremock.http.Response;
 import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.size;
 
+/**
+ * Keeps received requests in arrival order. When a maximum entry count or retained size is given
+ * the oldest requests are evicted to stay within it, so the journal can be left running indefinitely.
+ * Appends and evictions are serialised so that the secondary indexes stay in journal order.
+ */
 public class InMemoryRequestJournal implements RequestListener, RequestJournal {
 	
-	private ConcurrentLinkedQueue<LoggedRequest> requests = new ConcurrentLinkedQueue<LoggedRequest>();
+	private final ConcurrentLinkedQueue<LoggedRequest> requests = new ConcurrentLinkedQueue<LoggedRequest>();
+	private final RequestJournalIndex index = new RequestJournalIndex();
+	private final Optional<Integer> maxEntries;
+	private final Optional<Long> maxBytes;
+
+	private final AtomicInteger entries = new AtomicInteger();
+	private final AtomicLong retainedBytes = new AtomicLong();
+	private final AtomicLong evictedEntries = new AtomicLong();
+	private final AtomicLong evictedBytes = new AtomicLong();
+
+	public InMemoryRequestJournal() {
+		this(Optional.<Integer>absent(), Optional.<Long>absent());
+	}
+
+	public InMemoryRequestJournal(Optional<Integer> maxEntries, Optional<Long> maxBytes) {
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+	}
 
 	@Override
 	public int countRequestsMatching(RequestPattern requestPattern) {
-		return size(filter(requests, matchedBy(requestPattern))); 
+		return size(filter(candidatesFor(requestPattern), matchedBy(requestPattern))); 
 	}
 
     @Override
     public List<LoggedRequest> getRequestsMatching(RequestPattern requestPattern) {
-        return ImmutableList.copyOf(filter(requests, matchedBy(requestPattern)));
+        return ImmutableList.copyOf(filter(candidatesFor(requestPattern), matchedBy(requestPattern)));
+    }
+
+    private Iterable<LoggedRequest> candidatesFor(RequestPattern requestPattern) {
+        return index.candidatesFor(requestPattern).or(requests);
     }
 
     private Predicate<Request> matchedBy(final RequestPattern requestPattern) {
@@ -52,7 +82,14 @@ public class InMemoryRequestJournal implements RequestListener, RequestJournal {
 
 	@Override
 	public void requestReceived(Request request, Response response) {
-		requests.add(LoggedRequest.createFrom(request));
+		LoggedRequest loggedRequest = LoggedRequest.createFrom(request);
+		synchronized (index) {
+			requests.add(loggedRequest);
+			index.add(loggedRequest);
+			entries.incrementAndGet();
+			retainedBytes.addAndGet(estimatedSizeOf(loggedRequest));
+			evictOldestWhileOverLimit();
+		}
 	}
 
     @Override
@@ -60,9 +97,65 @@ public class InMemoryRequestJournal implements RequestListener, RequestJournal {
         requestReceived(request, null);
     }
 
+	private void evictOldestWhileOverLimit() {
+		while (isOverLimit()) {
+			LoggedRequest oldest = requests.poll();
+			if (oldest == null) {
+				return;
+			}
+
+			index.removeOldest(oldest);
+			long size = estimatedSizeOf(oldest);
+			entries.decrementAndGet();
+			retainedBytes.addAndGet(-size);
+			evictedEntries.incrementAndGet();
+			evictedBytes.addAndGet(size);
+		}
+	}
+
+	private boolean isOverLimit() {
+		return (maxEntries.isPresent() && entries.get() > maxEntries.get()) ||
+				(maxBytes.isPresent() && retainedBytes.get() > maxBytes.get());
+	}
+
+	private static long estimatedSizeOf(LoggedRequest request) {
+		long chars = lengthOf(request.getUrl()) + lengthOf(request.getAbsoluteUrl()) + lengthOf(request.getBodyAsString());
+		for (HttpHeader header: request.getHeaders().all()) {
+			chars += lengthOf(header.key());
+			for (String value: header.values()) {
+				chars += lengthOf(value);
+			}
+		}
+
+		return chars * 2;
+	}
+
+	private static int lengthOf(String value) {
+		return value == null ? 0 : value.length();
+	}
+
 	@Override
 	public void reset() {
-		requests.clear();
+		synchronized (index) {
+			requests.clear();
+			index.clear();
+			entries.set(0);
+			retainedBytes.set(0);
+			evictedEntries.set(0);
+			evictedBytes.set(0);
+		}
+	}
+
+	@Override
+	public RequestJournalStats getStats() {
+		return new RequestJournalStats(
+				entries.get(),
+				retainedBytes.get(),
+				maxEntries.orNull(),
+				maxBytes.orNull(),
+				evictedEntries.get(),
+				evictedBytes.get(),
+				false);
 	}
 
 }
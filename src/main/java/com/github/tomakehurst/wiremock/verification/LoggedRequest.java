@@ -26,6 +26,7 @@ import java.util.Date;
 import java.util.Set;
 
 import static com.github.tomakehurst.wiremock.http.HttpHeaders.copyOf;
+import static com.google.common.base.Charsets.UTF_8;
 
 @JsonIgnoreProperties(ignoreUnknown=true)
 public class LoggedRequest implements Request {
@@ -109,6 +110,12 @@ public class LoggedRequest implements Request {
 		return getHeader(key) != null;
 	}
 
+	@Override
+    @JsonIgnore
+	public byte[] getBody() {
+		return body == null ? null : body.getBytes(UTF_8);
+	}
+
 	@Override
     @JsonProperty("body")
 	public String getBodyAsString() {
@@ -25,6 +25,7 @@ public interface RequestJournal {
 	int countRequestsMatching(RequestPattern requestPattern);
     List<LoggedRequest> getRequestsMatching(RequestPattern requestPattern);
 	void reset();
+    RequestJournalStats getStats();
 
     void requestReceived(Request request);
 }
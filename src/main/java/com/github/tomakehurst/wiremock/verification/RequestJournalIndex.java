@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.verification;
+
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.google.common.base.Optional;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.github.tomakehurst.wiremock.http.RequestMethod.ANY;
+
+/**
+ * Secondary indexes over the request journal, by exact URL, by first path segment and by method.
+ * Each bucket keeps journal order, so mutations must be serialised by the owning journal and
+ * entries must be removed oldest first.
+ */
+public class RequestJournalIndex {
+
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final Map<String, Queue<LoggedRequest>> byUrl = new ConcurrentHashMap<String, Queue<LoggedRequest>>();
+    private final Map<String, Queue<LoggedRequest>> byFirstPathSegment = new ConcurrentHashMap<String, Queue<LoggedRequest>>();
+    private final Map<RequestMethod, Queue<LoggedRequest>> byMethod = new ConcurrentHashMap<RequestMethod, Queue<LoggedRequest>>();
+
+    public void add(LoggedRequest request) {
+        addTo(byUrl, request.getUrl(), request);
+        addTo(byFirstPathSegment, firstPathSegmentOf(request.getUrl()), request);
+        addTo(byMethod, request.getMethod(), request);
+    }
+
+    public void removeOldest(LoggedRequest request) {
+        removeHeadFrom(byUrl, request.getUrl(), request);
+        removeHeadFrom(byFirstPathSegment, firstPathSegmentOf(request.getUrl()), request);
+        removeHeadFrom(byMethod, request.getMethod(), request);
+    }
+
+    public void clear() {
+        byUrl.clear();
+        byFirstPathSegment.clear();
+        byMethod.clear();
+    }
+
+    /**
+     * @return the only journal entries that could match the pattern, in journal order,
+     * or absent if the pattern can't be narrowed down and the whole journal must be scanned
+     */
+    public Optional<Iterable<LoggedRequest>> candidatesFor(RequestPattern requestPattern) {
+        if (requestPattern.getUrlPattern() == null && requestPattern.getUrl() != null) {
+            return Optional.<Iterable<LoggedRequest>>of(bucket(byUrl, requestPattern.getUrl()));
+        }
+
+        if (requestPattern.getUrlPattern() != null) {
+            Optional<String> segment = firstPathSegmentOfRegex(requestPattern.getUrlPattern());
+            if (segment.isPresent()) {
+                return Optional.<Iterable<LoggedRequest>>of(bucket(byFirstPathSegment, segment.get()));
+            }
+        }
+
+        if (requestPattern.getMethod() != null && requestPattern.getMethod() != ANY) {
+            return Optional.<Iterable<LoggedRequest>>of(bucket(byMethod, requestPattern.getMethod()));
+        }
+
+        return Optional.absent();
+    }
+
+    static String firstPathSegmentOf(String url) {
+        int end = 1;
+        while (end < url.length() && url.charAt(end) != '/' && url.charAt(end) != '?') {
+            end++;
+        }
+
+        return url.substring(0, Math.min(end, url.length()));
+    }
+
+    /**
+     * URL patterns are matched in full, so a literal prefix ending the first segment fixes the segment.
+     * Alternations, and a literal made optional by a following quantifier, give up on narrowing.
+     */
+    static Optional<String> firstPathSegmentOfRegex(String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return Optional.absent();
+        }
+
+        int literalEnd = 0;
+        while (literalEnd < regex.length() && REGEX_METACHARACTERS.indexOf(regex.charAt(literalEnd)) < 0) {
+            literalEnd++;
+        }
+
+        String literalPrefix = regex.substring(0, literalEnd);
+        if (literalEnd < regex.length() && "?*{".indexOf(regex.charAt(literalEnd)) >= 0 && literalPrefix.length() > 0) {
+            literalPrefix = literalPrefix.substring(0, literalPrefix.length() - 1);
+        }
+
+        String segment = firstPathSegmentOf(literalPrefix);
+        if (!literalPrefix.startsWith("/") || segment.length() == literalPrefix.length()) {
+            return Optional.absent();
+        }
+
+        return Optional.of(segment);
+    }
+
+    private static <K> void addTo(Map<K, Queue<LoggedRequest>> index, K key, LoggedRequest request) {
+        Queue<LoggedRequest> bucket = index.get(key);
+        if (bucket == null) {
+            bucket = new ConcurrentLinkedQueue<LoggedRequest>();
+            index.put(key, bucket);
+        }
+
+        bucket.add(request);
+    }
+
+    private static <K> void removeHeadFrom(Map<K, Queue<LoggedRequest>> index, K key, LoggedRequest request) {
+        Queue<LoggedRequest> bucket = index.get(key);
+        if (bucket == null) {
+            return;
+        }
+
+        if (bucket.peek() == request) {
+            bucket.poll();
+        } else {
+            bucket.remove(request);
+        }
+
+        if (bucket.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static <K> Iterable<LoggedRequest> bucket(Map<K, Queue<LoggedRequest>> index, K key) {
+        Queue<LoggedRequest> bucket = index.get(key);
+        if (bucket == null) {
+            return Collections.emptyList();
+        }
+
+        return bucket;
+    }
+}
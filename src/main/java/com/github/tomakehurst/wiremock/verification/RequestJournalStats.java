@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.verification;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize.Inclusion;
+
+@JsonSerialize(include=Inclusion.NON_NULL)
+public class RequestJournalStats extends JournalBasedResult {
+
+    private final int entries;
+    private final long retainedBytes;
+    private final Integer maxEntries;
+    private final Long maxBytes;
+    private final long evictedEntries;
+    private final long evictedBytes;
+
+    @JsonCreator
+    public RequestJournalStats(@JsonProperty("entries") int entries,
+                               @JsonProperty("retainedBytes") long retainedBytes,
+                               @JsonProperty("maxEntries") Integer maxEntries,
+                               @JsonProperty("maxBytes") Long maxBytes,
+                               @JsonProperty("evictedEntries") long evictedEntries,
+                               @JsonProperty("evictedBytes") long evictedBytes,
+                               @JsonProperty("requestJournalDisabled") boolean requestJournalDisabled) {
+        super(requestJournalDisabled);
+        this.entries = entries;
+        this.retainedBytes = retainedBytes;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.evictedEntries = evictedEntries;
+        this.evictedBytes = evictedBytes;
+    }
+
+    public static RequestJournalStats withRequestJournalDisabled() {
+        return new RequestJournalStats(0, 0, null, null, 0, 0, true);
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    public Integer getMaxEntries() {
+        return maxEntries;
+    }
+
+    public Long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getEvictedEntries() {
+        return evictedEntries;
+    }
+
+    public long getEvictedBytes() {
+        return evictedBytes;
+    }
+}
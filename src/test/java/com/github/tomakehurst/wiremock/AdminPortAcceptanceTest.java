@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.testsupport.WireMockTestClient;
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+public class AdminPortAcceptanceTest {
+
+    private static final int PORT = 8080;
+    private static final int ADMIN_PORT = 8090;
+    private static final int CONCURRENT_REQUESTS = 6;
+
+    private WireMockServer wireMockServer;
+    private WireMock adminClient;
+
+    @After
+    public void stopServer() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    public void servesAdminApiOnlyOnTheAdminPort() throws Exception {
+        startServer(false);
+        adminClient.register(get(urlEqualTo("/thing")).willReturn(aResponse().withStatus(200).withBody("Thing")));
+
+        assertThat(wireMockServer.adminPort(), is(ADMIN_PORT));
+        assertThat(new WireMockTestClient(PORT).get("/thing").content(), is("Thing"));
+        assertThat(rawGet(PORT, "/__admin/"), startsWith("HTTP/1.1 404"));
+        assertThat(rawGet(ADMIN_PORT, "/thing"), startsWith("HTTP/1.1 404"));
+    }
+
+    @Test
+    public void adminApiStaysResponsiveWhileStubThreadsAreBusy() throws Exception {
+        startServer(false);
+        assertAdminApiRespondsWhileStubsAreBusy();
+    }
+
+    @Test
+    public void adminApiStaysResponsiveWhileStubThreadsAreBusyUsingNonBlockingConnectors() throws Exception {
+        startServer(true);
+        assertAdminApiRespondsWhileStubsAreBusy();
+    }
+
+    private void startServer(boolean nonBlocking) {
+        wireMockServer = new WireMockServer(wireMockConfig()
+                .port(PORT)
+                .adminPort(ADMIN_PORT)
+                .requestThreads(2, 3)
+                .useNonBlockingConnectors(nonBlocking));
+        wireMockServer.start();
+        adminClient = new WireMock("localhost", ADMIN_PORT);
+    }
+
+    private void assertAdminApiRespondsWhileStubsAreBusy() throws Exception {
+        adminClient.register(get(urlEqualTo("/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(1500)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        List<Future<String>> responses = newArrayList();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses.add(executor.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    return rawGet(PORT, "/slow");
+                }
+            }));
+        }
+        Thread.sleep(300);
+
+        long start = System.currentTimeMillis();
+        adminClient.register(get(urlEqualTo("/other")).willReturn(aResponse().withStatus(200)));
+        adminClient.resetScenarios();
+        long elapsed = System.currentTimeMillis() - start;
+
+        for (Future<String> response: responses) {
+            assertThat(response.get(), startsWith("HTTP/1.1 200"));
+        }
+        executor.shutdown();
+
+        assertThat(elapsed, lessThan(1000L));
+    }
+
+    private static String rawGet(int port, String path) throws Exception {
+        Socket socket = new Socket("localhost", port);
+        try {
+            socket.getOutputStream().write(
+                    ("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes(UTF_8));
+            return new String(ByteStreams.toByteArray(socket.getInputStream()), UTF_8);
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.testsupport.WireMockResponse;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AsyncProxyAcceptanceTest extends ProxyAcceptanceTest {
+
+    @Override
+    WireMockConfiguration defaultConfig() {
+        return wireMockConfig().enableAsynchronousProxying(true);
+    }
+
+    @Test
+    public void servesManyConcurrentProxiedRequestsToASlowService() throws Exception {
+        initWithDefaultConfig();
+
+        targetServiceAdmin.register(get(urlEqualTo("/slow"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("Slow content")
+                        .withFixedDelay(500)));
+        proxyingServiceAdmin.register(get(urlEqualTo("/slow")).willReturn(aResponse().proxiedFrom("http://localhost:8087")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        List<Future<WireMockResponse>> responses = newArrayList();
+        for (int i = 0; i < 20; i++) {
+            responses.add(executor.submit(new Callable<WireMockResponse>() {
+                public WireMockResponse call() {
+                    return testClient.get("/slow");
+                }
+            }));
+        }
+
+        for (Future<WireMockResponse> response: responses) {
+            assertThat(response.get().content(), is("Slow content"));
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void appliesFixedDelayToAsynchronouslyProxiedResponse() {
+        initWithDefaultConfig();
+
+        targetServiceAdmin.register(get(urlEqualTo("/delayed/proxy")).willReturn(aResponse().withStatus(200).withBody("Delayed")));
+        proxyingServiceAdmin.register(get(urlEqualTo("/delayed/proxy"))
+                .willReturn(aResponse().proxiedFrom("http://localhost:8087").withFixedDelay(300)));
+
+        long start = System.currentTimeMillis();
+        WireMockResponse response = testClient.get("/delayed/proxy");
+
+        assertThat(response.content(), is("Delayed"));
+        assertThat(System.currentTimeMillis() - start >= 300, is(true));
+    }
+
+    @Test
+    public void proxiesToHttpsTargets() {
+        initWithDefaultConfig();
+        WireMockServer httpsTarget = new WireMockServer(wireMockConfig().port(0).httpsPort(0));
+        httpsTarget.start();
+
+        try {
+            new WireMock("localhost", httpsTarget.port()).register(get(urlEqualTo("/secure"))
+                    .willReturn(aResponse().withStatus(200).withBody("Secure content")));
+            proxyingServiceAdmin.register(get(urlEqualTo("/secure"))
+                    .willReturn(aResponse().proxiedFrom("https://localhost:" + httpsTarget.httpsPort())));
+
+            assertThat(testClient.get("/secure").content(), is("Secure content"));
+        } finally {
+            httpsTarget.stop();
+        }
+    }
+
+    @Test
+    public void routesRequestsThroughTheOutboundProxy() {
+        WireMockServer outboundProxy = new WireMockServer(wireMockConfig().port(0).enableBrowserProxying(true));
+        outboundProxy.start();
+
+        try {
+            init(defaultConfig().proxyVia("localhost", outboundProxy.port()));
+            targetServiceAdmin.register(get(urlEqualTo("/outbound")).willReturn(aResponse().withStatus(200).withBody("Via proxy")));
+            proxyingServiceAdmin.register(get(urlEqualTo("/outbound")).willReturn(aResponse().proxiedFrom("http://localhost:8087")));
+
+            assertThat(testClient.get("/outbound").content(), is("Via proxy"));
+            new WireMock("localhost", outboundProxy.port()).verifyThat(getRequestedFor(urlMatching(".*/outbound")));
+        } finally {
+            outboundProxy.stop();
+        }
+    }
+}
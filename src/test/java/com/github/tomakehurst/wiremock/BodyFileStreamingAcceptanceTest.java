@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock;
+
+import com.github.tomakehurst.wiremock.common.SingleRootFileSource;
+import com.github.tomakehurst.wiremock.testsupport.WireMockResponse;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BodyFileStreamingAcceptanceTest extends AcceptanceTestBase {
+
+    private static File fileSourceRoot;
+    private static byte[] largeBody;
+
+    @BeforeClass
+    public static void setupServer() {
+        writeBodyFiles();
+        setupServer(wireMockConfig()
+                .fileSource(new SingleRootFileSource(fileSourceRoot))
+                .bodyFileCacheMaxBytes(1024));
+    }
+
+    private static void writeBodyFiles() {
+        try {
+            fileSourceRoot = Files.createTempDir();
+            File filesDirectory = new File(fileSourceRoot, "__files");
+            filesDirectory.mkdirs();
+            new File(fileSourceRoot, "mappings").mkdirs();
+
+            largeBody = new byte[3 * 1024 * 1024];
+            new Random(42).nextBytes(largeBody);
+            Files.write(largeBody, new File(filesDirectory, "large.bin"));
+            Files.write("Small enough to cache".getBytes(), new File(filesDirectory, "small.txt"));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @AfterClass
+    public static void deleteBodyFiles() throws Exception {
+        FileUtils.deleteDirectory(fileSourceRoot);
+    }
+
+    @Test
+    public void streamsBodyFilesTooLargeToCacheWithContentLength() {
+        stubFor(get(urlEqualTo("/large")).willReturn(aResponse().withStatus(200).withBodyFile("large.bin")));
+
+        WireMockResponse response = testClient.get("/large");
+
+        assertThat(response.statusCode(), is(200));
+        assertThat(response.header("Content-Length"), is(String.valueOf(largeBody.length)));
+        assertThat(Arrays.equals(response.binaryContent(), largeBody), is(true));
+    }
+
+    @Test
+    public void servesSmallBodyFilesFromTheCache() {
+        stubFor(get(urlEqualTo("/small")).willReturn(aResponse().withStatus(200).withBodyFile("small.txt")));
+
+        assertThat(testClient.get("/small").content(), is("Small enough to cache"));
+        assertThat(testClient.get("/small").content(), is("Small enough to cache"));
+    }
+}
@@ -66,6 +66,24 @@ public class BrowserProxyAcceptanceTest {
         assertThat(testClient.getViaProxy(url("/search?q=things&limit=10"), proxy.port()).statusCode(), is(200));
     }
 
+    @Test
+    public void sendsTheTargetHostWhenProxyingHttpAsynchronously() {
+        WireMockServer asyncProxy = new WireMockServer(wireMockConfig()
+                .port(0)
+                .enableBrowserProxying(true)
+                .enableAsynchronousProxying(true));
+        asyncProxy.start();
+
+        try {
+            stubFor(get(urlEqualTo("/async")).willReturn(aResponse().withBody("Got it asynchronously")));
+
+            assertThat(testClient.getViaProxy(url("/async"), asyncProxy.port()).content(), is("Got it asynchronously"));
+            verify(getRequestedFor(urlEqualTo("/async")).withHeader("Host", equalTo("localhost:" + wireMockRule.port())));
+        } finally {
+            asyncProxy.stop();
+        }
+    }
+
     private String url(String pathAndQuery) {
         return "http://localhost:" + wireMockRule.port() + pathAndQuery;
     }
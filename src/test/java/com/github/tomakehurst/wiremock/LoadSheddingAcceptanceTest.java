@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.ThreadPoolStats;
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Strings.repeat;
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class LoadSheddingAcceptanceTest {
+
+    private static final int PORT = 8080;
+    private static final int STALLED_REQUESTS = 6;
+    private static final int MAX_STALLED_REQUESTS = 20;
+    private static final int SHED_PROBES = 3;
+    private static final int LARGE_BODY_SIZE = 8 * 1024 * 1024;
+
+    private WireMockServer wireMockServer;
+    private List<Socket> stalled = newArrayList();
+
+    @After
+    public void stopServer() throws IOException {
+        // Closed first, or the server waits out the idle timeout on threads still blocked writing to them
+        closeStalledRequests();
+        wireMockServer.stop();
+    }
+
+    @Test
+    public void turnsRequestsAwayWith503WhenThreadsAndQueueAreFull() throws Exception {
+        startServer(false);
+        assertRequestsAreShed();
+    }
+
+    @Test
+    public void turnsRequestsAwayWith503WhenThreadsAndQueueAreFullUsingNonBlockingConnector() throws Exception {
+        startServer(true);
+        assertRequestsAreShed();
+    }
+
+    @Test
+    public void reportsThreadPoolSettings() {
+        startServer(false);
+
+        ThreadPoolStats stats = WireMock.getThreadPoolStats();
+
+        assertThat(stats.getMaxThreads(), is(5));
+        assertThat(stats.getQueueCapacity(), is(0));
+        assertThat(stats.getRejectedRequests(), is(0L));
+    }
+
+    private void startServer(boolean nonBlocking) {
+        wireMockServer = new WireMockServer(wireMockConfig()
+                .port(PORT)
+                .requestThreads(2, 5)
+                .requestQueueCapacity(0)
+                .loadSheddingResponseBody("Busy, come back later")
+                .useNonBlockingConnectors(nonBlocking));
+        wireMockServer.start();
+        WireMock.configure();
+    }
+
+    private void assertRequestsAreShed() throws Exception {
+        stubFor(get(urlEqualTo("/large")).willReturn(aResponse().withStatus(200).withBody(repeat("x", LARGE_BODY_SIZE))));
+        stubFor(get(urlEqualTo("/fast")).willReturn(aResponse().withStatus(200)));
+
+        // Each of these holds a thread writing a response it never reads, whichever connector is in use.
+        // Fixed delays won't do, as the non-blocking connector suspends delayed requests rather than holding threads.
+        for (int i = 0; i < STALLED_REQUESTS; i++) {
+            stalled.add(unreadGet("/large"));
+        }
+        awaitAllThreadsBusy();
+
+        for (int i = 0; i < SHED_PROBES; i++) {
+            String content = rawGet("/fast");
+            assertThat(content, containsString("HTTP/1.1 503"));
+            assertThat(content, containsString("Busy, come back later"));
+        }
+
+        int served = 0;
+        for (Socket socket: stalled) {
+            if (statusLineOf(socket).startsWith("HTTP/1.1 200")) {
+                served++;
+            }
+        }
+        closeStalledRequests();
+
+        assertThat(served, greaterThan(0));
+        assertThat(WireMock.getThreadPoolStats().getRejectedRequests(), greaterThanOrEqualTo((long) SHED_PROBES));
+    }
+
+    // Reads the pool directly, as a stats request over HTTP could itself be shed.
+    // Stalling requests that arrived while the pool was still growing may have been shed rather than
+    // holding a thread, so more are sent whenever the pool stays short of full for a while.
+    private void awaitAllThreadsBusy() throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        long nextTopUp = System.currentTimeMillis() + 500;
+        ThreadPoolStats stats = wireMockServer.getThreadPoolStats();
+        while (stats.getIdleThreads() > 0 || stats.getThreads() < stats.getMaxThreads()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail(String.format("Request threads never all became busy: %d of %d running, %d idle",
+                        stats.getThreads(), stats.getMaxThreads(), stats.getIdleThreads()));
+            }
+
+            if (System.currentTimeMillis() > nextTopUp && stalled.size() < MAX_STALLED_REQUESTS) {
+                stalled.add(unreadGet("/large"));
+                nextTopUp = System.currentTimeMillis() + 500;
+            }
+
+            Thread.sleep(20);
+            stats = wireMockServer.getThreadPoolStats();
+        }
+    }
+
+    private void closeStalledRequests() throws IOException {
+        for (Socket socket: stalled) {
+            socket.close();
+        }
+        stalled.clear();
+    }
+
+    private static Socket unreadGet(String path) throws Exception {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress("localhost", PORT));
+        socket.getOutputStream().write(
+                ("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes(UTF_8));
+        return socket;
+    }
+
+    private static String statusLineOf(Socket socket) {
+        try {
+            byte[] start = new byte[12];
+            ByteStreams.readFully(socket.getInputStream(), start);
+            return new String(start, UTF_8);
+        } catch (IOException e) {
+            // Shed before it could be served
+            return "";
+        }
+    }
+
+    private static String rawGet(String path) throws Exception {
+        Socket socket = new Socket("localhost", PORT);
+        try {
+            socket.getOutputStream().write(
+                    ("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes(UTF_8));
+            return new String(ByteStreams.toByteArray(socket.getInputStream()), UTF_8);
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -21,11 +21,16 @@ import com.github.tomakehurst.wiremock.standalone.JsonFileMappingsLoader;
 import com.github.tomakehurst.wiremock.standalone.MappingsLoader;
 import com.github.tomakehurst.wiremock.testsupport.WireMockResponse;
 import com.github.tomakehurst.wiremock.testsupport.WireMockTestClient;
+import com.google.common.io.Files;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.google.common.base.Charsets.UTF_8;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -61,6 +66,43 @@ public class MappingsLoaderAcceptanceTest {
 		assertThat(response.statusCode(), is(401));
 	}
 
+    @Test
+    public void mappingsLoadedFromJsonFilesInParallel() {
+        buildWireMock(wireMockConfig());
+        wireMockServer.loadMappingsUsing(new JsonFileMappingsLoader(new SingleRootFileSource("src/test/resources/test-requests"), true));
+
+        assertThat(testClient.get("/canned/resource/1").statusCode(), is(200));
+        assertThat(testClient.get("/canned/resource/2").statusCode(), is(401));
+    }
+
+    @Test
+    public void parallelLoadingInsertsMappingsInTheSameOrderAsSerialLoading() {
+        File mappingsDirectory = Files.createTempDir();
+        for (int i = 0; i < 300; i++) {
+            writeMappingFile(mappingsDirectory, i);
+        }
+
+        buildWireMock(wireMockConfig());
+        wireMockServer.loadMappingsUsing(new JsonFileMappingsLoader(new SingleRootFileSource(mappingsDirectory), false));
+        String servedAfterSerialLoad = testClient.get("/same/url").content();
+
+        wireMockServer.stop();
+        buildWireMock(wireMockConfig());
+        wireMockServer.loadMappingsUsing(new JsonFileMappingsLoader(new SingleRootFileSource(mappingsDirectory), true));
+
+        assertThat(testClient.get("/same/url").content(), is(servedAfterSerialLoad));
+    }
+
+    private static void writeMappingFile(File directory, int index) {
+        try {
+            Files.write("{ \"request\": { \"method\": \"GET\", \"url\": \"/same/url\" }, " +
+                    "\"response\": { \"status\": 200, \"body\": \"Mapping " + index + "\" } }",
+                    new File(directory, "mapping-" + index + ".json"), UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Test
     public void mappingsLoadedViaClasspath() {
         buildWireMock(wireMockConfig().usingFilesUnderClasspath("classpath-filesource"));
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.http.HttpClientFactory;
+import com.google.common.base.Stopwatch;
+import org.apache.http.HttpResponse;
+import org.apache.http.MalformedChunkCodingException;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.ProtocolException;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.google.common.collect.Lists.newArrayList;
+import static junit.framework.Assert.assertTrue;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class NonBlockingConnectorAcceptanceTest {
+
+    private static final int HTTP_PORT = 8080;
+    private static final int HTTPS_PORT = 8443;
+    private static final int SOCKET_TIMEOUT_MILLISECONDS = 500;
+    private static final int SMALL_POOL_THREADS = 6;
+    private static final int CONCURRENT_DELAYED_REQUESTS = 20;
+    private static final int DELAY_MILLISECONDS = 1000;
+
+    private WireMockServer wireMockServer;
+    private HttpClient httpClient;
+
+    @Before
+    public void init() {
+        wireMockServer = new WireMockServer(wireMockConfig()
+                .port(HTTP_PORT)
+                .httpsPort(HTTPS_PORT)
+                .useNonBlockingConnectors(true));
+        wireMockServer.start();
+        WireMock.configure();
+
+        httpClient = HttpClientFactory.createClient(50, SOCKET_TIMEOUT_MILLISECONDS);
+    }
+
+    @After
+    public void serverShutdown() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    public void servesStubsOverHttpAndHttps() throws Exception {
+        stubFor(get(urlEqualTo("/nio")).willReturn(aResponse().withStatus(200).withBody("NIO content")));
+
+        assertThat(contentFor(httpUrl("/nio")), is("NIO content"));
+        assertThat(contentFor(httpsUrl("/nio")), is("NIO content"));
+    }
+
+    @Test
+    public void appliesFaultsOverHttp() {
+        stubFaults();
+
+        getAndAssertUnderlyingExceptionInstanceClass(httpUrl("/empty/response"), NoHttpResponseException.class);
+        getAndAssertUnderlyingExceptionInstanceClass(httpUrl("/malformed/response"), MalformedChunkCodingException.class);
+        getAndAssertUnderlyingExceptionInstanceClass(httpUrl("/random/data"), ProtocolException.class);
+    }
+
+    @Test
+    public void appliesFaultsOverHttps() {
+        stubFaults();
+
+        getAndAssertUnderlyingExceptionInstanceClass(httpsUrl("/empty/response"), NoHttpResponseException.class);
+        getAndAssertUnderlyingExceptionInstanceClass(httpsUrl("/malformed/response"), MalformedChunkCodingException.class);
+        getAndAssertUnderlyingExceptionInstanceClass(httpsUrl("/random/data"), ProtocolException.class);
+    }
+
+    @Test
+    public void addsDelayBeforeServingRequests() throws Exception {
+        long delayMillis = SOCKET_TIMEOUT_MILLISECONDS / 2;
+        WireMock.addRequestProcessingDelay((int) delayMillis);
+
+        Stopwatch stopwatch = new Stopwatch().start();
+        httpClient.execute(new HttpGet(httpUrl("/anything")));
+        stopwatch.stop();
+        assertThat(stopwatch.elapsedMillis(), greaterThanOrEqualTo(delayMillis));
+
+        stopwatch = new Stopwatch().start();
+        httpClient.execute(new HttpGet(httpsUrl("/anything")));
+        stopwatch.stop();
+        assertThat(stopwatch.elapsedMillis(), greaterThanOrEqualTo(delayMillis));
+    }
+
+    @Test(expected=SocketTimeoutException.class)
+    public void causesSocketTimeoutExceptionWhenDelayGreaterThanSoTimeoutSetting() throws Exception {
+        WireMock.addRequestProcessingDelay(SOCKET_TIMEOUT_MILLISECONDS * 3);
+        httpClient.execute(new HttpGet(httpUrl("/anything")));
+    }
+
+    @Test
+    public void delayedRequestsDoNotHoldRequestThreads() throws Exception {
+        wireMockServer.stop();
+        wireMockServer = new WireMockServer(wireMockConfig()
+                .port(HTTP_PORT)
+                .httpsPort(HTTPS_PORT)
+                .requestThreads(SMALL_POOL_THREADS, SMALL_POOL_THREADS)
+                .useNonBlockingConnectors(true));
+        wireMockServer.start();
+
+        stubFor(get(urlEqualTo("/delayed")).willReturn(aResponse().withStatus(200).withFixedDelay(DELAY_MILLISECONDS)));
+
+        final HttpClient concurrentClient = HttpClientFactory.createClient(CONCURRENT_DELAYED_REQUESTS, DELAY_MILLISECONDS * 5);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_DELAYED_REQUESTS);
+        List<Future<Integer>> statuses = newArrayList();
+        Stopwatch stopwatch = new Stopwatch().start();
+        for (int i = 0; i < CONCURRENT_DELAYED_REQUESTS; i++) {
+            statuses.add(executor.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    HttpResponse response = concurrentClient.execute(new HttpGet(httpUrl("/delayed")));
+                    EntityUtils.consume(response.getEntity());
+                    return response.getStatusLine().getStatusCode();
+                }
+            }));
+        }
+
+        for (Future<Integer> status: statuses) {
+            assertThat(status.get(), is(200));
+        }
+        stopwatch.stop();
+        executor.shutdown();
+
+        assertThat(stopwatch.elapsedMillis(), lessThan(DELAY_MILLISECONDS * 2L));
+    }
+
+    private void stubFaults() {
+        stubFor(get(urlEqualTo("/empty/response")).willReturn(aResponse().withFault(Fault.EMPTY_RESPONSE)));
+        stubFor(get(urlEqualTo("/malformed/response")).willReturn(aResponse().withFault(Fault.MALFORMED_RESPONSE_CHUNK)));
+        stubFor(get(urlEqualTo("/random/data")).willReturn(aResponse().withFault(Fault.RANDOM_DATA_THEN_CLOSE)));
+    }
+
+    private String httpUrl(String path) {
+        return String.format("http://localhost:%d%s", HTTP_PORT, path);
+    }
+
+    private String httpsUrl(String path) {
+        return String.format("https://localhost:%d%s", HTTPS_PORT, path);
+    }
+
+    private void getAndAssertUnderlyingExceptionInstanceClass(String url, Class<?> expectedClass) {
+        boolean thrown = false;
+        try {
+            contentFor(url);
+        } catch (Exception e) {
+            Throwable cause = e.getCause();
+            if (cause != null) {
+                assertThat(e.getCause(), instanceOf(expectedClass));
+            } else {
+                assertThat(e, instanceOf(expectedClass));
+            }
+
+            thrown = true;
+        }
+
+        assertTrue("No exception was thrown for " + url, thrown);
+    }
+
+    private String contentFor(String url) throws Exception {
+        HttpResponse response = httpClient.execute(new HttpGet(url));
+        return EntityUtils.toString(response.getEntity());
+    }
+}
@@ -17,15 +17,32 @@ package com.github.tomakehurst.wiremock;
 
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestListener;
+import com.github.tomakehurst.wiremock.http.Response;
 import com.github.tomakehurst.wiremock.testsupport.WireMockResponse;
 import com.github.tomakehurst.wiremock.testsupport.WireMockTestClient;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static com.github.tomakehurst.wiremock.testsupport.TestHttpHeader.withHeader;
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -51,8 +68,12 @@ public class ProxyAcceptanceTest {
         WireMock.configure();
 	}
 
+    WireMockConfiguration defaultConfig() {
+        return wireMockConfig();
+    }
+
     void initWithDefaultConfig() {
-        init(wireMockConfig());
+        init(defaultConfig());
     }
 	
 	@After
@@ -178,4 +199,114 @@ public class ProxyAcceptanceTest {
 
         targetServiceAdmin.verifyThat(patchRequestedFor(urlEqualTo("/patch")).withRequestBody(equalTo("Patch body")));
     }
+
+    @Test
+    public void forwardsBinaryRequestBodyBytesUnchanged() {
+        initWithDefaultConfig();
+
+        targetServiceAdmin.register(post(urlEqualTo("/binary/upload")).willReturn(aResponse().withStatus(201)));
+        proxyingServiceAdmin.register(post(urlEqualTo("/binary/upload")).willReturn(aResponse().proxiedFrom("http://localhost:8087")));
+
+        // The journal holds bodies as strings, which would mangle bytes that aren't valid UTF-8
+        final List<byte[]> receivedBodies = newArrayList();
+        targetService.addMockServiceRequestListener(new RequestListener() {
+            public void requestReceived(Request request, Response response) {
+                receivedBodies.add(request.getBody());
+            }
+        });
+
+        byte[] body = new byte[] { (byte) 0xFF, (byte) 0xFE, 0x00, (byte) 0x80 };
+        testClient.post("/binary/upload", new ByteArrayEntity(body, ContentType.APPLICATION_OCTET_STREAM));
+
+        targetServiceAdmin.verifyThat(postRequestedFor(urlEqualTo("/binary/upload")).withHeader("Content-Length", equalTo("4")));
+        assertThat(receivedBodies.size(), is(1));
+        assertThat(Arrays.equals(receivedBodies.get(0), body), is(true));
+    }
+
+    @Test
+    public void streamsLargeBinaryResponseFromOtherService() {
+        initWithDefaultConfig();
+
+        byte[] body = new byte[512 * 1024];
+        new Random(1).nextBytes(body);
+        targetServiceAdmin.register(get(urlEqualTo("/binary/large"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/octet-stream")
+                        .withBody(body)));
+        proxyingServiceAdmin.register(get(urlEqualTo("/binary/large")).willReturn(aResponse().proxiedFrom("http://localhost:8087")));
+
+        WireMockResponse response = testClient.get("/binary/large");
+
+        assertThat(response.statusCode(), is(200));
+        assertThat(Arrays.equals(response.binaryContent(), body), is(true));
+    }
+
+    @Test
+    public void coalescesConcurrentIdenticalGetsIntoOneUpstreamRequest() throws Exception {
+        init(defaultConfig().coalesceProxyRequests(Collections.<String>emptyList()));
+
+        targetServiceAdmin.register(get(urlEqualTo("/coalesced"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("Shared content")
+                        .withFixedDelay(500)));
+        proxyingServiceAdmin.register(get(urlEqualTo("/coalesced")).willReturn(aResponse().proxiedFrom("http://localhost:8087")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<WireMockResponse>> responses = newArrayList();
+        for (int i = 0; i < 10; i++) {
+            responses.add(executor.submit(new Callable<WireMockResponse>() {
+                public WireMockResponse call() {
+                    return testClient.get("/coalesced");
+                }
+            }));
+        }
+
+        for (Future<WireMockResponse> response: responses) {
+            assertThat(response.get().content(), is("Shared content"));
+        }
+        executor.shutdown();
+
+        targetServiceAdmin.verifyThat(1, getRequestedFor(urlEqualTo("/coalesced")));
+    }
+
+    @Test
+    public void delaysProxiedResponseByTheStubsFixedDelay() {
+        initWithDefaultConfig();
+
+        targetServiceAdmin.register(get(urlEqualTo("/delayed/proxied"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("Delayed proxied content")));
+        proxyingServiceAdmin.register(get(urlEqualTo("/delayed/proxied"))
+                .willReturn(aResponse()
+                        .proxiedFrom("http://localhost:8087")
+                        .withFixedDelay(500)));
+
+        long start = System.currentTimeMillis();
+        WireMockResponse response = testClient.get("/delayed/proxied");
+        int duration = (int) (System.currentTimeMillis() - start);
+
+        assertThat(duration, greaterThanOrEqualTo(500));
+        assertThat(response.statusCode(), is(200));
+        assertThat(response.content(), is("Delayed proxied content"));
+    }
+
+    @Test
+    public void servesCacheableResponsesFromCacheUntilStale() {
+        init(defaultConfig().cacheProxyResponses(1024 * 1024));
+
+        targetServiceAdmin.register(get(urlEqualTo("/cacheable"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Cache-Control", "max-age=60")
+                        .withBody("Cacheable content")));
+        proxyingServiceAdmin.register(get(urlEqualTo("/cacheable")).willReturn(aResponse().proxiedFrom("http://localhost:8087")));
+
+        assertThat(testClient.get("/cacheable").content(), is("Cacheable content"));
+        assertThat(testClient.get("/cacheable").content(), is("Cacheable content"));
+
+        targetServiceAdmin.verifyThat(1, getRequestedFor(urlEqualTo("/cacheable")));
+    }
 }
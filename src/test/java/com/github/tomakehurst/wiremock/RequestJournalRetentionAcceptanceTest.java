@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock;
+
+import com.github.tomakehurst.wiremock.verification.RequestJournalStats;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RequestJournalRetentionAcceptanceTest extends AcceptanceTestBase {
+
+    @BeforeClass
+    public static void setupServer() {
+        setupServer(wireMockConfig().maxRequestJournalEntries(3));
+    }
+
+    @Test
+    public void onlyTheMostRecentRequestsAreVerifiable() {
+        for (int i = 1; i <= 5; i++) {
+            testClient.get("/journal/" + i);
+        }
+
+        verify(0, getRequestedFor(urlEqualTo("/journal/2")));
+        verify(getRequestedFor(urlEqualTo("/journal/3")));
+        verify(getRequestedFor(urlEqualTo("/journal/5")));
+    }
+
+    @Test
+    public void evictionCountersAreAvailableThroughTheAdminApi() {
+        for (int i = 1; i <= 5; i++) {
+            testClient.get("/journal/" + i);
+        }
+
+        RequestJournalStats stats = getRequestJournalStats();
+        assertThat(stats.getEntries(), is(3));
+        assertThat(stats.getMaxEntries(), is(3));
+        assertThat(stats.getEvictedEntries(), is(2L));
+    }
+}
@@ -16,6 +16,7 @@
 package com.github.tomakehurst.wiremock;
 
 import com.github.tomakehurst.wiremock.common.SingleRootFileSource;
+import com.github.tomakehurst.wiremock.standalone.MappingsSnapshot;
 import com.github.tomakehurst.wiremock.testsupport.WireMockResponse;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -54,7 +55,7 @@ public class SavingMappingsAcceptanceTest extends AcceptanceTestBase {
     @BeforeClass
     public static void setupServer() {
         resetFileSourceRoot();
-        setupServer(wireMockConfig().fileSource(new SingleRootFileSource(FILE_SOURCE_ROOT)));
+        setupServer(wireMockConfig().fileSource(new SingleRootFileSource(FILE_SOURCE_ROOT)).keepMappingsSnapshot(true));
     }
 
     @Before
@@ -119,4 +120,25 @@ public class SavingMappingsAcceptanceTest extends AcceptanceTestBase {
         // Check only one file has been written
         assertThat(MAPPINGS_DIRECTORY.listFiles().length, is(1));
     }
+
+    @Test
+    public void writesMappingsSnapshotToRootDirectory() {
+        stubFor(get(urlEqualTo("/some/url"))
+                .willReturn(aResponse().withBody("Response to /some/url")));
+
+        snapshotAllMappings();
+
+        assertThat(new File(FILE_SOURCE_ROOT, MappingsSnapshot.SNAPSHOT_FILE_NAME).exists(), is(true));
+    }
+
+    @Test
+    public void doesNotBringBackTransientMappingsFromASnapshotOnReset() {
+        stubFor(get(urlEqualTo("/transient/url"))
+                .willReturn(aResponse().withBody("Transient")));
+        snapshotAllMappings();
+
+        resetToDefault();
+
+        assertThat(testClient.get("/transient/url").statusCode(), is(404));
+    }
 }
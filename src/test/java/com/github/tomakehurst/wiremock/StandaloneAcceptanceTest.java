@@ -284,6 +284,7 @@ public class StandaloneAcceptanceTest {
 		        .willReturn(aResponse().withStatus(HTTP_OK).withBody("Proxied body")));
 
 		testClient.get("/please/record-this");
+		runner.flushRecordings();
 		
 		assertThat(mappingsDirectory, containsAFileContaining("/please/record-this"));
 		assertThat(contentsOfFirstFileNamedLike("please-record-this"),
@@ -301,6 +302,7 @@ public class StandaloneAcceptanceTest {
 		        .willReturn(aResponse().withStatus(HTTP_OK).withBody("Proxied body")));
 		
 		testClient.get("/please/record-headers", withHeader("accept", "application/json"));
+		runner.flushRecordings();
 		
 		assertThat(mappingsDirectory, containsAFileContaining("/please/record-headers"));
 		assertThat(contentsOfFirstFileNamedLike("please-record-headers"), containsString("\"Accept\" : {"));
@@ -321,6 +323,7 @@ public class StandaloneAcceptanceTest {
 	public void doesNotRecordRequestWhenNotProxied() {
 	    startRunner("--record-mappings");
 	    testClient.get("/try-to/record-this");
+	    runner.flushRecordings();
 	    assertThat(mappingsDirectory, doesNotContainAFileWithNameContaining("try-to-record"));
 	}
 
@@ -131,6 +131,22 @@ public class StubbingAcceptanceTest extends AcceptanceTestBase {
 		assertThat(response.content(), is("Some example test from a file"));
 	}
 	
+	@Test
+	public void responseBodyAndHeadersRenderedWithCapturedValues() {
+		stubFor(get(urlMatching("/capture/.*"))
+				.willCapture("id", fromUrl().withPattern("/capture/([^/]*)").captureGroup(1))
+				.willReturn(aResponse()
+				.withStatus(200)
+				.withHeader("X-Id", "${id}")
+				.withBody("{ \"id\": \"${id}\", \"again\": \"${id}\", \"other\": \"${other}\" }")));
+
+		WireMockResponse response = testClient.get("/capture/abc");
+		assertThat(response.header("X-Id"), is("abc"));
+		assertThat(response.content(), is("{ \"id\": \"abc\", \"again\": \"abc\", \"other\": \"${other}\" }"));
+
+		assertThat(testClient.get("/capture/xyz").header("X-Id"), is("xyz"));
+	}
+	
 	@Test
 	public void matchingOnRequestBodyWithTwoRegexes() {
 		stubFor(put(urlEqualTo("/match/this/body"))
@@ -189,10 +205,12 @@ public class StubbingAcceptanceTest extends AcceptanceTestBase {
                 .withFixedDelay(500)));
         
 	    long start = System.currentTimeMillis();
-        testClient.get("/delayed/resource");
+        WireMockResponse response = testClient.get("/delayed/resource");
         int duration = (int) (System.currentTimeMillis() - start);
         
         assertThat(duration, greaterThanOrEqualTo(500));
+        assertThat(response.statusCode(), is(200));
+        assertThat(response.content(), is("Content"));
 	}
 	
 	@Test
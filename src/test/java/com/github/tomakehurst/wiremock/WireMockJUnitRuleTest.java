@@ -36,6 +36,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -195,6 +196,37 @@ public class WireMockJUnitRuleTest {
         }
     }
 
+    public static class SeparateAdminPort {
+
+        @Rule
+        public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(0).adminPort(0));
+
+        @ClassRule
+        public static WireMockClassRule wireMockClassRule = new WireMockClassRule(wireMockConfig().port(0).adminPort(0));
+
+        @Test
+        public void stubsThroughTheAdminPortOfRule() {
+            assertThat(wireMockRule.adminPort(), not(wireMockRule.port()));
+
+            wireMockRule.stubFor(get(urlEqualTo("/admin-port/rule")).willReturn(aResponse().withBody("Rule")));
+            givenThat(get(urlEqualTo("/admin-port/static")).willReturn(aResponse().withBody("Static")));
+
+            assertThat(new WireMockTestClient(wireMockRule.port()).get("/admin-port/rule").content(), is("Rule"));
+            assertThat(new WireMockTestClient(wireMockRule.port()).get("/admin-port/static").content(), is("Static"));
+            wireMockRule.verify(getRequestedFor(urlEqualTo("/admin-port/rule")));
+        }
+
+        @Test
+        public void stubsThroughTheAdminPortOfClassRule() {
+            assertThat(wireMockClassRule.adminPort(), not(wireMockClassRule.port()));
+
+            wireMockClassRule.stubFor(get(urlEqualTo("/admin-port/class-rule")).willReturn(aResponse().withBody("Class rule")));
+
+            assertThat(new WireMockTestClient(wireMockClassRule.port()).get("/admin-port/class-rule").content(), is("Class rule"));
+            wireMockClassRule.verify(getRequestedFor(urlEqualTo("/admin-port/class-rule")));
+        }
+    }
+
     public static class RuleStubbing {
 
         @ClassRule
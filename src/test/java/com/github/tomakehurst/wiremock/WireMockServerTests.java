@@ -15,14 +15,26 @@
  */
 package com.github.tomakehurst.wiremock;
 
+import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.common.SingleRootFileSource;
 import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.RecordingStats;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.testsupport.WireMockTestClient;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.google.common.collect.Sets.newHashSet;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 
 public class WireMockServerTests {
 
@@ -43,4 +55,76 @@ public class WireMockServerTests {
             }
         }
     }
+
+    @Test
+    public void stopsRecordingWritersWhenStopped() throws Exception {
+        Options options = new WireMockConfiguration().port(0).fileSource(new SingleRootFileSource(tempDir.getRoot()));
+        WireMockServer wireMockServer = new WireMockServer(options);
+        wireMockServer.start();
+
+        Set<Thread> writersBefore = recordingWriterThreads();
+        wireMockServer.enableRecordMappings(
+                new SingleRootFileSource(tempDir.newFolder("mappings")), new SingleRootFileSource(tempDir.newFolder("__files")));
+        Set<Thread> startedWriters = recordingWriterThreads();
+        startedWriters.removeAll(writersBefore);
+
+        wireMockServer.stop();
+
+        assertThat(startedWriters.size(), is(1));
+        assertThat(startedWriters.iterator().next().isAlive(), is(false));
+    }
+
+    @Test
+    public void reportsRecordingStatsThroughTheAdminApi() throws Exception {
+        WireMockServer targetServer = new WireMockServer(new WireMockConfiguration().port(0));
+        WireMockServer recordingServer = new WireMockServer(
+                new WireMockConfiguration()
+                        .port(0)
+                        .fileSource(new SingleRootFileSource(tempDir.getRoot()))
+                        .recordRequestHeadersForMatching(Collections.<String>emptyList()));
+        targetServer.start();
+        recordingServer.start();
+        try {
+            new WireMock("localhost", targetServer.port())
+                    .register(get(urlEqualTo("/recorded")).willReturn(aResponse().withBody("Recorded content")));
+            WireMock recordingServerAdmin = new WireMock("localhost", recordingServer.port());
+            recordingServerAdmin.register(get(urlEqualTo("/recorded"))
+                    .willReturn(aResponse().proxiedFrom("http://localhost:" + targetServer.port())));
+            recordingServer.enableRecordMappings(
+                    new SingleRootFileSource(tempDir.newFolder("mappings")), new SingleRootFileSource(tempDir.newFolder("__files")));
+
+            new WireMockTestClient(recordingServer.port()).get("/recorded");
+            RecordingStats stats = awaitWrittenRecording(recordingServerAdmin);
+
+            assertThat(stats.getQueued(), is(1L));
+            assertThat(stats.getWritten(), is(1L));
+            assertThat(stats.getDropped(), is(0L));
+            assertThat(stats.getPending(), is(0));
+        } finally {
+            recordingServer.stop();
+            targetServer.stop();
+        }
+    }
+
+    private static RecordingStats awaitWrittenRecording(WireMock admin) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        RecordingStats stats = admin.recordingStats();
+        while (stats.getWritten() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            stats = admin.recordingStats();
+        }
+
+        return stats;
+    }
+
+    private static Set<Thread> recordingWriterThreads() {
+        Set<Thread> writers = newHashSet();
+        for (Thread thread: Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("wiremock-recording-writer")) {
+                writers.add(thread);
+            }
+        }
+
+        return writers;
+    }
 }
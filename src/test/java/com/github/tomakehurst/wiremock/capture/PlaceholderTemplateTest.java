@@ -0,0 +1,74 @@
+package com.github.tomakehurst.wiremock.capture;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class PlaceholderTemplateTest {
+
+	private static final Map<String, String> VARIABLES = ImmutableMap.of("id", "123", "name", "Tom");
+
+	@Test
+	public void replacesEveryOccurrenceOfEachPlaceholder() {
+		PlaceholderTemplate template = PlaceholderTemplate.parse("${id}: ${name} (${id})", "${", "}");
+		assertThat(template.render(VARIABLES), is("123: Tom (123)"));
+	}
+
+	@Test
+	public void leavesPlaceholdersForUnknownVariablesAsTheyAre() {
+		PlaceholderTemplate template = PlaceholderTemplate.parse("${id} ${unknown} {plain}", "${", "}");
+		assertThat(template.render(VARIABLES), is("123 ${unknown} {plain}"));
+	}
+
+	@Test
+	public void usesTheInnermostOpeningDelimiter() {
+		PlaceholderTemplate template = PlaceholderTemplate.parse("${x ${id}", "${", "}");
+		assertThat(template.render(VARIABLES), is("${x 123"));
+	}
+
+	@Test
+	public void supportsMultiCharacterDelimiters() {
+		PlaceholderTemplate template = PlaceholderTemplate.parse("<<name>>>> <<id", "<<", ">>");
+		assertThat(template.render(VARIABLES), is("Tom>> <<id"));
+	}
+
+	@Test
+	public void pairsIdenticalDelimitersLeftToRight() {
+		Map<String, String> variables = ImmutableMap.of("a", "X");
+		assertThat(PlaceholderTemplate.parse("100% of %a%", "%", "%").render(variables), is("100% of X"));
+		assertThat(PlaceholderTemplate.parse("#1 item #a#", "#", "#").render(variables), is("#1 item X"));
+		assertThat(PlaceholderTemplate.parse("%a%%a% %b%", "%", "%").render(variables), is("XX %b%"));
+	}
+
+	@Test
+	public void skipsStrayIdenticalDelimitersBetweenPlaceholders() {
+		Map<String, String> variables = ImmutableMap.of("a", "X", "id", "123");
+		PlaceholderTemplate template = PlaceholderTemplate.parse("100% of %a% and %id%% %%", "%", "%");
+		assertThat(template.render(variables), is("100% of X and 123% %%"));
+	}
+
+	@Test
+	public void doesNotExpandPlaceholdersInsideValues() {
+		PlaceholderTemplate template = PlaceholderTemplate.parse("${a}", "${", "}");
+		assertThat(template.render(ImmutableMap.of("a", "${a}")), is("${a}"));
+	}
+
+	@Test
+	public void returnsTheSourceWhenThereAreNoPlaceholders() {
+		String source = "no placeholders here";
+		assertThat(PlaceholderTemplate.parse(source, "${", "}").render(VARIABLES), sameInstance(source));
+	}
+
+	@Test
+	public void cacheParsesEachInputOnce() {
+		PlaceholderTemplateCache cache = new PlaceholderTemplateCache(null);
+		PlaceholderTemplate template = cache.templateFor("${id}");
+		assertThat(cache.templateFor(new String("${id}")), sameInstance(template));
+		assertThat(new Replacer(VARIABLES, cache).replacePlaceholders("${id}"), is("123"));
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.common;
+
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BinaryFileCacheTest {
+
+    @Rule
+    public final TemporaryFolder tempDir = new TemporaryFolder();
+
+    @Test
+    public void servesCachedContentsWhileFileIsUnmodified() throws IOException {
+        File file = writeFile("body.txt", "original");
+        BinaryFileCache cache = new BinaryFileCache(1024);
+
+        byte[] first = cache.contentsOf(new BinaryFile(file.toURI()));
+        byte[] second = cache.contentsOf(new BinaryFile(file.toURI()));
+
+        assertThat(second == first, is(true));
+        assertThat(cache.size(), is(1L));
+    }
+
+    @Test
+    public void rereadsContentsWhenModificationTimeChanges() throws IOException {
+        File file = writeFile("body.txt", "original");
+        BinaryFileCache cache = new BinaryFileCache(1024);
+        cache.contentsOf(new BinaryFile(file.toURI()));
+
+        Files.write("changed", file, UTF_8);
+        file.setLastModified(file.lastModified() + 2000);
+
+        assertThat(new String(cache.contentsOf(new BinaryFile(file.toURI())), UTF_8), is("changed"));
+    }
+
+    @Test
+    public void doesNotHoldFilesLargerThanTheByteBudget() throws IOException {
+        File file = writeFile("big.txt", "more than ten bytes");
+        BinaryFileCache cache = new BinaryFileCache(10);
+
+        assertThat(new String(cache.contentsOf(new BinaryFile(file.toURI())), UTF_8), is("more than ten bytes"));
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void evictsEntriesToStayWithinTheByteBudget() throws IOException {
+        BinaryFileCache cache = new BinaryFileCache(20);
+        for (int i = 0; i < 5; i++) {
+            cache.contentsOf(new BinaryFile(writeFile("body" + i, "0123456789").toURI()));
+        }
+
+        assertThat(cache.size(), is(2L));
+    }
+
+    @Test
+    public void isEmptyAfterBeingCleared() throws IOException {
+        BinaryFileCache cache = new BinaryFileCache(1024);
+        cache.contentsOf(new BinaryFile(writeFile("body.txt", "stuff").toURI()));
+
+        cache.clear();
+
+        assertThat(cache.size(), is(0L));
+    }
+
+    private File writeFile(String name, String contents) throws IOException {
+        File file = new File(tempDir.getRoot(), name);
+        Files.write(contents, file, UTF_8);
+        return file;
+    }
+}
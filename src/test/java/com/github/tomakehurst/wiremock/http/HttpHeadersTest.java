@@ -15,11 +15,17 @@
  */
 package com.github.tomakehurst.wiremock.http;
 
+import com.github.tomakehurst.wiremock.capture.Replacer;
 import com.github.tomakehurst.wiremock.common.Json;
+import com.google.common.collect.ImmutableMap;
 import org.junit.Test;
 
+import java.util.Set;
+
 import static com.github.tomakehurst.wiremock.http.HttpHeader.httpHeader;
 import static com.github.tomakehurst.wiremock.testsupport.WireMatchers.*;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 
@@ -135,4 +141,72 @@ public class HttpHeadersTest {
         assertThat(headers.getHeader("header-one").firstValue(), is("value 1"));
     }
 
+    @Test
+    public void mergesValuesOfKeysDifferingOnlyInCase() {
+        HttpHeaders headers = new HttpHeaders(
+                httpHeader("Header-One", "value 1"),
+                httpHeader("Header-Two", "value 2"),
+                httpHeader("HEADER-ONE", "value 3"));
+
+        assertThat(headers.size(), is(2));
+        assertThat(headers.getHeader("header-one").values(), is(asList("value 1", "value 3")));
+        assertThat(headers.keys(), is((Set<String>) newHashSet("Header-One", "Header-Two")));
+    }
+
+    @Test
+    public void equalityIgnoresKeyCaseAndOrder() {
+        HttpHeaders headers = new HttpHeaders(
+                httpHeader("Header-One", "value 1"),
+                httpHeader("Header-Two", "value 2", "value 3"));
+        HttpHeaders sameHeaders = new HttpHeaders(
+                httpHeader("header-two", "value 2", "value 3"),
+                httpHeader("HEADER-ONE", "value 1"));
+        HttpHeaders otherHeaders = new HttpHeaders(
+                httpHeader("Header-One", "value 1"),
+                httpHeader("Header-Two", "value 3", "value 2"));
+
+        assertThat(headers, is(sameHeaders));
+        assertThat(headers.hashCode(), is(sameHeaders.hashCode()));
+        assertThat(headers, not(otherHeaders));
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void doesNotAllowValuesToBeChanged() {
+        HttpHeaders headers = new HttpHeaders(httpHeader("Header-One", "value 1"));
+
+        headers.getHeader("Header-One").values().add("value 2");
+    }
+
+    @Test
+    public void replacesPlaceholdersSharingValueListsWithNothingToReplace() {
+        HttpHeaders headers = new HttpHeaders(
+                httpHeader("Location", "/things/${id}"),
+                httpHeader("Content-Type", "text/plain"));
+        Replacer replacer = new Replacer(ImmutableMap.of("id", "123"));
+
+        HttpHeaders replaced = headers.replacePlaceholders(replacer);
+
+        assertThat(replaced.getHeader("Location").firstValue(), is("/things/123"));
+        assertThat(replaced.getHeader("Content-Type").values(), sameInstance(headers.getHeader("Content-Type").values()));
+        assertThat(headers.getHeader("Location").firstValue(), is("/things/${id}"));
+    }
+
+    @Test
+    public void returnsTheSameHeadersWhenNoPlaceholderIsReplaced() {
+        HttpHeaders headers = new HttpHeaders(httpHeader("Content-Type", "text/plain"));
+
+        assertThat(headers.replacePlaceholders(new Replacer(ImmutableMap.of("id", "123"))), sameInstance(headers));
+    }
+
+    @Test
+    public void caseInsensitiveKeysMatchRegardlessOfCase() {
+        CaseInsensitiveKey key = CaseInsensitiveKey.from("Content-Type");
+
+        assertThat(key, is(CaseInsensitiveKey.from("content-TYPE")));
+        assertThat(key.hashCode(), is(CaseInsensitiveKey.from("CONTENT-TYPE").hashCode()));
+        assertThat(key.matches("content-type"), is(true));
+        assertThat(key.matches("Content-Length"), is(false));
+        assertThat(key.value(), is("Content-Type"));
+    }
+
 }
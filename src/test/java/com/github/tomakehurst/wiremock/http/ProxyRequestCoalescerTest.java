@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.http;
+
+import com.github.tomakehurst.wiremock.testsupport.MockRequestBuilder;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import static com.github.tomakehurst.wiremock.http.CaseInsensitiveKey.TO_CASE_INSENSITIVE_KEYS;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.GET;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.POST;
+import static com.github.tomakehurst.wiremock.http.Response.response;
+import static com.github.tomakehurst.wiremock.testsupport.MockRequestBuilder.aRequest;
+import static com.google.common.collect.Lists.transform;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(JMock.class)
+public class ProxyRequestCoalescerTest {
+
+    private Mockery context;
+    private ProxyRequestCoalescer coalescer;
+    private int requestCount = 0;
+    private int upstreamCalls = 0;
+    private SettableFuture<Response> upstream;
+
+    @Before
+    public void init() {
+        context = new Mockery();
+        coalescer = new ProxyRequestCoalescer(transform(asList("Accept"), TO_CASE_INSENSITIVE_KEYS));
+    }
+
+    @Test
+    public void sharesOneUpstreamCallBetweenConcurrentIdenticalRequests() throws Exception {
+        ListenableFuture<Response> first = coalescer.coalesce(proxied(aGet("/thing")), newUpstreamCall());
+        ListenableFuture<Response> second = coalescer.coalesce(proxied(aGet("/thing")), newUpstreamCall());
+
+        assertThat(upstreamCalls, is(1));
+        upstream.set(response().body("shared").build());
+        assertThat(first.get().getBodyAsString(), is("shared"));
+        assertThat(second.get(), sameInstance(first.get()));
+    }
+
+    @Test
+    public void goesUpstreamAgainOnceTheSharedCallHasCompleted() {
+        coalescer.coalesce(proxied(aGet("/thing")), newUpstreamCall());
+        upstream.set(response().build());
+
+        coalescer.coalesce(proxied(aGet("/thing")), newUpstreamCall());
+
+        assertThat(upstreamCalls, is(2));
+        assertThat(coalescer.inFlightCount(), is(1));
+    }
+
+    @Test
+    public void doesNotShareBetweenRequestsWithDifferentKeyHeaderValues() {
+        ListenableFuture<Response> json = coalescer.coalesce(
+                proxied(aGet("/thing").withHeader("Accept", "application/json")), newUpstreamCall());
+        ListenableFuture<Response> xml = coalescer.coalesce(
+                proxied(aGet("/thing").withHeader("Accept", "text/xml")), newUpstreamCall());
+
+        assertThat(upstreamCalls, is(2));
+        assertThat(xml, not(sameInstance(json)));
+    }
+
+    @Test
+    public void passesUpstreamFailureToEveryWaitingRequestAndForgetsIt() throws Exception {
+        ListenableFuture<Response> first = coalescer.coalesce(proxied(aGet("/thing")), newUpstreamCall());
+        ListenableFuture<Response> second = coalescer.coalesce(proxied(aGet("/thing")), newUpstreamCall());
+        upstream.setException(new RuntimeException("Upstream down"));
+
+        assertFailed(first);
+        assertFailed(second);
+        assertThat(coalescer.inFlightCount(), is(0));
+    }
+
+    @Test
+    public void onlyCoalescesSafeMethods() {
+        assertThat(coalescer.canCoalesce(proxied(aGet("/thing"))), is(true));
+        assertThat(coalescer.canCoalesce(proxied(aRequest(context, "post").withMethod(POST).withUrl("/thing"))), is(false));
+    }
+
+    private void assertFailed(ListenableFuture<Response> future) throws InterruptedException {
+        try {
+            future.get();
+            fail("Expected the upstream failure");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage(), is("Upstream down"));
+        }
+    }
+
+    private MockRequestBuilder aGet(String url) {
+        return aRequest(context, "request" + requestCount++).withMethod(GET).withUrl(url);
+    }
+
+    private ResponseDefinition proxied(MockRequestBuilder requestBuilder) {
+        ResponseDefinition responseDefinition = new ResponseDefinition();
+        responseDefinition.setProxyBaseUrl("http://upstream");
+        responseDefinition.setOriginalRequest(requestBuilder.build());
+        return responseDefinition;
+    }
+
+    private Callable<ListenableFuture<Response>> newUpstreamCall() {
+        return new Callable<ListenableFuture<Response>>() {
+            public ListenableFuture<Response> call() {
+                upstreamCalls++;
+                upstream = SettableFuture.create();
+                return upstream;
+            }
+        };
+    }
+}
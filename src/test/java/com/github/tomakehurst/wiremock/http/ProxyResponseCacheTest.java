@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.http;
+
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.common.SingleRootFileSource;
+import com.github.tomakehurst.wiremock.testsupport.MockRequestBuilder;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.http.HttpHeader.httpHeader;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.GET;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.POST;
+import static com.github.tomakehurst.wiremock.http.Response.response;
+import static com.github.tomakehurst.wiremock.testsupport.MockRequestBuilder.aRequest;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JMock.class)
+public class ProxyResponseCacheTest {
+
+    private Mockery context;
+    private ProxyResponseCache cache;
+    private int requestCount = 0;
+    private List<List<HttpHeader>> upstreamCalls;
+
+    @Before
+    public void init() {
+        context = new Mockery();
+        cache = new ProxyResponseCache(1024, Optional.<FileSource>absent());
+        upstreamCalls = newArrayList();
+    }
+
+    @Test
+    public void servesFreshResponseWithoutGoingUpstream() {
+        getThroughCache(aGet(), upstreamReturning(200, "Fresh", httpHeader("Cache-Control", "max-age=60")));
+        Response second = getThroughCache(aGet(), upstreamReturning(200, "Other"));
+
+        assertThat(second.getBodyAsString(), is("Fresh"));
+        assertThat(upstreamCalls.size(), is(1));
+    }
+
+    @Test
+    public void doesNotStoreNoStoreOrPrivateResponses() {
+        getThroughCache(aGet(), upstreamReturning(200, "One", httpHeader("Cache-Control", "no-store, max-age=60")));
+        getThroughCache(aGet(), upstreamReturning(200, "Two", httpHeader("Cache-Control", "private, max-age=60")));
+        getThroughCache(aGet(), upstreamReturning(200, "Three"));
+
+        assertThat(upstreamCalls.size(), is(3));
+    }
+
+    @Test
+    public void revalidatesStaleEntryWithItsETagAndServesItWhenNotModified() {
+        getThroughCache(aGet(), upstreamReturning(200, "Tagged", httpHeader("Cache-Control", "no-cache"), httpHeader("ETag", "\"v1\"")));
+        Response revalidated = getThroughCache(aGet(), upstreamReturning(304, ""));
+
+        assertSentConditionalHeader(upstreamCalls.get(1), "If-None-Match", "\"v1\"");
+        assertThat(revalidated.getStatus(), is(200));
+        assertThat(revalidated.getBodyAsString(), is("Tagged"));
+    }
+
+    @Test
+    public void replacesStaleEntryWhenUpstreamSendsANewResponse() {
+        getThroughCache(aGet(), upstreamReturning(200, "Old", httpHeader("Last-Modified", "Tue, 15 Nov 1994 12:45:26 GMT")));
+        getThroughCache(aGet(), upstreamReturning(200, "New", httpHeader("Cache-Control", "max-age=60")));
+        Response third = getThroughCache(aGet(), upstreamReturning(200, "Other"));
+
+        assertSentConditionalHeader(upstreamCalls.get(1), "If-Modified-Since", "Tue, 15 Nov 1994 12:45:26 GMT");
+        assertThat(third.getBodyAsString(), is("New"));
+        assertThat(upstreamCalls.size(), is(2));
+    }
+
+    @Test
+    public void treatsExpiresInThePastAsStale() {
+        getThroughCache(aGet(), upstreamReturning(200, "Expired", httpHeader("Expires", "Thu, 01 Dec 1994 16:00:00 GMT")));
+        getThroughCache(aGet(), upstreamReturning(200, "Again"));
+
+        assertThat(upstreamCalls.size(), is(2));
+    }
+
+    @Test
+    public void goesUpstreamWhenClientAsksForNoCache() {
+        getThroughCache(aGet(), upstreamReturning(200, "Fresh", httpHeader("Cache-Control", "max-age=60")));
+        getThroughCache(aGet().withHeader("Cache-Control", "no-cache"), upstreamReturning(200, "Reloaded"));
+
+        assertThat(upstreamCalls.size(), is(2));
+    }
+
+    @Test
+    public void doesNotHoldBodiesLargerThanTheBudget() {
+        getThroughCache(aGet(), upstreamReturning(200, new String(new char[2048]), httpHeader("Cache-Control", "max-age=60")));
+
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void onlyCachesGetRequestsWithoutAuthorization() {
+        assertThat(cache.canCache(proxied(aGet())), is(true));
+        assertThat(cache.canCache(proxied(aGet().withHeader("Authorization", "Basic abc"))), is(false));
+        assertThat(cache.canCache(proxied(aRequest(context, "post").withMethod(POST).withUrl("/cached"))), is(false));
+    }
+
+    @Test
+    public void keepsEntriesOnDiskAcrossInstances() throws Exception {
+        FileSource diskStore = new SingleRootFileSource(Files.createTempDir());
+        cache = new ProxyResponseCache(1024, Optional.of(diskStore));
+        getThroughCache(aGet(), upstreamReturning(200, "Persisted", httpHeader("Cache-Control", "max-age=60")));
+
+        cache = new ProxyResponseCache(1024, Optional.of(diskStore));
+        Response fromDisk = getThroughCache(aGet(), upstreamReturning(200, "Other"));
+
+        assertThat(fromDisk.getBodyAsString(), is("Persisted"));
+        assertThat(upstreamCalls.size(), is(1));
+    }
+
+    @Test
+    public void removesDiskEntryWhenUpstreamResponseIsNoLongerCacheable() throws Exception {
+        FileSource diskStore = new SingleRootFileSource(Files.createTempDir());
+        cache = new ProxyResponseCache(1024, Optional.of(diskStore));
+        getThroughCache(aGet(), upstreamReturning(200, "Tagged", httpHeader("Cache-Control", "no-cache"), httpHeader("ETag", "\"v1\"")));
+        getThroughCache(aGet(), upstreamReturning(200, "Uncacheable", httpHeader("Cache-Control", "no-store")));
+
+        cache = new ProxyResponseCache(1024, Optional.of(diskStore));
+        getThroughCache(aGet(), upstreamReturning(200, "Other"));
+
+        assertThat(upstreamCalls.get(2).isEmpty(), is(true));
+        assertThat(diskStore.listFilesRecursively().isEmpty(), is(true));
+    }
+
+    @Test
+    public void treatsInvalidContentLengthAsUnknown() {
+        getThroughCache(aGet(), upstreamReturning(200, "Fresh", httpHeader("Cache-Control", "max-age=60"), httpHeader("Content-Length", "lots")));
+        Response second = getThroughCache(aGet(), upstreamReturning(200, "Other"));
+
+        assertThat(second.getBodyAsString(), is("Fresh"));
+        assertThat(upstreamCalls.size(), is(1));
+    }
+
+    private static void assertSentConditionalHeader(List<HttpHeader> headers, String key, String value) {
+        assertThat(headers.size(), is(1));
+        assertThat(headers.get(0).key(), is(key));
+        assertThat(headers.get(0).firstValue(), is(value));
+    }
+
+    private Response getThroughCache(MockRequestBuilder requestBuilder, Function<List<HttpHeader>, ListenableFuture<Response>> upstream) {
+        return getUnchecked(cache.responseFor(proxied(requestBuilder), upstream));
+    }
+
+    private Function<List<HttpHeader>, ListenableFuture<Response>> upstreamReturning(final int status, final String body, final HttpHeader... headers) {
+        return new Function<List<HttpHeader>, ListenableFuture<Response>>() {
+            public ListenableFuture<Response> apply(List<HttpHeader> conditionalHeaders) {
+                upstreamCalls.add(conditionalHeaders);
+                return immediateFuture(response().status(status).body(body).headers(new HttpHeaders(headers)).build());
+            }
+        };
+    }
+
+    private MockRequestBuilder aGet() {
+        return aRequest(context, "request" + requestCount++).withMethod(GET).withUrl("/cached");
+    }
+
+    private ResponseDefinition proxied(MockRequestBuilder requestBuilder) {
+        ResponseDefinition responseDefinition = new ResponseDefinition();
+        responseDefinition.setProxyBaseUrl("http://upstream");
+        responseDefinition.setOriginalRequest(requestBuilder.build());
+        return responseDefinition;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.matching;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParsedBodyTest {
+
+    @Test
+    public void parsesXmlOnlyOnce() throws Exception {
+        ParsedBody body = ParsedBody.of("<H><J>111</J></H>");
+
+        assertThat(body.asXml(), sameInstance(body.asXml()));
+    }
+
+    @Test
+    public void parsesJsonOnlyOnceForEachFormat() {
+        ParsedBody body = ParsedBody.of("{ \"one\": 1 }");
+
+        assertThat(body.asJson(), sameInstance(body.asJson()));
+        assertThat(body.asJsonPathDocument(), sameInstance(body.asJsonPathDocument()));
+    }
+
+    @Test
+    public void returnsNullJsonForInvalidJson() {
+        assertThat(ParsedBody.of("Not a JSON document").asJson(), is(nullValue()));
+    }
+
+    @Test
+    public void remembersXmlParseFailure() throws Exception {
+        ParsedBody body = ParsedBody.of("<something>whatever</something");
+
+        SAXException first = xmlParseFailureFrom(body);
+        assertThat(xmlParseFailureFrom(body), sameInstance(first));
+    }
+
+    @Test
+    public void sharesParsedBodyBetweenPatterns() {
+        ParsedBody body = ParsedBody.of("{ \"one\": 1, \"two\": 2 }");
+
+        assertTrue(ValuePattern.equalToJson("{ \"one\": 1, \"two\": 2 }").compile().isMatchFor(body));
+        ValuePattern jsonPathPattern = new ValuePattern();
+        jsonPathPattern.setMatchesJsonPaths("$.two");
+        assertTrue(jsonPathPattern.compile().isMatchFor(body));
+    }
+
+    private static SAXException xmlParseFailureFrom(ParsedBody body) throws Exception {
+        try {
+            body.asXml();
+        } catch (SAXException e) {
+            return e;
+        }
+
+        fail("Expected the XML to fail to parse");
+        return null;
+    }
+}
@@ -17,6 +17,9 @@ package com.github.tomakehurst.wiremock.matching;
 
 import com.github.tomakehurst.wiremock.common.LocalNotifier;
 import com.github.tomakehurst.wiremock.common.Notifier;
+import com.google.common.collect.ImmutableMap;
+import org.custommonkey.xmlunit.SimpleNamespaceContext;
+import org.custommonkey.xmlunit.XMLUnit;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
 import org.jmock.integration.junit4.JMock;
@@ -59,6 +62,16 @@ public class ValuePatternTest {
 		assertFalse(valuePattern.isMatchFor("abcde"));
 	}
 	
+	@Test
+	public void matchesOnUpdatedRegexAfterPatternIsModified() {
+		valuePattern.setMatches("[0-9]{6}");
+		assertTrue(valuePattern.isMatchFor("938475"));
+
+		valuePattern.setMatches("[a-z]{5}");
+		assertFalse(valuePattern.isMatchFor("938475"));
+		assertTrue(valuePattern.isMatchFor("abcde"));
+	}
+	
 	@Test
 	public void matchesOnNegativeRegex() {
 		valuePattern.setDoesNotMatch("[0-9]{6}");
@@ -112,6 +125,18 @@ public class ValuePatternTest {
         assertTrue("Expected XPath match", valuePattern.isMatchFor("<a:H xmlns:a='http://schemas.xmlsoap.org/soap/envelope/'><a:J>111</a:J><X>222</X></a:H>"));
     }
 
+    @Test
+    public void matchesXPathUsingNamespacePrefixesConfiguredOnXMLUnit() {
+        XMLUnit.setXpathNamespaceContext(new SimpleNamespaceContext(
+                ImmutableMap.of("soap", "http://schemas.xmlsoap.org/soap/envelope/")));
+        try {
+            valuePattern.setMatchesXPath("//soap:J[.='111']");
+            assertTrue("Expected XPath match", valuePattern.isMatchFor("<a:H xmlns:a='http://schemas.xmlsoap.org/soap/envelope/'><a:J>111</a:J><X>222</X></a:H>"));
+        } finally {
+            XMLUnit.setXpathNamespaceContext(null);
+        }
+    }
+
     @Test
     public void doesNotMatchOnXPathWhenElementDoesNotExist() {
         valuePattern.setMatchesXPath("//J[.='222']");
@@ -159,6 +184,13 @@ public class ValuePatternTest {
         assertTrue("Expected number json match", valuePattern.isMatchFor("{\"x\":0.0}"));
     }
     
+    @Test
+    public void matchesOnIsEqualToJsonArray() {
+        valuePattern.setEqualToJson("[{\"x\":0}, {\"y\":1}]");
+        assertTrue("Expected array json match", valuePattern.isMatchFor("[{\"x\":0}, {\"y\":1}]"));
+        assertFalse("Expected no match against a json object", valuePattern.isMatchFor("{\"x\":0}"));
+    }
+
     @Test
     public void matchesOnIsEqualToJsonMoveFields() {
         valuePattern.setEqualToJson("{\"x\":0,\"y\":1}");
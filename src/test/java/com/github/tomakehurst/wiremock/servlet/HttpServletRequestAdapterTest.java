@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.servlet;
+
+import com.github.tomakehurst.wiremock.http.HttpHeaders;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Vector;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JMock.class)
+public class HttpServletRequestAdapterTest {
+
+    private Mockery context;
+    private HttpServletRequestAdapter adapter;
+
+    @Before
+    public void init() {
+        context = new Mockery();
+        final HttpServletRequest request = context.mock(HttpServletRequest.class);
+        context.checking(new Expectations() {{
+            oneOf(request).getHeaderNames();
+            will(returnValue(new Vector<String>(asList("Content-Type", "X-Multi")).elements()));
+            oneOf(request).getHeaders("Content-Type");
+            will(returnValue(new Vector<String>(asList("text/plain")).elements()));
+            oneOf(request).getHeaders("X-Multi");
+            will(returnValue(new Vector<String>(asList("one", "two")).elements()));
+        }});
+
+        adapter = new HttpServletRequestAdapter(request);
+    }
+
+    @Test
+    public void readsHeadersFromTheServletRequestOnlyOnce() {
+        assertThat(adapter.getHeader("content-type"), is("text/plain"));
+        assertThat(adapter.getHeader("CONTENT-TYPE"), is("text/plain"));
+        assertThat(adapter.header("x-multi").values(), is(asList("one", "two")));
+        assertThat(adapter.header("x-multi").key(), is("x-multi"));
+        assertThat(adapter.containsHeader("X-Multi"), is(true));
+        assertThat(newArrayList(adapter.getAllHeaderKeys()), is(asList("Content-Type", "X-Multi")));
+        assertThat(adapter.contentTypeHeader().mimeTypePart(), is("text/plain"));
+    }
+
+    @Test
+    public void treatsUnknownHeadersAsAbsent() {
+        assertThat(adapter.getHeader("X-Missing"), is(nullValue()));
+        assertThat(adapter.header("X-Missing").isPresent(), is(false));
+        assertThat(adapter.containsHeader("X-Missing"), is(false));
+    }
+
+    @Test
+    public void returnsAllHeaders() {
+        HttpHeaders headers = adapter.getHeaders();
+
+        assertThat(headers.size(), is(2));
+        assertThat(headers.getHeader("x-multi").values(), is(asList("one", "two")));
+        assertThat(adapter.getHeaders(), is(headers));
+    }
+}
@@ -15,8 +15,10 @@
  */
 package com.github.tomakehurst.wiremock.standalone;
 
+import com.github.tomakehurst.wiremock.common.BinaryFileCache;
 import com.github.tomakehurst.wiremock.common.ProxySettings;
 import com.github.tomakehurst.wiremock.http.CaseInsensitiveKey;
+import com.github.tomakehurst.wiremock.http.ProxyResponseCache;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.*;
@@ -74,11 +76,49 @@ public class CommandLineOptionsTest {
         assertThat(options.httpsSettings().keyStorePath(), is("/my/keystore"));
     }
 
+    @Test
+    public void setsRequestJournalLimitsWhenOptionsPresent() {
+        CommandLineOptions options = new CommandLineOptions("--max-request-journal-entries", "100", "--max-request-journal-bytes", "1048576");
+        assertThat(options.maxRequestJournalEntries().get(), is(100));
+        assertThat(options.maxRequestJournalBytes().get(), is(1048576L));
+    }
+
+    @Test
+    public void requestJournalIsUnboundedByDefault() {
+        CommandLineOptions options = new CommandLineOptions();
+        assertThat(options.maxRequestJournalEntries().isPresent(), is(false));
+        assertThat(options.maxRequestJournalBytes().isPresent(), is(false));
+    }
+
+    @Test
+    public void setsBodyFileCacheSizeWhenOptionPresent() {
+        CommandLineOptions options = new CommandLineOptions("--body-file-cache-bytes", "4096");
+        assertThat(options.bodyFileCacheMaxBytes(), is(4096L));
+    }
+
+    @Test
+    public void usesDefaultBodyFileCacheSizeWhenOptionNotPresent() {
+        CommandLineOptions options = new CommandLineOptions();
+        assertThat(options.bodyFileCacheMaxBytes(), is(BinaryFileCache.DEFAULT_MAX_BYTES));
+    }
+
     @Test(expected=IllegalArgumentException.class)
     public void throwsExceptionIfKeyStoreSpecifiedWithoutHttpsPort() {
         new CommandLineOptions("--https-keystore", "/my/keystore");
     }
 	
+    @Test
+    public void returnsAdminPortNumberWhenSpecified() {
+        CommandLineOptions options = new CommandLineOptions("--admin-port", "8090");
+        assertThat(options.adminPortNumber().get(), is(8090));
+    }
+
+    @Test
+    public void servesAdminApiOnTheMainPortByDefault() {
+        CommandLineOptions options = new CommandLineOptions();
+        assertThat(options.adminPortNumber().isPresent(), is(false));
+    }
+
 	@Test(expected=Exception.class)
 	public void throwsExceptionWhenPortNumberSpecifiedWithoutNumber() {
 		new CommandLineOptions("--port");
@@ -144,6 +184,80 @@ public class CommandLineOptionsTest {
         assertThat(options.requestJournalDisabled(), is(true));
     }
 
+    @Test
+    public void enablesAsynchronousProxyingWhenOptionPresent() {
+        assertThat(new CommandLineOptions("--async-proxy").asynchronousProxyingEnabled(), is(true));
+        assertThat(new CommandLineOptions().asynchronousProxyingEnabled(), is(false));
+    }
+
+    @Test
+    public void enablesProxyRequestCoalescingWithOptionalKeyHeaders() {
+        assertThat(new CommandLineOptions().proxyRequestCoalescingHeaders().isPresent(), is(false));
+        assertThat(new CommandLineOptions("--coalesce-proxy-requests").proxyRequestCoalescingHeaders().get().isEmpty(), is(true));
+        assertThat(new CommandLineOptions("--coalesce-proxy-requests", "Accept,Authorization").proxyRequestCoalescingHeaders().get(),
+                hasItems(CaseInsensitiveKey.from("accept"), CaseInsensitiveKey.from("authorization")));
+    }
+
+    @Test
+    public void enablesProxyResponseCacheWhenSizeOrDiskStoreGiven() {
+        assertThat(new CommandLineOptions().proxyResponseCacheMaxBytes().isPresent(), is(false));
+        assertThat(new CommandLineOptions("--proxy-cache-bytes", "2048").proxyResponseCacheMaxBytes().get(), is(2048L));
+        CommandLineOptions onDisk = new CommandLineOptions("--proxy-cache-on-disk");
+        assertThat(onDisk.proxyResponseCacheOnDisk(), is(true));
+        assertThat(onDisk.proxyResponseCacheMaxBytes().get(), is(ProxyResponseCache.DEFAULT_MAX_BYTES));
+    }
+
+    @Test
+    public void enablesContentAddressedBodiesWhenOptionPresent() {
+        assertThat(new CommandLineOptions().contentAddressedBodiesEnabled(), is(false));
+        assertThat(new CommandLineOptions("--content-addressed-bodies").contentAddressedBodiesEnabled(), is(true));
+    }
+
+    @Test
+    public void enablesParallelMappingLoadingWhenOptionPresent() {
+        assertThat(new CommandLineOptions().parallelMappingLoadingEnabled(), is(false));
+        assertThat(new CommandLineOptions("--parallel-mapping-load").parallelMappingLoadingEnabled(), is(true));
+    }
+
+    @Test
+    public void enablesMappingsSnapshotWhenOptionPresent() {
+        assertThat(new CommandLineOptions().mappingsSnapshotEnabled(), is(false));
+        assertThat(new CommandLineOptions("--mappings-snapshot").mappingsSnapshotEnabled(), is(true));
+    }
+
+    @Test
+    public void enablesMappingsWatchingWhenOptionPresent() {
+        assertThat(new CommandLineOptions().mappingsWatchingEnabled(), is(false));
+        assertThat(new CommandLineOptions("--watch-mappings").mappingsWatchingEnabled(), is(true));
+    }
+
+    @Test
+    public void returnsThreadPoolSettingsWhenSpecified() {
+        CommandLineOptions options = new CommandLineOptions("--min-threads", "4", "--max-threads", "40",
+                "--thread-idle-timeout", "5000", "--queue-capacity", "100", "--load-shedding-body", "Busy");
+        assertThat(options.minRequestThreads(), is(4));
+        assertThat(options.maxRequestThreads(), is(40));
+        assertThat(options.requestThreadIdleTimeoutMilliseconds(), is(5000));
+        assertThat(options.requestQueueCapacity().get(), is(100));
+        assertThat(options.loadSheddingResponseBody(), is("Busy"));
+    }
+
+    @Test
+    public void leavesRequestQueueUnboundedByDefault() {
+        assertThat(new CommandLineOptions().requestQueueCapacity().isPresent(), is(false));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void throwsExceptionWhenMinThreadsExceedMaxThreads() {
+        new CommandLineOptions("--min-threads", "10", "--max-threads", "5");
+    }
+
+    @Test
+    public void enablesNonBlockingConnectorsWhenOptionPresent() {
+        assertThat(new CommandLineOptions().nonBlockingConnectorsEnabled(), is(false));
+        assertThat(new CommandLineOptions("--nio").nonBlockingConnectorsEnabled(), is(true));
+    }
+
     @Test
     public void returnPreserveHostHeaderTrueWhenPresent() {
         CommandLineOptions options = new CommandLineOptions("--preserve-host-header");
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.standalone;
+
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.common.Log4jNotifier;
+import com.github.tomakehurst.wiremock.common.SingleRootFileSource;
+import com.github.tomakehurst.wiremock.stubbing.ContentAddressedBodyStore;
+import com.github.tomakehurst.wiremock.stubbing.InMemoryStubMappings;
+import com.github.tomakehurst.wiremock.stubbing.StubMappings;
+import com.google.common.base.Optional;
+import com.google.common.io.Files;
+import org.jmock.Mockery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static com.github.tomakehurst.wiremock.http.RequestMethod.GET;
+import static com.github.tomakehurst.wiremock.testsupport.MockRequestBuilder.aRequest;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MappingsDirectoryWatcherTest {
+
+    private static final String MAPPING =
+            "{ \"request\": { \"method\": \"GET\", \"url\": \"/%s\" }, " +
+            "\"response\": { \"status\": 200, \"body\": \"%s\" } }";
+    private static final String BODY_FILE_MAPPING =
+            "{ \"request\": { \"method\": \"GET\", \"url\": \"/%s\" }, " +
+            "\"response\": { \"status\": 200, \"bodyFileName\": \"%s\" } }";
+    private static final long TIMEOUT_MILLISECONDS = 10000;
+
+    private File mappingsDirectory;
+    private FileSource mappingsFileSource;
+    private StubMappings stubMappings;
+    private MappingsDirectoryWatcher watcher;
+    private Mockery context;
+    private int requestCount = 0;
+
+    @Before
+    public void init() {
+        context = new Mockery();
+        mappingsDirectory = new File(Files.createTempDir(), "mappings");
+        mappingsFileSource = new SingleRootFileSource(mappingsDirectory);
+        mappingsFileSource.createIfNecessary();
+        mappingsFileSource.writeTextFile("existing.json", String.format(MAPPING, "existing", "Existing"));
+
+        stubMappings = new InMemoryStubMappings();
+        new JsonFileMappingsLoader(mappingsFileSource).loadMappingsInto(stubMappings);
+        watcher = new MappingsDirectoryWatcher(mappingsDirectory, stubMappings, new Log4jNotifier());
+        watcher.start();
+    }
+
+    @After
+    public void stopWatcher() {
+        watcher.stop();
+    }
+
+    @Test
+    public void appliesAddedChangedAndDeletedMappingFiles() throws Exception {
+        mappingsFileSource.writeTextFile("added.json", String.format(MAPPING, "added", "Added"));
+        waitForBody("/added", "Added");
+
+        mappingsFileSource.writeTextFile("existing.json", String.format(MAPPING, "existing", "Changed"));
+        waitForBody("/existing", "Changed");
+        assertThat(stubMappings.getAll().size(), is(2));
+
+        new File(mappingsDirectory, "added.json").delete();
+        waitForBody("/added", null);
+        assertThat(stubMappings.getAll().size(), is(1));
+    }
+
+    @Test
+    public void keepsThePreviousMappingWhenAFileCannotBeParsed() throws Exception {
+        mappingsFileSource.writeTextFile("existing.json", "{ \"request\": ");
+        mappingsFileSource.writeTextFile("marker.json", String.format(MAPPING, "marker", "Marker"));
+        waitForBody("/marker", "Marker");
+
+        assertThat(bodyFor("/existing"), is("Existing"));
+    }
+
+    @Test
+    public void watchesSubdirectoriesCreatedAfterStarting() throws Exception {
+        File subdirectory = new File(mappingsDirectory, "sub");
+        subdirectory.mkdir();
+        new SingleRootFileSource(subdirectory).writeTextFile("nested.json", String.format(MAPPING, "nested", "Nested"));
+        waitForBody("/nested", "Nested");
+
+        new SingleRootFileSource(subdirectory).writeTextFile("nested.json", String.format(MAPPING, "nested", "Nested again"));
+        waitForBody("/nested", "Nested again");
+    }
+
+    @Test
+    public void deletesAContentAddressedBodyOnceNoMappingFileRefersToIt() throws Exception {
+        byte[] body = "Shared body".getBytes();
+        String bodyFileName = ContentAddressedBodyStore.nameFor(body);
+        File filesDirectory = new File(mappingsDirectory.getParentFile(), "__files");
+        FileSource filesFileSource = new SingleRootFileSource(filesDirectory);
+        filesFileSource.createIfNecessary();
+        filesFileSource.writeBinaryFile(bodyFileName, body);
+        mappingsFileSource.writeTextFile("one.json", String.format(BODY_FILE_MAPPING, "one", bodyFileName));
+        mappingsFileSource.writeTextFile("two.json", String.format(BODY_FILE_MAPPING, "two", bodyFileName));
+
+        ContentAddressedBodyStore bodyStore = new ContentAddressedBodyStore(filesFileSource);
+        bodyStore.countReferencesFrom(mappingsFileSource);
+        watcher.stop();
+        watcher = new MappingsDirectoryWatcher(mappingsDirectory, stubMappings, Optional.of(bodyStore), new Log4jNotifier());
+        watcher.start();
+
+        new File(mappingsDirectory, "one.json").delete();
+        waitUntil(bodyStore, bodyFileName, 1);
+        assertThat(new File(filesDirectory, bodyFileName).exists(), is(true));
+
+        new File(mappingsDirectory, "two.json").delete();
+        waitUntil(bodyStore, bodyFileName, 0);
+        assertThat(new File(filesDirectory, bodyFileName).exists(), is(false));
+    }
+
+    private void waitUntil(ContentAddressedBodyStore bodyStore, String bodyFileName, int referenceCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLISECONDS;
+        while (bodyStore.referenceCount(bodyFileName) != referenceCount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(bodyStore.referenceCount(bodyFileName), is(referenceCount));
+    }
+
+    private void waitForBody(String url, String expectedBody) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLISECONDS;
+        while (!equal(bodyFor(url), expectedBody) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(bodyFor(url), is(expectedBody));
+    }
+
+    private static boolean equal(String one, String two) {
+        return one == null ? two == null : one.equals(two);
+    }
+
+    private String bodyFor(String url) {
+        return stubMappings.serveFor(aRequest(context, "request" + requestCount++)
+                .withMethod(GET)
+                .withUrl(url)
+                .build()).getBody();
+    }
+}
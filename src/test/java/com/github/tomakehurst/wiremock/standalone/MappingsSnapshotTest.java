@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.standalone;
+
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.common.SingleRootFileSource;
+import com.github.tomakehurst.wiremock.stubbing.InMemoryStubMappings;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.github.tomakehurst.wiremock.stubbing.StubMappings;
+import com.google.common.io.Files;
+import org.jmock.Mockery;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.http.RequestMethod.GET;
+import static com.github.tomakehurst.wiremock.testsupport.MockRequestBuilder.aRequest;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MappingsSnapshotTest {
+
+    private static final String MAPPING =
+            "{ \"request\": { \"method\": \"GET\", \"url\": \"/same/url\" }, " +
+            "\"response\": { \"status\": 200, \"body\": \"%s\" } }";
+
+    private File mappingsDirectory;
+    private FileSource mappingsFileSource;
+    private MappingsSnapshot snapshot;
+    private Mockery context;
+    private int requestCount = 0;
+
+    @Before
+    public void init() {
+        context = new Mockery();
+        File root = Files.createTempDir();
+        mappingsDirectory = new File(root, "mappings");
+        mappingsFileSource = new SingleRootFileSource(mappingsDirectory);
+        mappingsFileSource.createIfNecessary();
+        mappingsFileSource.writeTextFile("first.json", String.format(MAPPING, "first"));
+        mappingsFileSource.writeTextFile("second.json", String.format(MAPPING, "second"));
+        snapshot = new MappingsSnapshot(new SingleRootFileSource(root), mappingsFileSource);
+    }
+
+    @Test
+    public void restoresMappingsInInsertionOrder() {
+        StubMappings original = loadedFromFiles();
+        snapshot.write();
+
+        StubMappings restored = new InMemoryStubMappings();
+        assertThat(snapshot.loadInto(restored), is(true));
+
+        List<StubMapping> all = restored.getAll();
+        assertThat(all.size(), is(2));
+        assertThat(servedBody(restored), is(servedBody(original)));
+        assertThat(all.get(0).isTransient(), is(false));
+        assertThat(all.get(0).getSourceFile(), is(original.getAll().get(0).getSourceFile()));
+    }
+
+    @Test
+    public void holdsTheMappingFilesAsTheyAreWhenWritten() {
+        loadedFromFiles();
+        mappingsFileSource.writeTextFile("second.json", String.format(MAPPING, "edited"));
+        new File(mappingsDirectory, "second.json").setLastModified(System.currentTimeMillis() + 10000);
+        snapshot.write();
+
+        StubMappings restored = new InMemoryStubMappings();
+        assertThat(snapshot.loadInto(restored), is(true));
+
+        assertThat(restored.getAll().size(), is(2));
+        assertThat(servedBody(restored), is("edited"));
+    }
+
+    @Test
+    public void loaderUsesTheSnapshotOnlyForTheFirstLoad() {
+        snapshot.write();
+        final AtomicInteger fallbackLoads = new AtomicInteger();
+        MappingsLoader loader = new SnapshotMappingsLoader(snapshot, new MappingsLoader() {
+            public void loadMappingsInto(StubMappings stubMappings) {
+                fallbackLoads.incrementAndGet();
+            }
+        });
+
+        StubMappings atStartup = new InMemoryStubMappings();
+        loader.loadMappingsInto(atStartup);
+        assertThat(atStartup.getAll().size(), is(2));
+        assertThat(fallbackLoads.get(), is(0));
+
+        loader.loadMappingsInto(new InMemoryStubMappings());
+        assertThat(fallbackLoads.get(), is(1));
+    }
+
+    @Test
+    public void loaderRewritesAStaleSnapshotOnceTheFilesAreLoaded() {
+        snapshot.write();
+        mappingsFileSource.writeTextFile("third.json", String.format(MAPPING, "third"));
+
+        StubMappings atStartup = new InMemoryStubMappings();
+        new SnapshotMappingsLoader(snapshot, new JsonFileMappingsLoader(mappingsFileSource)).loadMappingsInto(atStartup);
+        assertThat(atStartup.getAll().size(), is(3));
+
+        StubMappings restored = new InMemoryStubMappings();
+        assertThat(snapshot.loadInto(restored), is(true));
+        assertThat(restored.getAll().size(), is(3));
+    }
+
+    @Test
+    public void loaderWritesASnapshotWhenThereIsNone() {
+        new SnapshotMappingsLoader(snapshot, new JsonFileMappingsLoader(mappingsFileSource))
+                .loadMappingsInto(new InMemoryStubMappings());
+
+        assertThat(snapshot.loadInto(new InMemoryStubMappings()), is(true));
+    }
+
+    @Test
+    public void isIgnoredWhenAMappingFileChanges() {
+        snapshot.write();
+        mappingsFileSource.writeTextFile("second.json", String.format(MAPPING, "changed"));
+        new File(mappingsDirectory, "second.json").setLastModified(System.currentTimeMillis() + 10000);
+
+        StubMappings restored = new InMemoryStubMappings();
+        assertThat(snapshot.loadInto(restored), is(false));
+        assertThat(restored.getAll().isEmpty(), is(true));
+    }
+
+    @Test
+    public void isStillUsedWhenAMappingFileIsTouchedWithoutChanging() {
+        snapshot.write();
+        new File(mappingsDirectory, "second.json").setLastModified(System.currentTimeMillis() + 10000);
+
+        assertThat(snapshot.loadInto(new InMemoryStubMappings()), is(true));
+    }
+
+    @Test
+    public void isIgnoredWhenAMappingFileIsAdded() {
+        snapshot.write();
+        mappingsFileSource.writeTextFile("third.json", String.format(MAPPING, "third"));
+
+        assertThat(snapshot.loadInto(new InMemoryStubMappings()), is(false));
+    }
+
+    @Test
+    public void isIgnoredWhenThereIsNoSnapshot() {
+        assertThat(snapshot.loadInto(new InMemoryStubMappings()), is(false));
+    }
+
+    private StubMappings loadedFromFiles() {
+        StubMappings stubMappings = new InMemoryStubMappings();
+        new JsonFileMappingsLoader(mappingsFileSource).loadMappingsInto(stubMappings);
+        return stubMappings;
+    }
+
+    private String servedBody(StubMappings stubMappings) {
+        return stubMappings.serveFor(aRequest(context, "request" + requestCount++)
+                .withMethod(GET)
+                .withUrl("/same/url")
+                .build()).getBody();
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.stubbing;
+
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.common.Log4jNotifier;
+import com.github.tomakehurst.wiremock.common.SingleRootFileSource;
+import com.google.common.base.Optional;
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BackgroundRecordingWriterTest {
+
+    private File root;
+    private FileSource mappingsFileSource;
+    private FileSource filesFileSource;
+    private BackgroundRecordingWriter writer;
+
+    @Before
+    public void init() {
+        root = Files.createTempDir();
+        mappingsFileSource = new SingleRootFileSource(new File(root, "mappings"));
+        filesFileSource = new SingleRootFileSource(new File(root, "__files"));
+        mappingsFileSource.createIfNecessary();
+        filesFileSource.createIfNecessary();
+    }
+
+    @After
+    public void stopWriter() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    public void writesQueuedRecordingsByTheTimeFlushReturns() throws Exception {
+        writer = new BackgroundRecordingWriter(mappingsFileSource, filesFileSource, new Log4jNotifier());
+        for (int i = 0; i < 200; i++) {
+            writer.enqueue("mapping-" + i + ".json", "{}", "body-" + i + ".json", ("body " + i).getBytes(UTF_8));
+        }
+
+        writer.flush();
+
+        assertThat(writer.writtenCount(), is(200L));
+        assertThat(writer.queuedCount(), is(200L));
+        assertThat(writer.droppedCount(), is(0L));
+        assertThat(Files.toString(new File(root, "__files/body-199.json"), UTF_8), is("body 199"));
+        assertThat(new File(root, "mappings/mapping-0.json").exists(), is(true));
+    }
+
+    @Test
+    public void writesRecordingsOnTheCallersThreadOnceStopped() throws Exception {
+        writer = new BackgroundRecordingWriter(mappingsFileSource, filesFileSource, new Log4jNotifier());
+        writer.stop();
+
+        writer.enqueue("mapping-0.json", "{}", "body-0.json", "body 0".getBytes(UTF_8));
+
+        assertThat(Files.toString(new File(root, "__files/body-0.json"), UTF_8), is("body 0"));
+        assertThat(new File(root, "mappings/mapping-0.json").exists(), is(true));
+    }
+
+    @Test
+    public void writesARecordingEnqueuedWhileTheWriterIsStopping() throws Exception {
+        final CountDownLatch offering = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<BackgroundRecordingWriter.PendingRecording> slowQueue =
+                new ArrayBlockingQueue<BackgroundRecordingWriter.PendingRecording>(10) {
+            @Override
+            public boolean offer(BackgroundRecordingWriter.PendingRecording recording) {
+                offering.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.offer(recording);
+            }
+        };
+        writer = new BackgroundRecordingWriter(mappingsFileSource, filesFileSource, new Log4jNotifier(),
+                Optional.<ContentAddressedBodyStore>absent(), slowQueue);
+
+        Thread recorder = new Thread() {
+            public void run() {
+                writer.enqueue("mapping-0.json", "{}", "body-0.json", "body 0".getBytes(UTF_8));
+            }
+        };
+        recorder.start();
+        offering.await();
+        Thread stopper = new Thread() {
+            public void run() {
+                writer.stop();
+            }
+        };
+        stopper.start();
+        Thread.sleep(500);
+        release.countDown();
+        recorder.join();
+        stopper.join();
+
+        assertThat(new File(root, "mappings/mapping-0.json").exists(), is(true));
+    }
+
+    @Test
+    public void dropsRecordingsWhenQueueIsFull() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        FileSource blockingFilesFileSource = new SingleRootFileSource(new File(root, "__files")) {
+            @Override
+            public void writeBinaryFile(String name, byte[] contents) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.writeBinaryFile(name, contents);
+            }
+        };
+        writer = new BackgroundRecordingWriter(mappingsFileSource, blockingFilesFileSource, new Log4jNotifier(),
+                Optional.<ContentAddressedBodyStore>absent(), 2);
+
+        writer.enqueue("mapping-0.json", "{}", "body-0.json", new byte[0]);
+        writing.await();
+        writer.enqueue("mapping-1.json", "{}", "body-1.json", new byte[0]);
+        writer.enqueue("mapping-2.json", "{}", "body-2.json", new byte[0]);
+        boolean lastQueued = writer.enqueue("mapping-3.json", "{}", "body-3.json", new byte[0]);
+        release.countDown();
+        writer.flush();
+
+        assertThat(writer.queuedCount(), is(3L));
+        assertThat(lastQueued, is(false));
+        assertThat(writer.droppedCount(), is(1L));
+        assertThat(writer.writtenCount(), is(3L));
+        assertThat(new File(root, "mappings/mapping-3.json").exists(), is(false));
+    }
+
+    @Test
+    public void reportsRecordingsThatFailToBeWritten() throws Exception {
+        FileSource failingMappingsFileSource = new SingleRootFileSource(new File(root, "mappings")) {
+            @Override
+            public void writeTextFile(String name, String contents) {
+                throw new RuntimeException("Disk full");
+            }
+        };
+        writer = new BackgroundRecordingWriter(failingMappingsFileSource, filesFileSource, new Log4jNotifier());
+        final AtomicBoolean failed = new AtomicBoolean(false);
+
+        boolean queued = writer.enqueue("mapping-0.json", "{}", "body-0.json", new byte[0], new Runnable() {
+            public void run() {
+                failed.set(true);
+            }
+        });
+        writer.flush();
+
+        assertThat(queued, is(true));
+        assertThat(failed.get(), is(true));
+    }
+
+    @Test
+    public void countsContentAddressedBodiesOnlyOnceWritten() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        FileSource blockingMappingsFileSource = new SingleRootFileSource(new File(root, "mappings")) {
+            @Override
+            public void writeTextFile(String name, String contents) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.writeTextFile(name, contents);
+            }
+        };
+        ContentAddressedBodyStore bodyStore = new ContentAddressedBodyStore(filesFileSource);
+        writer = new BackgroundRecordingWriter(blockingMappingsFileSource, filesFileSource, new Log4jNotifier(),
+                Optional.of(bodyStore), 1);
+        byte[] body = "Shared body".getBytes(UTF_8);
+        String bodyFileName = ContentAddressedBodyStore.nameFor(body);
+
+        writer.enqueue("mapping-0.json", "{}", bodyFileName, body);
+        writing.await();
+        writer.enqueue("mapping-1.json", "{}", bodyFileName, body);
+        writer.enqueue("mapping-2.json", "{}", bodyFileName, body);
+        release.countDown();
+        writer.flush();
+
+        assertThat(writer.droppedCount(), is(1L));
+        assertThat(bodyStore.referenceCount(bodyFileName), is(2));
+
+        bodyStore.releaseReferenceFrom(mappingsFileSource.getBinaryFileNamed("mapping-0.json").name());
+        bodyStore.releaseReferenceFrom(mappingsFileSource.getBinaryFileNamed("mapping-1.json").name());
+        assertThat(new File(root, "__files/" + bodyFileName).exists(), is(false));
+    }
+}
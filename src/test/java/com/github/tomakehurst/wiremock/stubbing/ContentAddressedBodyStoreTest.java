@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.stubbing;
+
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.common.SingleRootFileSource;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class ContentAddressedBodyStoreTest {
+
+    private File root;
+    private FileSource filesFileSource;
+    private FileSource mappingsFileSource;
+    private ContentAddressedBodyStore store;
+
+    @Before
+    public void init() {
+        root = Files.createTempDir();
+        filesFileSource = new SingleRootFileSource(new File(root, "__files"));
+        mappingsFileSource = new SingleRootFileSource(new File(root, "mappings"));
+        filesFileSource.createIfNecessary();
+        mappingsFileSource.createIfNecessary();
+        store = new ContentAddressedBodyStore(filesFileSource);
+    }
+
+    @Test
+    public void storesIdenticalBodiesInOneFile() throws Exception {
+        String first = store.store("Body".getBytes(UTF_8), "mapping-one.json");
+        String second = store.store("Body".getBytes(UTF_8), "mapping-two.json");
+        String other = store.store("Other body".getBytes(UTF_8), "mapping-three.json");
+
+        assertThat(second, is(first));
+        assertThat(other, not(first));
+        assertThat(ContentAddressedBodyStore.isContentAddressed(first), is(true));
+        assertThat(store.referenceCount(first), is(2));
+        assertThat(Files.toString(new File(root, "__files/" + first), UTF_8), is("Body"));
+        assertThat(new File(root, "__files").list().length, is(2));
+    }
+
+    @Test
+    public void countsEachMappingFileOnce() {
+        String name = store.store("Body".getBytes(UTF_8), "mapping-one.json");
+
+        assertThat(store.addReference(name, "mapping-one.json"), is(false));
+        assertThat(store.referenceCount(name), is(1));
+    }
+
+    @Test
+    public void deletesBodyFileWhenLastReferenceIsReleased() {
+        String name = store.store("Body".getBytes(UTF_8), "mapping-one.json");
+        store.store("Body".getBytes(UTF_8), "mapping-two.json");
+
+        store.releaseReferenceFrom("mapping-one.json");
+        assertThat(new File(root, "__files/" + name).exists(), is(true));
+
+        store.releaseReferenceFrom("mapping-two.json");
+        assertThat(new File(root, "__files/" + name).exists(), is(false));
+        assertThat(store.referenceCount(name), is(0));
+    }
+
+    @Test
+    public void releasesThePreviousBodyWhenAMappingFileRefersToAnother() {
+        String first = store.store("Body".getBytes(UTF_8), "mapping-one.json");
+        String second = store.store("Edited body".getBytes(UTF_8), "mapping-one.json");
+
+        assertThat(new File(root, "__files/" + first).exists(), is(false));
+        assertThat(store.referenceCount(second), is(1));
+    }
+
+    @Test
+    public void ignoresMappingFilesWithNoTrackedBody() {
+        filesFileSource.writeTextFile("body-hand-written.json", "Body");
+
+        store.releaseReferenceFrom("hand-written-mapping.json");
+
+        assertThat(new File(root, "__files/body-hand-written.json").exists(), is(true));
+    }
+
+    @Test
+    public void countsReferencesFromExistingMappingFiles() {
+        String name = ContentAddressedBodyStore.nameFor("Body".getBytes(UTF_8));
+        filesFileSource.writeTextFile(name, "Body");
+        String mapping = "{ \"request\": { \"method\": \"GET\", \"url\": \"/%s\" }, " +
+                "\"response\": { \"status\": 200, \"bodyFileName\": \"" + name + "\" } }";
+        mappingsFileSource.writeTextFile("mapping-one.json", String.format(mapping, "one"));
+        mappingsFileSource.writeTextFile("mapping-two.json", String.format(mapping, "two"));
+
+        store.countReferencesFrom(mappingsFileSource);
+
+        assertThat(store.referenceCount(name), is(2));
+        assertThat(store.addReference(name, mappingsFileSource.getBinaryFileNamed("mapping-one.json").name()), is(false));
+    }
+}
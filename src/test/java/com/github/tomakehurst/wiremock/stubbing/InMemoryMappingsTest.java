@@ -115,6 +115,42 @@ public class InMemoryMappingsTest {
 		assertThat(response.getBody(), is("Desired content"));
 	}
 	
+	@Test
+	public void honoursInsertionOrderBetweenExactUrlAndUrlPatternMappings() {
+		mappings.addMapping(new StubMapping(
+				new RequestPattern(GET, "/mixed/resource"),
+				new ResponseDefinition(200, "Exact URL content")));
+
+		RequestPattern urlPatternRequest = new RequestPattern(ANY);
+		urlPatternRequest.setUrlPattern("/mixed/.*");
+		mappings.addMapping(new StubMapping(urlPatternRequest, new ResponseDefinition(200, "URL pattern content")));
+
+		ResponseDefinition response = mappings.serveFor(aRequest(context).withMethod(GET).withUrl("/mixed/resource").build());
+
+		assertThat(response.getBody(), is("URL pattern content"));
+	}
+
+	@Test
+	public void honoursPriorityBetweenExactUrlAndUrlPatternMappings() {
+		StubMapping exactUrlMapping = new StubMapping(
+				new RequestPattern(ANY, "/mixed/resource"),
+				new ResponseDefinition(200, "Exact URL content"));
+		exactUrlMapping.setPriority(1);
+		mappings.addMapping(exactUrlMapping);
+
+		RequestPattern urlPatternRequest = new RequestPattern(GET);
+		urlPatternRequest.setUrlPattern("/mixed/.*");
+		mappings.addMapping(new StubMapping(urlPatternRequest, new ResponseDefinition(200, "URL pattern content")));
+
+		mappings.addMapping(new StubMapping(
+				new RequestPattern(GET, "/mixed/resource"),
+				new ResponseDefinition(200, "Lower priority content")));
+
+		ResponseDefinition response = mappings.serveFor(aRequest(context).withMethod(GET).withUrl("/mixed/resource").build());
+
+		assertThat(response.getBody(), is("Exact URL content"));
+	}
+
 	@Test
 	public void returnsMappingInScenarioOnlyWhenStateIsCorrect() {
 		StubMapping firstGetMapping = new StubMapping(
@@ -232,6 +268,35 @@ public class InMemoryMappingsTest {
         assertThat(mappings.serveFor(request).getBody(), is("Starting content"));
     }
 
+    @Test
+    public void replacesMappingFromTheSameSourceFileKeepingItsPlace() {
+        mappings.addMapping(aMappingFromSource("/source/resource", "Loaded", "file:/mappings/first.json"));
+        mappings.addMapping(aMappingFromSource("/source/resource", "Later", "file:/mappings/second.json"));
+
+        mappings.addOrReplaceMappingFromSource(aMappingFromSource("/source/resource", "Replaced", "file:/mappings/first.json"));
+
+        assertThat(mappings.getAll().size(), is(2));
+        assertThat(mappings.serveFor(aRequest(context, "first").withMethod(GET).withUrl("/source/resource").build()).getBody(), is("Later"));
+
+        mappings.removeMappingFromSource("file:/mappings/second.json");
+
+        assertThat(mappings.getAll().size(), is(1));
+        assertThat(mappings.serveFor(aRequest(context, "second").withMethod(GET).withUrl("/source/resource").build()).getBody(), is("Replaced"));
+    }
+
+    @Test
+    public void addsMappingFromANewSourceFile() {
+        mappings.addOrReplaceMappingFromSource(aMappingFromSource("/source/resource", "New", "file:/mappings/new.json"));
+
+        assertThat(mappings.serveFor(aRequest(context).withMethod(GET).withUrl("/source/resource").build()).getBody(), is("New"));
+    }
+
+    private StubMapping aMappingFromSource(String url, String body, String sourceFile) {
+        StubMapping mapping = new StubMapping(new RequestPattern(GET, url), new ResponseDefinition(200, body));
+        mapping.setSourceFile(sourceFile);
+        return mapping;
+    }
+
     private StubMapping aBasicMappingInScenario(String body) {
         StubMapping mapping = new StubMapping(
                 new RequestPattern(POST, "/scenario/resource"),
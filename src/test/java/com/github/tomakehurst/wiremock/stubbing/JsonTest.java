@@ -18,6 +18,10 @@ package com.github.tomakehurst.wiremock.stubbing;
 import com.github.tomakehurst.wiremock.common.Json;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static com.google.common.base.Charsets.UTF_8;
 import static junit.framework.Assert.assertNotNull;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -52,6 +56,24 @@ public class JsonTest {
 		assertThat(TEST_VALUE, is(pojo.property));
 	}
 	
+	@Test
+	public void testReadFromStreamWithComments() {
+		TestPojo pojo = Json.read(new ByteArrayInputStream(JSON_WITH_COMMENTS.getBytes(UTF_8)), TestPojo.class);
+		assertNotNull(pojo);
+		assertThat(TEST_VALUE, is(pojo.property));
+	}
+
+	@Test
+	public void testWriteToStreamMatchesWriteToString() {
+		TestPojo pojo = new TestPojo();
+		pojo.property = TEST_VALUE;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		Json.write(pojo, out);
+
+		assertThat(new String(out.toByteArray(), UTF_8), is(Json.write(pojo)));
+	}
+	
 	private static class TestPojo {
 		public String property;
 	}
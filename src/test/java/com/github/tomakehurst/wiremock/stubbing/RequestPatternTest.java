@@ -305,6 +305,22 @@ public class RequestPatternTest {
 		requestPattern.isMatchedBy(request);
 	}
 	
+	@Test(expected=UnsupportedOperationException.class)
+	public void shouldNotAllowHeadersToBeChangedBehindTheCompiledPattern() {
+		RequestPattern requestPattern = new RequestPattern(GET, "/headers");
+		requestPattern.addHeader("Accept", equalTo("text/plain"));
+
+		requestPattern.getHeaders().put("Accept", equalTo("text/xml"));
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void shouldNotAllowBodyPatternsToBeChangedBehindTheCompiledPattern() {
+		RequestPattern requestPattern = new RequestPattern(POST, "/body");
+		requestPattern.setBodyPatterns(asList(ValuePattern.matches("Expected content")));
+
+		requestPattern.getBodyPatterns().set(0, ValuePattern.matches("Other content"));
+	}
+
 	@Ignore("This log output has been removed as it turned out to be not very helpful")
 	@Test
 	public void shouldLogMessageIndicatingFailedBodyMatch() {
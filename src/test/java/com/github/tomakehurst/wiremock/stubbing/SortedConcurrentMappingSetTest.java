@@ -23,8 +23,11 @@ import org.hamcrest.TypeSafeMatcher;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static com.github.tomakehurst.wiremock.http.RequestMethod.ANY;
 import static com.github.tomakehurst.wiremock.testsupport.WireMatchers.hasExactly;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -83,6 +86,88 @@ public class SortedConcurrentMappingSetTest {
 		assertThat("Mapping set should be empty", mappingSet.iterator().hasNext(), is(false));
 	}
 	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void replacementKeepsThePlaceOfTheMappingItReplaces() {
+		mappingSet.add(aMapping(null, "/1"));
+		StubMapping existing = aMapping(null, "/2");
+		mappingSet.add(existing);
+		mappingSet.add(aMapping(null, "/3"));
+
+		mappingSet.replace(existing, aMapping(null, "/2/replaced"));
+
+		assertThat(mappingSet, hasExactly(
+				requestUrlIs("/3"),
+				requestUrlIs("/2/replaced"),
+				requestUrlIs("/1")));
+	}
+
+	@Test
+	public void neverAppearsToHoldNeitherMappingDuringAReplacement() throws Exception {
+		mappingSet.add(aMapping(null, "/before"));
+		final StubMapping first = aMapping(null, "/swapped");
+		mappingSet.add(first);
+		mappingSet.add(aMapping(null, "/after"));
+
+		final AtomicBoolean replacing = new AtomicBoolean(true);
+		Thread replacer = new Thread(new Runnable() {
+			public void run() {
+				StubMapping existing = first;
+				for (int i = 0; i < 20000; i++) {
+					StubMapping replacement = aMapping(null, "/swapped");
+					mappingSet.replace(existing, replacement);
+					existing = replacement;
+				}
+				replacing.set(false);
+			}
+		});
+		replacer.start();
+
+		while (replacing.get()) {
+			int swappedSeen = 0;
+			for (StubMapping mapping: mappingSet) {
+				if (mapping.getRequest().getUrl().equals("/swapped")) {
+					swappedSeen++;
+				}
+			}
+			assertThat(swappedSeen, greaterThan(0));
+		}
+		replacer.join();
+	}
+
+	@Test
+	public void dropsExactUrlBucketsOnceTheirLastMappingIsRemoved() {
+		StubMapping first = aMapping(1, "/bucket");
+		StubMapping second = aMapping(2, "/bucket");
+		mappingSet.add(first);
+		mappingSet.add(second);
+
+		mappingSet.remove(first);
+		assertThat(mappingSet.exactUrlIndexSize(), is(1));
+
+		mappingSet.remove(second);
+		assertThat(mappingSet.exactUrlIndexSize(), is(0));
+	}
+
+	@Test
+	public void doesNotCreateABucketToRemoveAMappingThatWasNeverAdded() {
+		mappingSet.remove(aMapping(1, "/never/added"));
+
+		assertThat(mappingSet.exactUrlIndexSize(), is(0));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void dropsTheOldBucketWhenAReplacementChangesTheUrl() {
+		StubMapping existing = aMapping(1, "/old/url");
+		mappingSet.add(existing);
+
+		mappingSet.replace(existing, aMapping(1, "/new/url"));
+
+		assertThat(mappingSet.exactUrlIndexSize(), is(1));
+		assertThat(mappingSet, hasExactly(requestUrlIs("/new/url")));
+	}
+
 	private StubMapping aMapping(Integer priority, String url) {
 		RequestPattern requestPattern = new RequestPattern(ANY, url);
 		StubMapping mapping = new StubMapping(requestPattern, new ResponseDefinition());
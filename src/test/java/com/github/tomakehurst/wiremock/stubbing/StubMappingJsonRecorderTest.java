@@ -15,18 +15,19 @@
  */
 package com.github.tomakehurst.wiremock.stubbing;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import com.github.tomakehurst.wiremock.common.BinaryFile;
 import com.github.tomakehurst.wiremock.common.FileSource;
 import com.github.tomakehurst.wiremock.common.IdGenerator;
-import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.common.Log4jNotifier;
 import com.github.tomakehurst.wiremock.http.*;
-import com.github.tomakehurst.wiremock.matching.RequestPattern;
 import com.github.tomakehurst.wiremock.testsupport.MockRequestBuilder;
-import com.github.tomakehurst.wiremock.verification.VerificationResult;
+import com.google.common.base.Optional;
 
 import org.jmock.Expectations;
 import org.jmock.Mockery;
@@ -43,6 +44,9 @@ import static com.github.tomakehurst.wiremock.http.Response.response;
 import static com.github.tomakehurst.wiremock.testsupport.WireMatchers.equalToJson;
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.collect.Lists.transform;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 
 @RunWith(JMock.class)
 public class StubMappingJsonRecorderTest {
@@ -50,7 +54,6 @@ public class StubMappingJsonRecorderTest {
 	private StubMappingJsonRecorder listener;
 	private FileSource mappingsFileSource;
 	private FileSource filesFileSource;
-    private Admin admin;
 	
 	private Mockery context;
 	
@@ -59,13 +62,12 @@ public class StubMappingJsonRecorderTest {
 		context = new Mockery();
 		mappingsFileSource = context.mock(FileSource.class, "mappingsFileSource");
 		filesFileSource = context.mock(FileSource.class, "filesFileSource");
-        admin = context.mock(Admin.class);
 
         constructRecordingListener(Collections.<String>emptyList());
 	}
 
     private void constructRecordingListener(List<String> headersToRecord) {
-        listener = new StubMappingJsonRecorder(mappingsFileSource, filesFileSource, admin, transform(headersToRecord, TO_CASE_INSENSITIVE_KEYS));
+        listener = new StubMappingJsonRecorder(mappingsFileSource, filesFileSource, transform(headersToRecord, TO_CASE_INSENSITIVE_KEYS));
         listener.setIdGenerator(fixedIdGenerator("1$2!3"));
     }
 
@@ -84,7 +86,6 @@ public class StubMappingJsonRecorderTest {
 	@Test
 	public void writesMappingFileAndCorrespondingBodyFileOnRequest() {
 		context.checking(new Expectations() {{
-		    allowing(admin).countRequestsMatching(with(any(RequestPattern.class))); will(returnValue(VerificationResult.withCount(0)));
 			one(mappingsFileSource).writeTextFile(with(equal("mapping-recorded-content-1$2!3.json")),
 			        with(equalToJson(SAMPLE_REQUEST_MAPPING)));
 			one(filesFileSource).writeBinaryFile(with(equal("body-recorded-content-1$2!3.json")),
@@ -124,7 +125,6 @@ public class StubMappingJsonRecorderTest {
 	@Test
 	public void addsResponseHeaders() {
 	    context.checking(new Expectations() {{
-	        allowing(admin).countRequestsMatching(with(any(RequestPattern.class))); will(returnValue(VerificationResult.withCount(1)));
             one(mappingsFileSource).writeTextFile(with(equal("mapping-headered-content-1$2!3.json")),
                     with(equalToJson(SAMPLE_REQUEST_MAPPING_WITH_HEADERS)));
             one(filesFileSource).writeBinaryFile("body-headered-content-1$2!3.json", "Recorded body content".getBytes(UTF_8));
@@ -150,22 +150,143 @@ public class StubMappingJsonRecorderTest {
 	@Test
 	public void doesNotWriteFileIfRequestAlreadyReceived() {
 	    context.checking(new Expectations() {{
-            atLeast(1).of(admin).countRequestsMatching(with(any(RequestPattern.class))); will(returnValue(VerificationResult.withCount(2)));
-            never(mappingsFileSource).writeTextFile(with(any(String.class)), with(any(String.class)));
-            never(filesFileSource).writeTextFile(with(any(String.class)), with(any(String.class)));
+            one(mappingsFileSource).writeTextFile(with(any(String.class)), with(any(String.class)));
+            one(filesFileSource).writeBinaryFile(with(any(String.class)), with(any(byte[].class)));
         }});
-	    
-	    listener.requestReceived(new MockRequestBuilder(context)
-                .withMethod(RequestMethod.GET)
-                .withUrl("/headered/content")
-                .build(),
-            response().status(200).build());
+
+        for (int i = 0; i < 3; i++) {
+            listener.requestReceived(new MockRequestBuilder(context, "request" + i)
+                    .withMethod(RequestMethod.GET)
+                    .withUrl("/headered/content")
+                    .build(),
+                response().status(200).body("content").fromProxy(true).build());
+        }
 	}
+
+    @Test
+    public void recordsRequestAgainAfterReset() {
+        context.checking(new Expectations() {{
+            exactly(2).of(mappingsFileSource).writeTextFile(with(any(String.class)), with(any(String.class)));
+            exactly(2).of(filesFileSource).writeBinaryFile(with(any(String.class)), with(any(byte[].class)));
+        }});
+
+        for (int i = 0; i < 2; i++) {
+            listener.requestReceived(new MockRequestBuilder(context, "request" + i)
+                    .withMethod(RequestMethod.GET)
+                    .withUrl("/reset/content")
+                    .build(),
+                response().status(200).body("content").fromProxy(true).build());
+            listener.reset();
+        }
+    }
+
+    @Test
+    public void recordsRequestAgainAfterAFailedWrite() {
+        context.checking(new Expectations() {{
+            one(mappingsFileSource).writeTextFile(with(any(String.class)), with(any(String.class)));
+                will(throwException(new RuntimeException("Disk full")));
+            one(mappingsFileSource).writeTextFile(with(any(String.class)), with(any(String.class)));
+            exactly(2).of(filesFileSource).writeBinaryFile(with(any(String.class)), with(any(byte[].class)));
+        }});
+
+        try {
+            listener.requestReceived(aGetFor("/failed/content", "first"), response().status(200).body("content").fromProxy(true).build());
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        listener.requestReceived(aGetFor("/failed/content", "second"), response().status(200).body("content").fromProxy(true).build());
+    }
+
+    @Test
+    public void recordsRequestAgainWhenBackgroundWriterDropsOrFailsToWriteIt() {
+        final List<String> dropped = new ArrayList<String>();
+        final List<String> failed = new ArrayList<String>();
+        BackgroundRecordingWriter unreliableWriter = new BackgroundRecordingWriter(mappingsFileSource, filesFileSource, new Log4jNotifier()) {
+            @Override
+            public boolean enqueue(String mappingFileName, String mappingJson, String bodyFileName, byte[] body, Runnable onFailure) {
+                if (dropped.isEmpty()) {
+                    dropped.add(mappingFileName);
+                    return false;
+                }
+
+                failed.add(mappingFileName);
+                onFailure.run();
+                return true;
+            }
+        };
+        listener = new StubMappingJsonRecorder(mappingsFileSource, filesFileSource, Collections.<CaseInsensitiveKey>emptyList(),
+                Optional.of(unreliableWriter), Optional.<ContentAddressedBodyStore>absent());
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                listener.requestReceived(aGetFor("/unreliable/content", "request" + i),
+                        response().status(200).body("content").fromProxy(true).build());
+            }
+        } finally {
+            unreliableWriter.stop();
+        }
+
+        assertThat(dropped.size(), is(1));
+        assertThat(failed.size(), is(2));
+    }
+
+    private Request aGetFor(String url, String name) {
+        return new MockRequestBuilder(context, name)
+                .withMethod(GET)
+                .withUrl(url)
+                .build();
+    }
+
+    @Test
+    public void treatsJsonBodiesDifferingOnlyInKeyOrderAsAlreadyReceived() {
+        context.checking(new Expectations() {{
+            one(mappingsFileSource).writeTextFile(with(any(String.class)), with(any(String.class)));
+            ignoring(filesFileSource);
+        }});
+
+        listener.requestReceived(new MockRequestBuilder(context, "first")
+                .withMethod(POST)
+                .withUrl("/json/content")
+                .withHeader("Content-Type", "application/json")
+                .withBody("{ \"one\": 1, \"two\": [1, 2] }")
+                .build(),
+            response().status(200).body("anything").fromProxy(true).build());
+        listener.requestReceived(new MockRequestBuilder(context, "second")
+                .withMethod(POST)
+                .withUrl("/json/content")
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"two\":[1,2],\"one\":1}")
+                .build(),
+            response().status(200).body("anything").fromProxy(true).build());
+    }
 	
+    @Test
+    public void writesIdenticalBodiesOnceWhenContentAddressed() {
+        listener = new StubMappingJsonRecorder(mappingsFileSource, filesFileSource, Collections.<CaseInsensitiveKey>emptyList(),
+                Optional.<BackgroundRecordingWriter>absent(), Optional.of(new ContentAddressedBodyStore(filesFileSource)));
+        final String bodyFileName = ContentAddressedBodyStore.nameFor("Same body".getBytes(UTF_8));
+        context.checking(new Expectations() {{
+            exactly(2).of(mappingsFileSource).writeTextFile(with(any(String.class)), with(containsString(bodyFileName)));
+            allowing(mappingsFileSource).getBinaryFileNamed(with(any(String.class)));
+                will(returnValue(new BinaryFile(URI.create("file:/mappings/recorded.json"))));
+            one(filesFileSource).writeBinaryFile(bodyFileName, "Same body".getBytes(UTF_8));
+        }});
+
+        listener.requestReceived(new MockRequestBuilder(context, "first")
+                .withMethod(GET)
+                .withUrl("/first")
+                .build(),
+            response().status(200).body("Same body").fromProxy(true).build());
+        listener.requestReceived(new MockRequestBuilder(context, "second")
+                .withMethod(GET)
+                .withUrl("/second")
+                .build(),
+            response().status(200).body("Same body").fromProxy(true).build());
+    }
+
 	@Test
 	public void doesNotWriteFileIfResponseNotFromProxy() {
 	    context.checking(new Expectations() {{
-            allowing(admin).countRequestsMatching(with(any(RequestPattern.class))); will(returnValue(VerificationResult.withCount(0)));
             never(mappingsFileSource).writeTextFile(with(any(String.class)), with(any(String.class)));
             never(filesFileSource).writeTextFile(with(any(String.class)), with(any(String.class)));
         }});
@@ -200,7 +321,6 @@ public class StubMappingJsonRecorderTest {
     @Test
     public void includesBodyInRequestPatternIfInRequest() {
         context.checking(new Expectations() {{
-            allowing(admin).countRequestsMatching(with(any(RequestPattern.class))); will(returnValue(VerificationResult.withCount(0)));
             one(mappingsFileSource).writeTextFile(
                     with(any(String.class)),
                     with(equalToJson(SAMPLE_REQUEST_MAPPING_WITH_BODY)));
@@ -257,7 +377,6 @@ public class StubMappingJsonRecorderTest {
         constructRecordingListener(MATCHING_REQUEST_HEADERS);
 
         context.checking(new Expectations() {{
-            allowing(admin).countRequestsMatching(with(any(RequestPattern.class))); will(returnValue(VerificationResult.withCount(0)));
             one(mappingsFileSource).writeTextFile(
                     with(any(String.class)),
                     with(equalToJson(SAMPLE_REQUEST_MAPPING_WITH_REQUEST_HEADERS_1)));
@@ -304,7 +423,6 @@ public class StubMappingJsonRecorderTest {
     @Test
     public void matchesBodyOnEqualToJsonIfJsonInRequestContentTypeHeader() {
         context.checking(new Expectations() {{
-            allowing(admin).countRequestsMatching(with(any(RequestPattern.class))); will(returnValue(VerificationResult.withCount(0)));
             one(mappingsFileSource).writeTextFile(
                     with(any(String.class)),
                     with(equalToJson(SAMPLE_REQUEST_MAPPING_WITH_JSON_BODY)));
@@ -340,7 +458,6 @@ public class StubMappingJsonRecorderTest {
     @Test
     public void matchesBodyOnEqualToXmlIfXmlInRequestContentTypeHeader() {
         context.checking(new Expectations() {{
-            allowing(admin).countRequestsMatching(with(any(RequestPattern.class))); will(returnValue(VerificationResult.withCount(0)));
             one(mappingsFileSource).writeTextFile(
                     with(any(String.class)),
                     with(equalToJson(SAMPLE_REQUEST_MAPPING_WITH_XML_BODY)));
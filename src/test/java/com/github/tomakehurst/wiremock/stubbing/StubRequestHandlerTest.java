@@ -75,7 +75,7 @@ public class StubRequestHandlerTest {
 		context.checking(new Expectations() {{
 			allowing(stubServer).serveStubFor(request); will(returnValue(ResponseDefinition.notConfigured()));
 			one(listener).requestReceived(with(equal(request)), with(any(Response.class)));
-			allowing(responseRenderer).render(with(any(ResponseDefinition.class)));
+			allowing(responseRenderer).render(with(any(ResponseDefinition.class))); will(returnValue(Response.notConfigured()));
 		}});
 		
 		requestHandler.handle(request);
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.verification;
+
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.google.common.base.Optional;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.http.RequestMethod.ANY;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.GET;
+import static com.github.tomakehurst.wiremock.http.RequestMethod.POST;
+import static com.github.tomakehurst.wiremock.testsupport.MockRequestBuilder.aRequest;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+@RunWith(JMock.class)
+public class InMemoryRequestJournalTest {
+
+    private Mockery context;
+    private int requestCount = 0;
+
+    @Before
+    public void init() {
+        context = new Mockery();
+    }
+
+    @Test
+    public void evictsOldestRequestsBeyondMaxEntries() {
+        InMemoryRequestJournal journal = new InMemoryRequestJournal(Optional.of(2), Optional.<Long>absent());
+        journal.requestReceived(request("/1"));
+        journal.requestReceived(request("/2"));
+        journal.requestReceived(request("/3"));
+
+        assertThat(journal.countRequestsMatching(urlIs("/1")), is(0));
+        assertThat(journal.countRequestsMatching(urlIs("/2")), is(1));
+        assertThat(journal.countRequestsMatching(urlIs("/3")), is(1));
+
+        RequestJournalStats stats = journal.getStats();
+        assertThat(stats.getEntries(), is(2));
+        assertThat(stats.getMaxEntries(), is(2));
+        assertThat(stats.getEvictedEntries(), is(1L));
+    }
+
+    @Test
+    public void evictsOldestRequestsBeyondMaxBytes() {
+        InMemoryRequestJournal journal = new InMemoryRequestJournal(Optional.<Integer>absent(), Optional.of(250L));
+        journal.requestReceived(request("/0"));
+        long sizeOfOne = journal.getStats().getRetainedBytes();
+        for (int i = 1; i < 10; i++) {
+            journal.requestReceived(request("/" + i));
+        }
+
+        RequestJournalStats stats = journal.getStats();
+        assertThat(stats.getRetainedBytes() <= 250L, is(true));
+        assertThat(stats.getEntries(), is((int) (250L / sizeOfOne)));
+        assertThat(stats.getEvictedEntries(), is(10L - stats.getEntries()));
+        assertThat(stats.getEvictedBytes(), is((10L - stats.getEntries()) * sizeOfOne));
+        assertThat(journal.countRequestsMatching(urlIs("/9")), is(1));
+    }
+
+    @Test
+    public void retainsEverythingWhenUnbounded() {
+        InMemoryRequestJournal journal = new InMemoryRequestJournal();
+        for (int i = 0; i < 50; i++) {
+            journal.requestReceived(request("/" + i));
+        }
+
+        RequestJournalStats stats = journal.getStats();
+        assertThat(stats.getEntries(), is(50));
+        assertThat(stats.getEvictedEntries(), is(0L));
+        assertThat(stats.getMaxEntries(), nullValue());
+        assertThat(stats.getMaxBytes(), nullValue());
+    }
+
+    @Test
+    public void resetClearsEntriesAndCounters() {
+        InMemoryRequestJournal journal = new InMemoryRequestJournal(Optional.of(1), Optional.<Long>absent());
+        journal.requestReceived(request("/1"));
+        journal.requestReceived(request("/2"));
+
+        journal.reset();
+
+        RequestJournalStats stats = journal.getStats();
+        assertThat(stats.getEntries(), is(0));
+        assertThat(stats.getRetainedBytes(), is(0L));
+        assertThat(stats.getEvictedEntries(), is(0L));
+    }
+
+    @Test
+    public void findsRequestsByExactUrlRegexAndMethodInJournalOrder() {
+        InMemoryRequestJournal journal = new InMemoryRequestJournal();
+        journal.requestReceived(request("/api/users/1", GET));
+        journal.requestReceived(request("/other", POST));
+        journal.requestReceived(request("/api/users/2", POST));
+        journal.requestReceived(request("/api/users/1", GET));
+
+        assertThat(journal.countRequestsMatching(urlIs("/api/users/1")), is(2));
+        assertThat(urlsOf(journal.getRequestsMatching(urlMatches("/api/users/[0-9]"))),
+                is(asList("/api/users/1", "/api/users/2", "/api/users/1")));
+        assertThat(urlsOf(journal.getRequestsMatching(anyUrlWithMethod(POST))),
+                is(asList("/other", "/api/users/2")));
+        assertThat(journal.countRequestsMatching(urlMatches(".*/users/.*")), is(3));
+    }
+
+    @Test
+    public void evictedRequestsAreRemovedFromTheIndexes() {
+        InMemoryRequestJournal journal = new InMemoryRequestJournal(Optional.of(1), Optional.<Long>absent());
+        journal.requestReceived(request("/api/first", GET));
+        journal.requestReceived(request("/api/second", POST));
+
+        assertThat(journal.countRequestsMatching(urlIs("/api/first")), is(0));
+        assertThat(journal.countRequestsMatching(urlMatches("/api/.*")), is(1));
+        assertThat(journal.countRequestsMatching(anyUrlWithMethod(GET)), is(0));
+    }
+
+    private Request request(String url) {
+        return request(url, GET);
+    }
+
+    private Request request(String url, RequestMethod method) {
+        return aRequest(context, method + url + (requestCount++))
+                .withUrl(url)
+                .withMethod(method)
+                .withBody("")
+                .build();
+    }
+
+    private static RequestPattern urlMatches(String regex) {
+        RequestPattern pattern = new RequestPattern(ANY);
+        pattern.setUrlPattern(regex);
+        return pattern;
+    }
+
+    private static RequestPattern anyUrlWithMethod(RequestMethod method) {
+        RequestPattern pattern = new RequestPattern(method);
+        pattern.setUrlPattern(".*");
+        return pattern;
+    }
+
+    private static List<String> urlsOf(List<LoggedRequest> requests) {
+        List<String> urls = newArrayList();
+        for (LoggedRequest request: requests) {
+            urls.add(request.getUrl());
+        }
+        return urls;
+    }
+
+    private static RequestPattern urlIs(String url) {
+        return new RequestPattern(ANY, url);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2011 Thomas Akehurst
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.tomakehurst.wiremock.verification;
+
+import org.junit.Test;
+
+import static com.github.tomakehurst.wiremock.verification.RequestJournalIndex.firstPathSegmentOf;
+import static com.github.tomakehurst.wiremock.verification.RequestJournalIndex.firstPathSegmentOfRegex;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RequestJournalIndexTest {
+
+    @Test
+    public void firstPathSegmentStopsAtSlashOrQueryString() {
+        assertThat(firstPathSegmentOf("/api/users/1"), is("/api"));
+        assertThat(firstPathSegmentOf("/api?page=2"), is("/api"));
+        assertThat(firstPathSegmentOf("/"), is("/"));
+    }
+
+    @Test
+    public void regexWithLiteralFirstSegmentIsNarrowed() {
+        assertThat(firstPathSegmentOfRegex("/api/users/.*").get(), is("/api"));
+        assertThat(firstPathSegmentOfRegex("/api/[0-9]+").get(), is("/api"));
+        assertThat(firstPathSegmentOfRegex("/api\\?page=.*").isPresent(), is(false));
+    }
+
+    @Test
+    public void regexWithIncompleteOrOptionalFirstSegmentIsNotNarrowed() {
+        assertThat(firstPathSegmentOfRegex("/api.*").isPresent(), is(false));
+        assertThat(firstPathSegmentOfRegex("/api/?.*").isPresent(), is(false));
+        assertThat(firstPathSegmentOfRegex(".*/api/.*").isPresent(), is(false));
+        assertThat(firstPathSegmentOfRegex("(?i)/api/.*").isPresent(), is(false));
+    }
+
+    @Test
+    public void regexWithAlternationIsNotNarrowed() {
+        assertThat(firstPathSegmentOfRegex("/api/.*|/other/.*").isPresent(), is(false));
+    }
+}